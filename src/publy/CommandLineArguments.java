@@ -16,9 +16,14 @@
 package publy;
 
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.validators.PositiveInteger;
+import publy.algo.ParallelProcessing;
 import publy.data.settings.ConsoleSettings;
 import publy.data.settings.FileSettings;
 import publy.data.settings.Settings;
+import publy.io.FragmentCache;
+import publy.io.GenerationOptions;
+import publy.io.ReferenceChecker;
 import publy.io.ResourceLocator;
 
 /**
@@ -32,6 +37,8 @@ public class CommandLineArguments {
     private String config;
     @Parameter(names = {"-d", "--debug"}, description = "Enable debug output")
     private boolean debug = false;
+    @Parameter(names = {"--fragment-cache"}, description = "Reuse the output for publications that did not change since the last run, and the match rates of the categories")
+    private boolean fragmentCache = false;
     @Parameter(names = {"-g", "--gui"}, description = "Open the configuration GUI")
     private boolean gui = false;
     @Parameter(names = {"-h", "--help"}, description = "Display this usage information", help = true)
@@ -42,8 +49,14 @@ public class CommandLineArguments {
     private String output;
     @Parameter(names = {"-q", "-s", "--quiet", "--silent"}, description = "Hide regular log output")
     private boolean silent = false;
+    @Parameter(names = {"--reference-cache"}, description = "File that remembers which referenced files exist between runs", arity = 1)
+    private String referenceCache;
+    @Parameter(names = {"-t", "--threads"}, description = "Number of threads used to process publications (0: one per processor)", arity = 1, validateWith = PositiveInteger.class)
+    private Integer threads;
     @Parameter(names = {"-v", "-V", "--version"}, description = "Display version information")
     private boolean version = false;
+    @Parameter(names = {"--watch"}, description = "Keep running, and generate the publication list again whenever the publications, header, footer, or theme change")
+    private boolean watch = false;
     @Parameter(names = {"-w", "--no-warn"}, description = "Hide warnings")
     private boolean hidewarnings = false;
 
@@ -73,6 +86,16 @@ public class CommandLineArguments {
         return debug;
     }
 
+    /**
+     * Gets whether to keep the output for each publication between runs, in
+     * a {@link FragmentCache}.
+     *
+     * @return whether to use the fragment cache
+     */
+    public boolean isFragmentCache() {
+        return fragmentCache;
+    }
+
     /**
      * Gets whether the program should be run in GUI mode.
      *
@@ -130,6 +153,29 @@ public class CommandLineArguments {
         return silent;
     }
 
+    /**
+     * Gets the name of the file in which {@link ReferenceChecker} keeps its
+     * answers between runs.
+     *
+     * @return the name of the reference cache, or null if none was specified
+     */
+    public String getReferenceCache() {
+        return referenceCache;
+    }
+
+    /**
+     * Gets the number of threads that should be used to process
+     * publications.
+     * <p>
+     * If this was not specified at the command line, this returns null, and
+     * publications are processed on a single thread.
+     *
+     * @return the number of threads, or 0 for one thread per processor
+     */
+    public Integer getThreads() {
+        return threads;
+    }
+
     /**
      * Gets whether to print the current program version.
      * <p>
@@ -142,6 +188,16 @@ public class CommandLineArguments {
         return version;
     }
 
+    /**
+     * Gets whether to keep running after generating the publication list, and
+     * generate it again whenever one of its input files changes.
+     *
+     * @return whether to watch the input files for changes
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
     /**
      * Gets whether to hide warnings.
      * <p>
@@ -166,6 +222,8 @@ public class CommandLineArguments {
      * <li> {@link ConsoleSettings#showLogs} is set to the inverse of {@link #isSilent()}.
      * <li> {@link ConsoleSettings#showWarnings} is set to the inverse of {@link #hidewarnings()}.
      * <li> {@link ConsoleSettings#showStackTraces} is set to {@link #isDebug()}.
+     * <li> The number of threads of {@link ParallelProcessing} is set to
+     * {@link #getThreads()}, if the latter is not null.
      * </ul><p>
      *
      * @param settings
@@ -192,5 +250,33 @@ public class CommandLineArguments {
         if (debug) {
             settings.getConsoleSettings().setShowStackTraces(true);
         }
+
+        // Processing
+        if (threads != null) {
+            ParallelProcessing.setThreads(threads);
+        }
+    }
+
+    /**
+     * Returns the options for generating the publication list that are given
+     * by these command-line arguments.
+     * <p>
+     * The cache file of each run's {@link ReferenceChecker} is set to
+     * {@link #getReferenceCache()}, if the latter is not null and non-empty.
+     * The {@link FragmentCache} is used if {@link #isFragmentCache()} or
+     * {@link #isWatch()}.
+     *
+     * @return the generation options
+     */
+    public GenerationOptions getGenerationOptions() {
+        GenerationOptions options = new GenerationOptions();
+
+        if (referenceCache != null && !referenceCache.isEmpty()) {
+            options.setReferenceCache(ResourceLocator.getFullPath(referenceCache));
+        }
+
+        options.setFragmentCache(fragmentCache || watch);
+
+        return options;
     }
 }
@@ -19,6 +19,8 @@ import java.awt.Color;
 import java.awt.GraphicsEnvironment;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JTextPane;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.SimpleAttributeSet;
@@ -66,6 +68,7 @@ public class Console {
     private static ConsoleSettings settings = new ConsoleSettings();
     private static JTextPane textPane = null; // A styled text area to log to, if the program was invoked without an attached console
     private static boolean headless = GraphicsEnvironment.isHeadless();
+    private static final ThreadLocal<BufferedMessages> buffer = new ThreadLocal<>(); // Messages that are held back for the current thread, if any
 
     // Static font initialization
     static {
@@ -198,7 +201,14 @@ public class Console {
         }
     }
 
-    private static void output(String headlessPrefix, String text, SimpleAttributeSet attributes) {
+    private static synchronized void output(String headlessPrefix, String text, SimpleAttributeSet attributes) {
+        BufferedMessages messages = buffer.get();
+
+        if (messages != null) {
+            messages.add(headlessPrefix, text, attributes);
+            return;
+        }
+
         if (textPane == null) {
             if (System.console() == null) {
                 if (headless) {
@@ -269,6 +279,81 @@ public class Console {
         Console.textPane = textPane;
     }
 
+    /**
+     * Starts holding back all messages produced by the current thread, instead
+     * of showing them.
+     * <p>
+     * This allows work to be done on several threads, while the messages are
+     * still shown in a deterministic order. Messages are filtered according to
+     * the settings at the time they are produced.
+     * <p>
+     * Buffering can be nested: the messages that are shown while the thread is
+     * already buffering are added to the outer buffer.
+     */
+    public static void startBuffering() {
+        buffer.set(new BufferedMessages(buffer.get()));
+    }
+
+    /**
+     * Stops holding back messages produced by the current thread.
+     *
+     * @return the messages that were produced since the last call to
+     * {@link #startBuffering()}, or null if the current thread was not
+     * buffering
+     */
+    public static BufferedMessages stopBuffering() {
+        BufferedMessages messages = buffer.get();
+
+        if (messages == null || messages.outer == null) {
+            buffer.remove();
+        } else {
+            buffer.set(messages.outer);
+        }
+
+        return messages;
+    }
+
+    /**
+     * A sequence of messages that were held back by
+     * {@link #startBuffering()}.
+     */
+    public static class BufferedMessages {
+
+        private final BufferedMessages outer; // The buffer that was active when this one was started, if any
+        private final List<String> prefixes = new ArrayList<>();
+        private final List<String> texts = new ArrayList<>();
+        private final List<SimpleAttributeSet> attributes = new ArrayList<>();
+
+        private BufferedMessages(BufferedMessages outer) {
+            this.outer = outer;
+        }
+
+        /**
+         * Checks whether any messages were held back.
+         *
+         * @return true if this sequence contains no messages
+         */
+        public boolean isEmpty() {
+            return texts.isEmpty();
+        }
+
+        private void add(String headlessPrefix, String text, SimpleAttributeSet attributes) {
+            prefixes.add(headlessPrefix);
+            texts.add(text);
+            this.attributes.add(attributes);
+        }
+
+        /**
+         * Shows all messages in this sequence, in the order in which they were
+         * produced.
+         */
+        public void show() {
+            for (int i = 0; i < texts.size(); i++) {
+                output(prefixes.get(i), texts.get(i), attributes.get(i));
+            }
+        }
+    }
+
     private static void createConsoleFrame() {
         ConsoleFrame consoleFrame = new ConsoleFrame();
         // The constructor of ConsoleFrame calls setOutputTarget
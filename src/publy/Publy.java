@@ -55,7 +55,7 @@ public class Publy {
         } else {
             if (arguments.isGui()) {
                 Runner.runWithGUI(arguments);
-            } else if (System.console() == null) {
+            } else if (System.console() == null && !arguments.isWatch()) {
                 Runner.runInMixedMode(arguments);
             } else {
                 Runner.runOnCommandLine(arguments);
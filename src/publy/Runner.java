@@ -22,9 +22,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import javax.swing.JOptionPane;
 import publy.algo.PublicationListGenerator;
+import publy.algo.PublicationListWatcher;
 import publy.data.settings.Settings;
 import publy.gui.MainFrame;
 import publy.gui.WelcomeDialog;
+import publy.io.GenerationOptions;
 import publy.io.ResourceLocator;
 import publy.io.settings.SettingsReaderCurrent;
 
@@ -54,7 +56,27 @@ public class Runner {
             arguments.applyOverrides(settings);
             Console.setSettings(settings.getConsoleSettings());
 
-            PublicationListGenerator.generatePublicationList(settings);
+            GenerationOptions options = arguments.getGenerationOptions();
+            PublicationListGenerator.generatePublicationList(settings, options);
+
+            if (arguments.isWatch()) {
+                watch(settings, options);
+            }
+        }
+    }
+
+    /**
+     * Generates the publication list again whenever one of its input files
+     * changes, until the program is stopped.
+     *
+     * @param settings the configuration to use
+     * @param options the generation options to use
+     */
+    private static void watch(Settings settings, GenerationOptions options) {
+        try (PublicationListWatcher watcher = new PublicationListWatcher(settings, options)) {
+            watcher.watch();
+        } catch (IOException ex) {
+            Console.except(ex, "An exception occurred while watching the input files for changes:");
         }
     }
 
@@ -124,7 +146,7 @@ public class Runner {
         if (showSettings) {
             launchGUI(settings);
         } else {
-            boolean htmlGenerated = PublicationListGenerator.generatePublicationList(settings);
+            boolean htmlGenerated = PublicationListGenerator.generatePublicationList(settings, arguments.getGenerationOptions());
             if (htmlGenerated && settings.getFileSettings().isOpenOutput()) {
                 openFileInBrowser(settings.getFileSettings().getTarget());
             }
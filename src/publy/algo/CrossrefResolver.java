@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.algo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import publy.Console;
+import publy.data.bibitem.BibItem;
+
+/**
+ * Copies the fields of cross-referenced publications into the publications
+ * that refer to them.
+ * <p>
+ * A publication is only copied from once its own cross-reference has been
+ * resolved, so chains of cross-references are followed to the end, in any
+ * order. Each publication is resolved once, so a proceedings volume with many
+ * papers is not processed again for each paper. In a cycle of
+ * cross-references, each publication copies only the fields that the
+ * publication it refers to has itself, so that the result does not depend on
+ * the order of the publications.
+ */
+class CrossrefResolver {
+
+    private final Map<String, BibItem> itemsById;
+    // Publications that are being resolved map to false, resolved ones to true
+    private final Map<BibItem, Boolean> resolved = new IdentityHashMap<>();
+
+    /**
+     * Creates a resolver for the given publications.
+     *
+     * @param itemsById the publications, by identifier
+     */
+    CrossrefResolver(Map<String, BibItem> itemsById) {
+        this.itemsById = itemsById;
+    }
+
+    /**
+     * Resolves the cross-references of all given publications.
+     *
+     * @param items the publications
+     */
+    void resolveAll(List<BibItem> items) {
+        for (BibItem item : items) {
+            resolve(item);
+        }
+    }
+
+    /**
+     * Resolves the cross-references of the given publication, and of the
+     * publications that it refers to.
+     *
+     * @param item the publication
+     */
+    void resolve(BibItem item) {
+        // Follow the chain of cross-references until a resolved publication, a missing one, or a cycle
+        Deque<BibItem> chain = new ArrayDeque<>();
+        BibItem current = item;
+
+        while (current != null && !resolved.containsKey(current)) {
+            resolved.put(current, false);
+            chain.push(current);
+            current = getSource(current, true);
+        }
+
+        if (current != null && Boolean.FALSE.equals(resolved.get(current))) {
+            resolveCycle(chain, current);
+        }
+
+        // Resolve the rest of the chain from the end
+        while (!chain.isEmpty()) {
+            current = chain.pop();
+            BibItem source = getSource(current, false);
+
+            if (source != null) {
+                current.putMissingFields(source);
+            }
+
+            resolved.put(current, true);
+        }
+    }
+
+    /**
+     * Resolves the publications that were pushed onto the chain since the
+     * given one, which refer to each other in a cycle. Each copies the fields
+     * that the publication it refers to had before, without following the
+     * cycle any further.
+     */
+    private void resolveCycle(Deque<BibItem> chain, BibItem start) {
+        List<BibItem> cycle = new ArrayList<>();
+        BibItem member;
+
+        do {
+            member = chain.pop();
+            cycle.add(member);
+        } while (member != start);
+
+        Map<BibItem, BibItem> originals = new IdentityHashMap<>();
+
+        for (BibItem item : cycle) {
+            BibItem original = new BibItem(item.getOriginalType(), item.getId());
+            original.putMissingFields(item);
+            originals.put(item, original);
+        }
+
+        for (BibItem item : cycle) {
+            item.putMissingFields(originals.get(getSource(item, false)));
+            resolved.put(item, true);
+        }
+    }
+
+    /**
+     * Returns the publication that the given publication cross-references, or
+     * null if there is none.
+     */
+    private BibItem getSource(BibItem item, boolean warn) {
+        String id = item.get("crossref");
+
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+
+        BibItem source = itemsById.get(id);
+
+        if (warn) {
+            if (source == null) {
+                Console.warn(Console.WarningType.MISSING_REFERENCE, "Publication \"%s\" (cross-referenced from \"%s\") does not exist.", id, item.getId());
+            } else if (Boolean.FALSE.equals(resolved.get(source))) {
+                Console.warn(Console.WarningType.MISSING_REFERENCE, "Publication \"%s\" (cross-referenced from \"%s\") is part of a cycle of cross-references. Only its own fields are copied.", id, item.getId());
+            }
+        }
+
+        return source;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.algo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import publy.Console;
+
+/**
+ * Runs a task for each element of a list, on several threads if this is
+ * enabled.
+ * <p>
+ * The messages that a task shows are held back, and shown in the order of the
+ * list once all tasks are done. As long as the tasks for different elements
+ * don't depend on each other, the results and the console output are the same
+ * as when the tasks run one after another.
+ */
+public class ParallelProcessing {
+
+    private static final int MIN_PARALLEL_SIZE = 64; // Smaller lists are not worth the overhead
+    private static int threads = 1; // Guarded by ParallelProcessing.class
+    private static ForkJoinPool pool = null; // Guarded by ParallelProcessing.class
+
+    /**
+     * Gets the number of threads that are used to process publications.
+     *
+     * @return the number of threads; 1 if publications are processed one
+     * after another
+     */
+    public static synchronized int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads that are used to process publications.
+     *
+     * @param threads the number of threads, or 0 to use one thread per
+     * processor
+     */
+    public static synchronized void setThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("The number of threads cannot be negative.");
+        }
+
+        int newThreads = (threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+
+        if (newThreads != ParallelProcessing.threads && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+
+        ParallelProcessing.threads = newThreads;
+    }
+
+    /**
+     * Returns the pool that runs the tasks, or null if they should run on the
+     * current thread.
+     */
+    private static synchronized ForkJoinPool getPool(int size) {
+        // Tasks that are already running in a pool process their own lists sequentially, as their messages are already held back
+        if (threads == 1 || size < MIN_PARALLEL_SIZE || ForkJoinTask.inForkJoinPool()) {
+            return null;
+        }
+
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+
+        return pool;
+    }
+
+    /**
+     * Checks whether a list of the given size would be processed on several
+     * threads by {@link #map(List, Function)}.
+     *
+     * @param size the number of elements
+     * @return true if the elements would be processed in parallel
+     */
+    public static boolean isParallel(int size) {
+        return getPool(size) != null;
+    }
+
+    /**
+     * Runs the given task for each of the given elements.
+     *
+     * @param <T> the type of the elements
+     * @param elements the elements
+     * @param task the task
+     */
+    static <T> void forEach(List<T> elements, Consumer<? super T> task) {
+        map(elements, element -> {
+            task.accept(element);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given function for each of the given elements, and returns
+     * the results in the same order.
+     *
+     * @param <T> the type of the elements
+     * @param <R> the type of the results
+     * @param elements the elements
+     * @param function the function
+     * @return the results
+     */
+    public static <T, R> List<R> map(List<T> elements, Function<? super T, ? extends R> function) {
+        ForkJoinPool executor = getPool(elements.size());
+
+        if (executor == null) {
+            List<R> results = new ArrayList<>(elements.size());
+
+            for (T element : elements) {
+                results.add(function.apply(element));
+            }
+
+            return results;
+        }
+
+        int size = elements.size();
+        Object[] results = new Object[size];
+        Console.BufferedMessages[] messages = new Console.BufferedMessages[size];
+
+        try {
+            executor.submit(() -> IntStream.range(0, size).parallel().forEach(i -> {
+                Console.startBuffering();
+
+                try {
+                    results[i] = function.apply(elements.get(i));
+                } finally {
+                    messages[i] = Console.stopBuffering();
+                }
+            })).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            // Show the messages of the finished tasks, up to the first unfinished one
+            for (Console.BufferedMessages m : messages) {
+                if (m == null) {
+                    break;
+                }
+
+                m.show();
+            }
+
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            } else {
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+
+        for (Console.BufferedMessages m : messages) {
+            m.show();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    /**
+     * Runs the given independent tasks, and returns their results in the same
+     * order.
+     * <p>
+     * Unlike {@link #map(List, Function)}, each task runs on a thread of its
+     * own rather than in the pool, so that it can use the pool for its own
+     * elements. The tasks run one after another if only one thread is used.
+     *
+     * @param <R> the type of the results
+     * @param tasks the tasks
+     * @return the results
+     */
+    static <R> List<R> invokeAll(List<? extends Supplier<? extends R>> tasks) {
+        int size = tasks.size();
+
+        if (getThreads() == 1 || size < 2) {
+            List<R> results = new ArrayList<>(size);
+
+            for (Supplier<? extends R> task : tasks) {
+                results.add(task.get());
+            }
+
+            return results;
+        }
+
+        Object[] results = new Object[size];
+        Throwable[] failures = new Throwable[size];
+        Console.BufferedMessages[] messages = new Console.BufferedMessages[size];
+        Thread[] workers = new Thread[size];
+
+        for (int i = 0; i < size; i++) {
+            int index = i;
+
+            workers[i] = new Thread(() -> {
+                Console.startBuffering();
+
+                try {
+                    results[index] = tasks.get(index).get();
+                } catch (Throwable t) {
+                    failures[index] = t;
+                } finally {
+                    messages[index] = Console.stopBuffering();
+                }
+            }, "Publy task " + (i + 1));
+            workers[i].start();
+        }
+
+        boolean interrupted = false;
+
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true; // The tasks have side-effects, so wait for them anyway
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Show the messages in order, up to the first failed task
+        for (int i = 0; i < size; i++) {
+            messages[i].show();
+
+            if (failures[i] instanceof RuntimeException) {
+                throw (RuntimeException) failures[i];
+            } else if (failures[i] instanceof Error) {
+                throw (Error) failures[i];
+            } else if (failures[i] != null) {
+                throw new RuntimeException(failures[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    private ParallelProcessing() {
+    }
+}
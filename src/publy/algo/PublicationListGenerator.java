@@ -18,15 +18,24 @@ package publy.algo;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import publy.Console;
 import publy.data.Section;
 import publy.data.bibitem.BibItem;
 import publy.data.settings.Settings;
+import publy.io.ConversionCache;
+import publy.io.FragmentCache;
+import publy.io.GenerationContext;
+import publy.io.GenerationOptions;
 import publy.io.PublicationListWriter;
+import publy.io.ReferenceChecker;
 import publy.io.bibtex.BibtexPublicationListWriter;
 import publy.io.bibtexparser.ParseException;
+import publy.io.bibtexparser.ParseOptions;
 import publy.io.bibtexparser.PublicationListParser;
+import publy.io.bibtexparser.PublicationStream;
 import publy.io.html.HTMLPublicationListWriter;
 import publy.io.plain.PlainPublicationListWriter;
 
@@ -35,6 +44,13 @@ import publy.io.plain.PlainPublicationListWriter;
  */
 public class PublicationListGenerator {
 
+    /**
+     * Publication lists of at least this many bytes are generated while they
+     * are parsed, if the configuration allows it. Smaller lists are parsed
+     * completely first, which is faster.
+     */
+    static final long STREAMING_THRESHOLD = 16 << 20;
+
     /**
      * Parses the publication list, and generates all required versions.
      * <p>
@@ -45,26 +61,132 @@ public class PublicationListGenerator {
      * @return true iff the HTML version was successfully generated
      */
     public static boolean generatePublicationList(Settings settings) {
+        return generatePublicationList(settings, new GenerationOptions());
+    }
+
+    /**
+     * Parses the publication list, and generates all required versions, with
+     * the given options.
+     *
+     * @param settings the configuration
+     * @param options the options that are not part of the configuration
+     * @return true iff the HTML version was successfully generated
+     * @see #generatePublicationList(Settings)
+     */
+    public static boolean generatePublicationList(Settings settings, GenerationOptions options) {
         Console.debug("Generating publication list.");
         boolean success = false;
 
         if (checkFileSettings(settings)) {
-            List<BibItem> items = parsePublications(settings);
+            GenerationContext context = new GenerationContext(settings, options);
+            ReferenceChecker references = context.getReferences();
+            FragmentCache fragments = context.getFragments();
+
+            if (PublicationPipeline.canStream(settings) && isLarge(settings.getFileSettings().getPublications())) {
+                success = generateStreamed(settings, context);
+            } else {
+                success = generateBuffered(settings, context);
+            }
 
-            if (items != null) {
-                List<Section> sections = PublicationPostProcessor.postProcess(settings, items);
+            ConversionCache processedStrings = context.getProcessedStrings();
+            Console.debug("Processed strings: %d cache hits, %d misses, %d cached.", processedStrings.getHits(), processedStrings.getMisses(), processedStrings.size());
 
-                writeTextVersion(settings, sections);
-                writeBibtexVersion(settings, sections);
-                success = writeHtmlVersion(settings, sections);
+            if (success) {
+                // After a failed run, the caches would only hold what was seen before the failure
+                references.save();
+                fragments.save();
+                context.getCategoryStatistics().save();
             }
 
+            Console.debug("Fragments: %d reused, %d written.", fragments.getHits(), fragments.getMisses());
+            Console.debug("Referenced files: %d checked, %d cache hits.", references.getChecks(), references.getHits());
             Console.log("Done.");
         }
 
         return success;
     }
 
+    /**
+     * Parses all publications, and then generates all required versions of
+     * the publication list.
+     *
+     * @param settings the configuration
+     * @param context the state of this generation run
+     * @return true iff the HTML version was successfully generated
+     */
+    private static boolean generateBuffered(Settings settings, GenerationContext context) {
+        List<BibItem> items = parsePublications(settings);
+
+        if (items == null) {
+            return false;
+        }
+
+        return generateBuffered(settings, context, items);
+    }
+
+    /**
+     * Generates all required versions of the publication list from the given
+     * publications.
+     *
+     * @param settings the configuration
+     * @param context the state of this generation run
+     * @param items all publications
+     * @return true iff the HTML version was successfully generated
+     */
+    private static boolean generateBuffered(Settings settings, GenerationContext context, List<BibItem> items) {
+        List<Section> sections = PublicationPostProcessor.postProcess(settings, context, items);
+
+        return writeAllVersions(settings, context, sections);
+    }
+
+    /**
+     * Generates all required versions of the publication list while the
+     * publications are parsed, unless the publications use cross-references.
+     *
+     * @param settings the configuration
+     * @param context the state of this generation run
+     * @return true iff the HTML version was successfully generated
+     */
+    private static boolean generateStreamed(Settings settings, GenerationContext context) {
+        PublicationStream publications;
+
+        try {
+            publications = PublicationListParser.streamFile(settings.getFileSettings().getPublications());
+        } catch (IOException ex) {
+            Console.except(ex, "Exception while parsing publications list:");
+            return false;
+        }
+
+        if (publications.getPublications() != null) {
+            // The parser found cross-references early, and kept the complete list
+            Console.debug("Publications use cross-references; generating from the complete publication list.");
+            Console.log("Publications list \"%s\" parsed.", settings.getFileSettings().getPublications().getFileName());
+            return generateBuffered(settings, context, publications.getPublications());
+        } else if (PublicationPipeline.canStream(publications)) {
+            Console.debug("Streaming publication list.");
+            return PublicationPipeline.generatePublicationList(settings, context, publications);
+        } else {
+            // Only late publications use cross-references, so the first ones were not kept
+            Console.debug("Publications use cross-references; reading the complete publication list.");
+            return generateBuffered(settings, context);
+        }
+    }
+
+    /**
+     * Checks whether the given publication list is large enough that it should
+     * not be kept in memory, if this can be avoided.
+     *
+     * @param pubList the publication list
+     * @return true if the file size is at least {@link #STREAMING_THRESHOLD}
+     */
+    private static boolean isLarge(Path pubList) {
+        try {
+            return Files.size(pubList) >= STREAMING_THRESHOLD;
+        } catch (IOException ex) {
+            return false; // Let the buffered parser report the problem
+        }
+    }
+
     /**
      * Verifies that the publication list is specified and exists, and that an
      * output file is specified.
@@ -108,7 +230,7 @@ public class PublicationListGenerator {
         List<BibItem> items = null;
 
         try {
-            items = PublicationListParser.parseFile(settings.getFileSettings().getPublications());
+            items = PublicationListParser.parseFile(settings.getFileSettings().getPublications(), getParseOptions());
             Console.log("Publications list \"%s\" parsed.", settings.getFileSettings().getPublications().getFileName());
         } catch (IOException | ParseException ex) {
             Console.except(ex, "Exception while parsing publications list:");
@@ -118,38 +240,84 @@ public class PublicationListGenerator {
     }
 
     /**
-     * Writes a text version of the publication list, if required.
+     * Returns the options for parsing the publication list. The parser uses as
+     * many threads as {@link ParallelProcessing}.
+     *
+     * @return the parse options
+     */
+    private static ParseOptions getParseOptions() {
+        ParseOptions options = new ParseOptions();
+        options.setParallelism(ParallelProcessing.getThreads());
+        return options;
+    }
+
+    /**
+     * Writes all required versions of the publication list.
+     * <p>
+     * The writers only read the sections, so they run at the same time if
+     * {@link ParallelProcessing} allows more than one thread. Their messages
+     * are shown in the same order as when they run one after another: plain
+     * text, BibTeX, HTML.
      *
      * @param settings the configuration
+     * @param context the state of this generation run
      * @param sections the publication list sections
+     * @return true iff the HTML version was successfully generated
      */
-    private static void writeTextVersion(Settings settings, List<Section> sections) {
+    private static boolean writeAllVersions(Settings settings, GenerationContext context, List<Section> sections) {
+        List<Supplier<Boolean>> writers = new ArrayList<>();
+
         if (settings.getHtmlSettings().isGenerateTextVersion()) {
-            try {
-                PublicationListWriter writer = new PlainPublicationListWriter(settings);
-                writer.writePublicationList(sections, settings.getFileSettings().getPlainTextTarget());
-                Console.log("Plain text publication list written.");
-            } catch (Exception | AssertionError ex) {
-                Console.except(ex, "Exception while writing plain text publication list:");
-            }
+            writers.add(() -> writeTextVersion(settings, context, sections));
         }
+
+        if (settings.getHtmlSettings().isGenerateBibtexVersion()) {
+            writers.add(() -> writeBibtexVersion(settings, context, sections));
+        }
+
+        writers.add(() -> writeHtmlVersion(settings, context, sections));
+
+        List<Boolean> results = ParallelProcessing.invokeAll(writers);
+        return results.get(results.size() - 1);
     }
 
     /**
-     * Writes a BibTeX version of the publication list, if required.
+     * Writes a text version of the publication list.
      *
      * @param settings the configuration
+     * @param context the state of this generation run
      * @param sections the publication list sections
+     * @return true iff the text version was successfully generated
      */
-    private static void writeBibtexVersion(Settings settings, List<Section> sections) {
-        if (settings.getHtmlSettings().isGenerateBibtexVersion()) {
-            try {
-                PublicationListWriter writer = new BibtexPublicationListWriter(settings);
-                writer.writePublicationList(sections, settings.getFileSettings().getBibtexTarget());
-                Console.log("BibTeX publication list written.");
-            } catch (Exception | AssertionError ex) {
-                Console.except(ex, "Exception while writing BibTeX publication list:");
-            }
+    private static boolean writeTextVersion(Settings settings, GenerationContext context, List<Section> sections) {
+        try {
+            PublicationListWriter writer = new PlainPublicationListWriter(settings, context);
+            writer.writePublicationList(sections, settings.getFileSettings().getPlainTextTarget());
+            Console.log("Plain text publication list written.");
+            return true;
+        } catch (Exception | AssertionError ex) {
+            Console.except(ex, "Exception while writing plain text publication list:");
+            return false;
+        }
+    }
+
+    /**
+     * Writes a BibTeX version of the publication list.
+     *
+     * @param settings the configuration
+     * @param context the state of this generation run
+     * @param sections the publication list sections
+     * @return true iff the BibTeX version was successfully generated
+     */
+    private static boolean writeBibtexVersion(Settings settings, GenerationContext context, List<Section> sections) {
+        try {
+            PublicationListWriter writer = new BibtexPublicationListWriter(settings, context);
+            writer.writePublicationList(sections, settings.getFileSettings().getBibtexTarget());
+            Console.log("BibTeX publication list written.");
+            return true;
+        } catch (Exception | AssertionError ex) {
+            Console.except(ex, "Exception while writing BibTeX publication list:");
+            return false;
         }
     }
 
@@ -157,12 +325,13 @@ public class PublicationListGenerator {
      * Writes an HTML version of the publication list.
      *
      * @param settings the configuration
+     * @param context the state of this generation run
      * @param sections the publication list sections
      * @return true iff the HTML version was successfully generated
      */
-    private static boolean writeHtmlVersion(Settings settings, List<Section> sections) {
+    private static boolean writeHtmlVersion(Settings settings, GenerationContext context, List<Section> sections) {
         try {
-            PublicationListWriter writer = new HTMLPublicationListWriter(settings);
+            PublicationListWriter writer = new HTMLPublicationListWriter(settings, context);
             writer.writePublicationList(sections, settings.getFileSettings().getTarget());
             Console.log("HTML publication list written.");
             return true;
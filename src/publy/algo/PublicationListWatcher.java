@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.algo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import publy.Console;
+import publy.data.settings.Settings;
+import publy.io.FragmentCache;
+import publy.io.GenerationOptions;
+
+/**
+ * Generates the publication list again whenever one of its input files
+ * changes: the publication list, the header, the footer, or the theme.
+ * <p>
+ * Editors often save a file in several steps, so changes are collected until
+ * the files have been quiet for a short while, and then handled by a single
+ * generation. The settings are kept in memory, so changes to the
+ * configuration file are not noticed. If the options use the fragment cache,
+ * the fragments of each run are kept in memory for the next one.
+ */
+public class PublicationListWatcher implements Closeable {
+
+    static final long QUIET_MILLIS = 200;
+
+    private final Settings settings;
+    private final GenerationOptions options;
+    private final Set<Path> files;
+    private final WatchService watcher;
+
+    /**
+     * Starts watching the input files of the publication list with the given
+     * settings. Changes that happen from this point on are handled by
+     * {@link #watch()}.
+     *
+     * @param settings the settings
+     * @throws IOException if the directories of the input files cannot be
+     * watched
+     */
+    public PublicationListWatcher(Settings settings) throws IOException {
+        this(settings, new GenerationOptions());
+    }
+
+    /**
+     * Starts watching the input files of the publication list with the given
+     * settings, which is generated with the given options.
+     *
+     * @param settings the settings
+     * @param options the generation options
+     * @throws IOException if the directories of the input files cannot be
+     * watched
+     */
+    public PublicationListWatcher(Settings settings, GenerationOptions options) throws IOException {
+        this.settings = settings;
+        this.options = options;
+        options.setFragmentMemory(new FragmentCache.Memory());
+        files = Collections.unmodifiableSet(getInputFiles(settings));
+        watcher = FileSystems.getDefault().newWatchService();
+
+        try {
+            Set<Path> directories = new LinkedHashSet<>();
+
+            for (Path file : files) {
+                directories.add(file.getParent());
+            }
+
+            for (Path directory : directories) {
+                directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        } catch (IOException ex) {
+            watcher.close();
+            throw ex;
+        }
+    }
+
+    private static Set<Path> getInputFiles(Settings settings) {
+        List<Path> files = new ArrayList<>();
+        files.add(settings.getFileSettings().getPublications());
+        files.add(settings.getFileSettings().getHeader());
+        files.add(settings.getFileSettings().getFooter());
+        files.add(settings.getHtmlSettings().getTheme());
+
+        Set<Path> result = new LinkedHashSet<>();
+
+        for (Path file : files) {
+            if (file != null) {
+                result.add(file.toAbsolutePath().normalize());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the files that are watched.
+     *
+     * @return the absolute paths of the watched files
+     */
+    public Set<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * Generates the publication list after every change to the watched files,
+     * until the current thread is interrupted or this watcher is closed.
+     */
+    public void watch() {
+        Console.log("Watching %d files for changes. Press Ctrl+C to stop.", files.size());
+
+        try {
+            while (true) {
+                boolean changed = handle(watcher.take());
+
+                // Wait until the files have been quiet for a while
+                WatchKey key;
+
+                while ((key = watcher.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= handle(key);
+                }
+
+                if (changed) {
+                    long start = System.nanoTime();
+                    PublicationListGenerator.generatePublicationList(settings, options);
+                    Console.log("Regenerated the publication list in %d ms.", (System.nanoTime() - start) / 1000000);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Closed by another thread
+        }
+    }
+
+    /**
+     * Checks whether the events of the given key concern any of the watched
+     * files, and makes the key ready for new events.
+     */
+    private boolean handle(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true; // Events were lost
+            } else if (files.contains(directory.resolve((Path) event.context()))) {
+                changed = true;
+            }
+        }
+
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the files.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.algo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import publy.Console;
+import publy.data.Section;
+import publy.data.bibitem.BibItem;
+import publy.data.bibitem.Type;
+import publy.data.category.CategoryClassifier;
+import publy.data.settings.GeneralSettings;
+import publy.data.settings.Settings;
+import publy.io.GenerationContext;
+import publy.io.PublicationListWriter;
+import publy.io.bibtex.BibtexPublicationListWriter;
+import publy.io.bibtexparser.PublicationStream;
+import publy.io.html.HTMLPublicationListWriter;
+import publy.io.plain.PlainPublicationListWriter;
+
+/**
+ * Generates the publication list while it is being parsed, so that memory use
+ * does not depend on the number of publications.
+ * <p>
+ * The parser runs on its own thread and hands the publications to this one
+ * through a bounded queue. Each publication is post-processed, categorized,
+ * and written to all versions of the list before the next one is taken.
+ * Warnings that summarize several publications are shown at the end, after
+ * the warnings about individual publications.
+ * <p>
+ * This only works if every publication can be handled without knowing the
+ * others: there must be a single category, no grouping by year, no reverse
+ * numbering, and no cross-references. Otherwise, the publication list must be
+ * generated in buffered mode.
+ * <p>
+ * The pipeline does keep the identifier of every publication, to detect
+ * duplicates and links to publications that are not in the list. This takes
+ * far less memory than the publications themselves. Other identifiers are only
+ * kept for the warnings that list them.
+ */
+class PublicationPipeline {
+
+    private static final int QUEUE_CAPACITY = 256; // Lets the parser run ahead a little, without holding many publications
+
+    /**
+     * Checks whether the given configuration allows the publication list to
+     * be generated by a pipeline.
+     *
+     * @param settings the configuration
+     * @return true if there is a single category, without grouping or reverse
+     * numbering
+     */
+    static boolean canStream(Settings settings) {
+        return settings.getCategorySettings().getActiveCategories().size() == 1
+                && settings.getGeneralSettings().getGrouping() == GeneralSettings.Grouping.NO_GROUPING
+                && !settings.getGeneralSettings().isReverseNumbering();
+    }
+
+    /**
+     * Checks whether the given publications can be processed by a pipeline.
+     *
+     * @param publications the publications
+     * @return true if no publication uses a cross-reference
+     */
+    static boolean canStream(PublicationStream publications) {
+        return !publications.getFieldNames().contains("crossref");
+    }
+
+    /**
+     * Generates all required versions of the publication list. The settings
+     * and publications must satisfy both {@code canStream} methods.
+     *
+     * @param settings the configuration
+     * @param context the state of the current generation run
+     * @param publications the publications
+     * @return true iff the HTML version was successfully generated
+     */
+    static boolean generatePublicationList(Settings settings, GenerationContext context, PublicationStream publications) {
+        return new PublicationPipeline(settings, context).run(publications);
+    }
+
+    private final Settings settings;
+    private final GenerationContext context;
+    private final CategoryClassifier classifier;
+    private final Section section;
+    private final List<Output> outputs = new ArrayList<>();
+    // What is remembered about the publications for the final warnings
+    private final Map<String, Boolean> ids = new HashMap<>(); // Whether each publication was written
+    private int writtenCount = 0;
+    private final Map<String, Integer> duplicateCount = new HashMap<>();
+    private int omittedCount = 0;
+    private final List<String> uncategorized = new ArrayList<>();
+    private final Map<Type, List<String>> idsPerType = new EnumMap<>(Type.class);
+    private final List<String> notAuthoredByMe = new ArrayList<>();
+    private final List<String[]> paperLinks = new ArrayList<>(); // Linked id, attribute, linking id; only links to publications that were not written yet
+
+    private PublicationPipeline(Settings settings, GenerationContext context) {
+        this.settings = settings;
+        this.context = context;
+        classifier = new CategoryClassifier(settings.getCategorySettings().getActiveCategories(), context.getCategoryStatistics());
+        section = new Section(settings.getCategorySettings().getActiveCategories().get(0));
+    }
+
+    private boolean run(PublicationStream publications) {
+        BlockingQueue<Parsed> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Thread parser = new Thread(() -> parse(publications, queue), "Publy parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            if (settings.getHtmlSettings().isGenerateTextVersion()) {
+                outputs.add(new Output(new PlainPublicationListWriter(settings, context), settings.getFileSettings().getPlainTextTarget(), "Plain text"));
+            }
+
+            if (settings.getHtmlSettings().isGenerateBibtexVersion()) {
+                outputs.add(new Output(new BibtexPublicationListWriter(settings, context), settings.getFileSettings().getBibtexTarget(), "BibTeX"));
+            }
+
+            Output html = new Output(new HTMLPublicationListWriter(settings, context), settings.getFileSettings().getTarget(), "HTML");
+            outputs.add(html);
+
+            // Always drain the queue, so that the parser never blocks
+            for (Parsed parsed = take(queue); parsed != null; parsed = take(queue)) {
+                parsed.messages.show();
+
+                if (parsed.failure != null) {
+                    Console.except(parsed.failure, "Exception while parsing publications list:");
+                    return false;
+                } else if (parsed.item == null) {
+                    break; // End of the list
+                }
+
+                process(parsed.item);
+            }
+
+            Console.log("Publications list \"%s\" parsed.", settings.getFileSettings().getPublications().getFileName());
+            warnForAllItems();
+
+            for (Output output : outputs) {
+                output.finish();
+            }
+
+            return html.stream != null;
+        } finally {
+            parser.interrupt();
+
+            for (Output output : outputs) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * Parses the publications, and puts each into the queue together with the
+     * messages that were shown while parsing it. The last element has no
+     * publication.
+     */
+    private static void parse(PublicationStream publications, BlockingQueue<Parsed> queue) {
+        Throwable failure = null;
+        Console.startBuffering();
+
+        try {
+            publications.parse(item -> {
+                Parsed parsed = new Parsed(item, Console.stopBuffering(), null);
+                Console.startBuffering();
+
+                try {
+                    queue.put(parsed);
+                } catch (InterruptedException ex) {
+                    throw new CancellationException(); // The pipeline stopped taking publications
+                }
+            });
+        } catch (CancellationException ex) {
+            return;
+        } catch (IOException | RuntimeException | Error ex) {
+            failure = ex;
+        }
+
+        try {
+            queue.put(new Parsed(null, Console.stopBuffering(), failure));
+        } catch (InterruptedException ex) {
+            // The pipeline stopped taking publications
+        }
+    }
+
+    private static Parsed take(BlockingQueue<Parsed> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Post-processes the given publication in the same way as
+     * {@link PublicationPostProcessor#postProcess(Settings, GenerationContext, List)},
+     * and writes it if it fits the category.
+     */
+    private void process(BibItem item) {
+        if (ids.putIfAbsent(item.getId(), Boolean.FALSE) != null) {
+            Integer count = duplicateCount.get(item.getId());
+            duplicateCount.put(item.getId(), (count == null ? 1 : count) + 1);
+            return;
+        }
+
+        PublicationPostProcessor.processAliases(item);
+
+        if (!item.checkMandatoryFields()) {
+            omittedCount++;
+            return;
+        }
+
+        PublicationPostProcessor.detectArxiv(item);
+
+        if (settings.getConsoleSettings().isShowWarnings() && settings.getConsoleSettings().isWarnNotAuthor()
+                && !PublicationPostProcessor.isAuthoredByMe(context.getMyNames(), item)) {
+            notAuthoredByMe.add(item.getId());
+        }
+
+        PublicationPostProcessor.warnForMissingReferences(settings, context.getReferences(), item, (id, attribute) -> {
+            if (!isWritten(id)) {
+                paperLinks.add(new String[]{id, attribute, item.getId()});
+            }
+        });
+
+        if (classifier.classify(item) == null) {
+            uncategorized.add(item.getId());
+            return;
+        }
+
+        if (!idsPerType.containsKey(item.getType())) {
+            idsPerType.put(item.getType(), new ArrayList<String>());
+        }
+
+        idsPerType.get(item.getType()).add(item.getId());
+        ids.put(item.getId(), Boolean.TRUE);
+        writtenCount++;
+
+        for (Output output : outputs) {
+            output.write(item);
+        }
+    }
+
+    private void warnForAllItems() {
+        PublicationPostProcessor.warnForDuplicateIDs(duplicateCount);
+        PublicationPostProcessor.reportOmittedItems(omittedCount);
+        PublicationPostProcessor.warnForUncategorizedItems(uncategorized);
+
+        if (writtenCount > 0) {
+            PublicationPostProcessor.warnForMandatoryIgnoredFields(settings, section, idsPerType);
+        }
+
+        PublicationPostProcessor.warnForItemsNotAuthoredByMe(settings, notAuthoredByMe);
+
+        for (String[] link : paperLinks) {
+            if (!isWritten(link[0])) {
+                PublicationPostProcessor.warnForMissingPaper(link[0], link[1], link[2]);
+            }
+        }
+    }
+
+    private boolean isWritten(String id) {
+        return Boolean.TRUE.equals(ids.get(id));
+    }
+
+    /**
+     * A publication and the messages that were shown while parsing it.
+     */
+    private static class Parsed {
+
+        final BibItem item;
+        final Console.BufferedMessages messages;
+        final Throwable failure;
+
+        Parsed(BibItem item, Console.BufferedMessages messages, Throwable failure) {
+            this.item = item;
+            this.messages = messages;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * One version of the publication list. After an exception, it is
+     * abandoned and the target file is left unchanged.
+     */
+    private class Output {
+
+        final String name;
+        PublicationListWriter.SectionStream stream = null; // Null if writing failed
+
+        Output(PublicationListWriter writer, Path target, String name) {
+            this.name = name;
+
+            try {
+                stream = writer.streamPublicationList(section, target);
+            } catch (Exception | AssertionError ex) {
+                fail(ex);
+            }
+        }
+
+        void write(BibItem item) {
+            if (stream != null) {
+                try {
+                    stream.write(item);
+                } catch (Exception | AssertionError ex) {
+                    fail(ex);
+                }
+            }
+        }
+
+        void finish() {
+            if (stream != null) {
+                try {
+                    stream.finish();
+                    stream.close();
+                    Console.log("%s publication list written.", name);
+                } catch (Exception | AssertionError ex) {
+                    fail(ex);
+                }
+            }
+        }
+
+        void close() {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ex) {
+                    // The target file is left unchanged
+                }
+            }
+        }
+
+        private void fail(Throwable ex) {
+            Console.except(ex, "Exception while writing %s publication list:", (name.equals("Plain text") ? "plain text" : name));
+            close();
+            stream = null;
+        }
+    }
+}
@@ -15,7 +15,6 @@
  */
 package publy.algo;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -25,15 +24,21 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import publy.Console;
 import publy.data.Author;
+import publy.data.MyNameMatcher;
 import publy.data.Section;
+import publy.data.SectionIndex;
 import publy.data.bibitem.BibItem;
 import publy.data.bibitem.FieldData;
 import publy.data.bibitem.Type;
+import publy.data.category.CategoryClassifier;
 import publy.data.category.OutputCategory;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.Settings;
+import publy.io.GenerationContext;
+import publy.io.ReferenceChecker;
 
 /**
  *
@@ -65,23 +70,41 @@ public class PublicationPostProcessor {
      * <li> Categorizes the papers.
      * <li> Presents warnings for several common mistakes.
      * </ul>
+     * <p>
+     * The tasks that handle each publication separately run on several
+     * threads if {@link ParallelProcessing} allows it. Their messages are
+     * shown in the order of the publications, so the output is the same.
      *
      * @param settings the configuration settings to use
      * @param items the publications to process
      * @return a list of categories that contain the post-processed publications
      */
     public static List<Section> postProcess(Settings settings, List<BibItem> items) {
+        return postProcess(settings, new GenerationContext(settings), items);
+    }
+
+    /**
+     * Runs all defined post-processing tasks for the given publications, as
+     * part of the generation run with the given context.
+     *
+     * @param settings the configuration settings to use
+     * @param context the state of the current generation run
+     * @param items the publications to process
+     * @return a list of categories that contain the post-processed publications
+     * @see #postProcess(Settings, List)
+     */
+    public static List<Section> postProcess(Settings settings, GenerationContext context, List<BibItem> items) {
         Map<String, BibItem> itemsById = removeDuplicateIDs(items);
         processAliases(items);
         applyCrossref(items, itemsById);
         removeItemsWithMissingMandatoryFields(items);
         detectArxiv(items);
 
-        List<Section> sections = categorizePapers(settings, items);
+        List<Section> sections = categorizePapers(settings, context, items);
 
         warnForMandatoryIgnoredFields(settings, sections);
-        warnIfIAmNotAuthor(settings, items);
-        warnForMissingReferences(settings, items, sections);
+        warnIfIAmNotAuthor(settings, context.getMyNames(), items);
+        warnForMissingReferences(settings, context.getReferences(), items, sections);
 
         return sections;
     }
@@ -114,6 +137,19 @@ public class PublicationPostProcessor {
             }
         }
 
+        warnForDuplicateIDs(duplicateCount);
+
+        return itemsById;
+    }
+
+    /**
+     * Prints a warning message for identifiers that are used by more than one
+     * publication, if there are any.
+     *
+     * @param duplicateCount the number of publications for each duplicate
+     * identifier
+     */
+    static void warnForDuplicateIDs(Map<String, Integer> duplicateCount) {
         if (!duplicateCount.isEmpty()) {
             StringBuilder sb = new StringBuilder();
 
@@ -123,8 +159,6 @@ public class PublicationPostProcessor {
 
             Console.warn(Console.WarningType.DUPLICATE_ID, "There were multiple publications with the following identifiers:%n%s Only the first publication with each identifier was included.", sb.toString());
         }
-
-        return itemsById;
     }
 
     /**
@@ -136,17 +170,19 @@ public class PublicationPostProcessor {
      * @param items the publications to process
      */
     private static void processAliases(List<BibItem> items) {
-        for (BibItem item : items) {
-            for (String aliasField : aliases.keySet()) {
-                String aliasValue = item.get(aliasField);
+        ParallelProcessing.forEach(items, PublicationPostProcessor::processAliases);
+    }
 
-                if (aliasValue != null && !aliasValue.isEmpty()) {
-                    String standardField = aliases.get(aliasField);
-                    String standardValue = item.get(standardField);
+    static void processAliases(BibItem item) {
+        for (String aliasField : aliases.keySet()) {
+            String aliasValue = item.get(aliasField);
 
-                    if (standardValue == null || standardValue.isEmpty()) {
-                        item.put(standardField, aliasValue);
-                    }
+            if (aliasValue != null && !aliasValue.isEmpty()) {
+                String standardField = aliases.get(aliasField);
+                String standardValue = item.get(standardField);
+
+                if (standardValue == null || standardValue.isEmpty()) {
+                    item.put(standardField, aliasValue);
                 }
             }
         }
@@ -157,30 +193,16 @@ public class PublicationPostProcessor {
      * <p>
      * Specifically, if publication A has its "crossref" field set to the id of
      * publication B, then all fields of B that are not set on A will be copied
-     * to A.
+     * to A. If B cross-references another publication, that is applied to B
+     * first.
+     * <p>
+     * This runs sequentially, as a publication can be cross-referenced while
+     * its own cross-reference is being applied.
      *
      * @param items the publications to process
      */
     private static void applyCrossref(List<BibItem> items, Map<String, BibItem> itemsById) {
-        for (BibItem item : items) {
-            String id = item.get("crossref");
-
-            if (id != null && !id.isEmpty()) {
-                BibItem source = itemsById.get(id);
-
-                if (source == null) {
-                    Console.warn(Console.WarningType.MISSING_REFERENCE, "Publication \"%s\" (cross-referenced from \"%s\") does not exist.", id, item.getId());
-                } else {
-                    // Copy all missing fields from source to item
-                    for (String field : source.getFields()) {
-                        if (source.get(field) != null && !source.get(field).isEmpty()
-                                && (item.get(field) == null || item.get(field).isEmpty())) {
-                            item.put(field, source.get(field));
-                        }
-                    }
-                }
-            }
-        }
+        new CrossrefResolver(itemsById).resolveAll(items);
     }
 
     /**
@@ -192,18 +214,30 @@ public class PublicationPostProcessor {
      * @param items the publications to process
      */
     private static void removeItemsWithMissingMandatoryFields(List<BibItem> items) {
+        List<Boolean> complete = ParallelProcessing.map(items, BibItem::checkMandatoryFields);
         ListIterator<BibItem> it = items.listIterator();
         int removedCount = 0;
 
         while (it.hasNext()) {
-            BibItem item = it.next();
+            int index = it.nextIndex() + removedCount;
+            it.next();
 
-            if (!item.checkMandatoryFields()) {
+            if (!complete.get(index)) {
                 it.remove();
                 removedCount++;
             }
         }
 
+        reportOmittedItems(removedCount);
+    }
+
+    /**
+     * Prints an error message if publications were omitted because they miss
+     * information for mandatory fields.
+     *
+     * @param removedCount the number of omitted publications
+     */
+    static void reportOmittedItems(int removedCount) {
         if (removedCount > 0) {
             if (removedCount == 1) {
                 Console.error("This publication was omitted from the list.");
@@ -223,81 +257,83 @@ public class PublicationPostProcessor {
      * @param items the publications to process
      */
     private static void detectArxiv(List<BibItem> items) {
-        for (BibItem item : items) {
-            // If this entry has an arxiv and primaryclass field, it's done
-            String arxiv = item.get("arxiv");
-            String primaryClass = item.get("primaryclass");
+        ParallelProcessing.forEach(items, PublicationPostProcessor::detectArxiv);
+    }
 
-            if (arxiv != null) {
-                if (arxiv.startsWith("http://arxiv.org/abs/")) {
-                    arxiv = arxiv.substring("http://arxiv.org/abs/".length()).trim();
-                }
+    static void detectArxiv(BibItem item) {
+        // If this entry has an arxiv and primaryclass field, it's done
+        String arxiv = item.get("arxiv");
+        String primaryClass = item.get("primaryclass");
+
+        if (arxiv != null) {
+            if (arxiv.startsWith("http://arxiv.org/abs/")) {
+                arxiv = arxiv.substring("http://arxiv.org/abs/".length()).trim();
             }
+        }
 
-            if (arxiv == null || primaryClass == null) {
-                if (arxiv == null) {
-                    // Other fields might specify the arxiv identifier
-                    String eprint = item.get("eprint");
+        if (arxiv == null || primaryClass == null) {
+            if (arxiv == null) {
+                // Other fields might specify the arxiv identifier
+                String eprint = item.get("eprint");
 
-                    if (eprint == null) {
-                        for (String field : item.getFields()) {
-                            String value = item.get(field);
+                if (eprint == null) {
+                    for (String field : item.getFields()) {
+                        String value = item.get(field);
 
-                            if (value != null && value.startsWith("http://arxiv.org/abs/")) {
-                                arxiv = value.substring("http://arxiv.org/abs/".length()).trim();
-                            }
-                        }
-                    } else if (eprint.startsWith("http")) {
-                        if (eprint.startsWith("http://arxiv.org/abs/")) {
-                            arxiv = eprint.substring("http://arxiv.org/abs/".length()).trim();
-                        }
-                    } else {
-                        String prefix = item.get("archiveprefix");
-
-                        if (prefix == null || prefix.equalsIgnoreCase("arXiv")) {
-                            // eprint is most likely an old arXiv identifier of the form "class/arxivid"
-                            if (eprint.contains("/")) {
-                                // class/arxivid
-                                int index = eprint.indexOf('/');
-                                primaryClass = eprint.substring(0, index).trim();
-                                arxiv = eprint.substring(index + 1).trim();
-                            } else if (eprint.contains("[") && eprint.contains("]")) {
-                                // arxivid [class]
-                                int index1 = eprint.indexOf('[');
-                                int index2 = eprint.indexOf(']');
-
-                                primaryClass = eprint.substring(index1 + 1, index2).trim();
-                                arxiv = eprint.substring(0, index1).trim();
-                            } else {
-                                arxiv = eprint;
-                            }
+                        if (value != null && value.startsWith("http://arxiv.org/abs/")) {
+                            arxiv = value.substring("http://arxiv.org/abs/".length()).trim();
                         }
                     }
+                } else if (eprint.startsWith("http")) {
+                    if (eprint.startsWith("http://arxiv.org/abs/")) {
+                        arxiv = eprint.substring("http://arxiv.org/abs/".length()).trim();
+                    }
                 } else {
-                    // Arxiv identifier, but no primary class yet
-                    if (arxiv.contains("/")) {
-                        // class/arxivid
-                        int index = arxiv.indexOf('/');
-                        primaryClass = arxiv.substring(0, index).trim();
-                        arxiv = arxiv.substring(index + 1).trim();
-                    } else if (arxiv.contains("[") && arxiv.contains("]")) {
-                        // arxivid [class]
-                        int index1 = arxiv.indexOf('[');
-                        int index2 = arxiv.indexOf(']');
-
-                        primaryClass = arxiv.substring(index1 + 1, index2).trim();
-                        arxiv = arxiv.substring(0, index1).trim();
+                    String prefix = item.get("archiveprefix");
+
+                    if (prefix == null || prefix.equalsIgnoreCase("arXiv")) {
+                        // eprint is most likely an old arXiv identifier of the form "class/arxivid"
+                        if (eprint.contains("/")) {
+                            // class/arxivid
+                            int index = eprint.indexOf('/');
+                            primaryClass = eprint.substring(0, index).trim();
+                            arxiv = eprint.substring(index + 1).trim();
+                        } else if (eprint.contains("[") && eprint.contains("]")) {
+                            // arxivid [class]
+                            int index1 = eprint.indexOf('[');
+                            int index2 = eprint.indexOf(']');
+
+                            primaryClass = eprint.substring(index1 + 1, index2).trim();
+                            arxiv = eprint.substring(0, index1).trim();
+                        } else {
+                            arxiv = eprint;
+                        }
                     }
                 }
+            } else {
+                // Arxiv identifier, but no primary class yet
+                if (arxiv.contains("/")) {
+                    // class/arxivid
+                    int index = arxiv.indexOf('/');
+                    primaryClass = arxiv.substring(0, index).trim();
+                    arxiv = arxiv.substring(index + 1).trim();
+                } else if (arxiv.contains("[") && arxiv.contains("]")) {
+                    // arxivid [class]
+                    int index1 = arxiv.indexOf('[');
+                    int index2 = arxiv.indexOf(']');
+
+                    primaryClass = arxiv.substring(index1 + 1, index2).trim();
+                    arxiv = arxiv.substring(0, index1).trim();
+                }
             }
+        }
 
-            if (arxiv != null) {
-                item.put("arxiv", arxiv);
-            }
+        if (arxiv != null) {
+            item.put("arxiv", arxiv);
+        }
 
-            if (primaryClass != null) {
-                item.put("primaryclass", primaryClass);
-            }
+        if (primaryClass != null) {
+            item.put("primaryclass", primaryClass);
         }
     }
 
@@ -313,19 +349,23 @@ public class PublicationPostProcessor {
      * or the years are split by category, depending on preferences.
      *
      * @param settings the configuration settings to use
+     * @param context the state of the current generation run
      * @param items the publications to process
      * @return the sections containing all matched publications
      */
-    private static List<Section> categorizePapers(Settings settings, List<BibItem> items) {
+    private static List<Section> categorizePapers(Settings settings, GenerationContext context, List<BibItem> items) {
         // Create a virtual section with all papers.
         Section master = new Section("Master", null);
         master.getItems().addAll(items);
 
+        // Compile the category conditions once, as years may need to be split by category many times
+        CategoryClassifier classifier = new CategoryClassifier(settings.getCategorySettings().getActiveCategories(), context.getCategoryStatistics());
+
         if (settings.getGeneralSettings().getGrouping() == GeneralSettings.Grouping.NO_GROUPING) {
-            groupByCategory(settings, master);
+            groupByCategory(settings, classifier, master);
         } else if (settings.getGeneralSettings().getGrouping() == GeneralSettings.Grouping.GROUP_BY_YEAR) {
             if (settings.getGeneralSettings().isGroupWithinCategories()) {
-                groupByCategory(settings, master);
+                groupByCategory(settings, classifier, master);
 
                 for (Section category : master.getSubsections()) {
                     groupByYear(category);
@@ -334,7 +374,7 @@ public class PublicationPostProcessor {
                 groupByYear(master);
 
                 for (Section year : master.getSubsections()) {
-                    groupByCategory(settings, year);
+                    groupByCategory(settings, classifier, year);
                 }
             }
         }
@@ -346,9 +386,10 @@ public class PublicationPostProcessor {
      * Splits the given section into sub-sections by category.
      *
      * @param settings the configuration settings to use
+     * @param classifier the classifier for the active categories
      * @param section the section to split
      */
-    private static void groupByCategory(Settings settings, Section section) {
+    private static void groupByCategory(Settings settings, CategoryClassifier classifier, Section section) {
         // Create an empty section for each category
         Map<OutputCategory, Section> sections = new LinkedHashMap<>();
 
@@ -357,31 +398,28 @@ public class PublicationPostProcessor {
         }
 
         // Assign each paper to the correct category
-        for (ListIterator<BibItem> it = section.getItems().listIterator(); it.hasNext();) {
+        List<OutputCategory> categories = ParallelProcessing.map(section.getItems(), classifier::classify);
+        int index = 0;
+
+        for (ListIterator<BibItem> it = section.getItems().listIterator(); it.hasNext(); index++) {
             BibItem item = it.next();
+            OutputCategory c = categories.get(index);
 
-            for (OutputCategory c : settings.getCategorySettings().getActiveCategories()) {
-                if (c.fitsCategory(item)) {
-                    sections.get(c).addItem(item);
-                    it.remove();
-                    break;
-                }
+            if (c != null) {
+                sections.get(c).addItem(item);
+                it.remove();
             }
         }
 
         // Warn for remaining items
-        if (!section.getItems().isEmpty()) {
-            String ids = "";
-
-            for (BibItem item : section.getItems()) {
-                ids += "\"" + item.getId() + "\", ";
-            }
-
-            ids = ids.substring(0, ids.length() - 2); // Cut off the last ", "
+        List<String> remaining = new ArrayList<>(section.getItems().size());
 
-            Console.warn(Console.WarningType.ITEM_DOES_NOT_FIT_ANY_CATEGORY, "%d %s did not fit any category:%n%s", section.getItems().size(), (section.getItems().size() == 1 ? "entry" : "entries"), ids);
+        for (BibItem item : section.getItems()) {
+            remaining.add(item.getId());
         }
 
+        warnForUncategorizedItems(remaining);
+
         // Add all non-empty sections as subsections
         List<Section> result = new ArrayList<>(sections.size());
 
@@ -394,6 +432,26 @@ public class PublicationPostProcessor {
         section.setSubsections(result);
     }
 
+    /**
+     * Prints a warning message for publications that did not fit any
+     * category, if there are any.
+     *
+     * @param ids the identifiers of these publications
+     */
+    static void warnForUncategorizedItems(List<String> ids) {
+        if (!ids.isEmpty()) {
+            String list = "";
+
+            for (String id : ids) {
+                list += "\"" + id + "\", ";
+            }
+
+            list = list.substring(0, list.length() - 2); // Cut off the last ", "
+
+            Console.warn(Console.WarningType.ITEM_DOES_NOT_FIT_ANY_CATEGORY, "%d %s did not fit any category:%n%s", ids.size(), (ids.size() == 1 ? "entry" : "entries"), list);
+        }
+    }
+
     /**
      * Splits the given section into sub-sections by year of publication.
      *
@@ -470,24 +528,39 @@ public class PublicationPostProcessor {
                     idsPerType.get(item.getType()).add(item.getId());
                 }
 
-                for (Type type : idsPerType.keySet()) {
-                    for (String mandatoryFields : FieldData.getMandatoryFields(type)) {
-                        boolean allOptionsIgnored = true;
+                warnForMandatoryIgnoredFields(settings, s, idsPerType);
+            }
+        }
+    }
 
-                        for (String mandatory : mandatoryFields.split(";")) {
-                            if (!s.getIgnoredFields().contains(mandatory)) {
-                                allOptionsIgnored = false;
-                            }
-                        }
+    /**
+     * Prints a warning message if the given section ignores a mandatory field
+     * of one of its publications.
+     *
+     * @param settings the configuration settings to use
+     * @param s the section
+     * @param idsPerType the identifiers of the publications in the section,
+     * by type
+     */
+    static void warnForMandatoryIgnoredFields(Settings settings, Section s, Map<Type, List<String>> idsPerType) {
+        if (settings.getConsoleSettings().isShowWarnings() && settings.getConsoleSettings().isWarnMandatoryFieldIgnored()) {
+            for (Type type : idsPerType.keySet()) {
+                for (String mandatoryFields : FieldData.getMandatoryFields(type)) {
+                    boolean allOptionsIgnored = true;
 
-                        if (allOptionsIgnored) {
-                            Console.warn(Console.WarningType.MANDATORY_FIELD_IGNORED,
-                                    "Category \"%s\" ignores field%s \"%s\", which %s mandatory for the following entr%s:%n%s.%nTh%s may not display properly.",
-                                    s.getShortName(), (mandatoryFields.contains(";") ? "s" : ""), mandatoryFields,
-                                    (mandatoryFields.contains(";") ? "are" : "is"), (idsPerType.get(type).size() == 1 ? "y" : "ies"),
-                                    idsPerType.get(type).toString(), (idsPerType.get(type).size() == 1 ? "is entry" : "ese entries"));
+                    for (String mandatory : mandatoryFields.split(";")) {
+                        if (!s.getIgnoredFields().contains(mandatory)) {
+                            allOptionsIgnored = false;
                         }
                     }
+
+                    if (allOptionsIgnored) {
+                        Console.warn(Console.WarningType.MANDATORY_FIELD_IGNORED,
+                                "Category \"%s\" ignores field%s \"%s\", which %s mandatory for the following entr%s:%n%s.%nTh%s may not display properly.",
+                                s.getShortName(), (mandatoryFields.contains(";") ? "s" : ""), mandatoryFields,
+                                (mandatoryFields.contains(";") ? "are" : "is"), (idsPerType.get(type).size() == 1 ? "y" : "ies"),
+                                idsPerType.get(type).toString(), (idsPerType.get(type).size() == 1 ? "is entry" : "ese entries"));
+                    }
                 }
             }
         }
@@ -498,47 +571,64 @@ public class PublicationPostProcessor {
      * user.
      *
      * @param settings the configuration settings to use
+     * @param me the matcher for the user's names
      * @param items the publications to process
      */
-    private static void warnIfIAmNotAuthor(Settings settings, List<BibItem> items) {
+    private static void warnIfIAmNotAuthor(Settings settings, MyNameMatcher me, List<BibItem> items) {
         if (settings.getConsoleSettings().isShowWarnings() && settings.getConsoleSettings().isWarnNotAuthor()) {
-            List<BibItem> notAuthoredByMe = new ArrayList<>();
+            List<Boolean> authoredByMe = ParallelProcessing.map(items, item -> isAuthoredByMe(me, item));
+            List<String> notAuthoredByMe = new ArrayList<>();
 
-            for (BibItem item : items) {
-                boolean imAuthor = false;
-
-                for (Author author : item.getAuthors()) {
-                    if (author.isMe(settings.getGeneralSettings())) {
-                        imAuthor = true;
-                        break;
-                    }
+            for (int i = 0; i < items.size(); i++) {
+                if (!authoredByMe.get(i)) {
+                    notAuthoredByMe.add(items.get(i).getId());
                 }
+            }
 
-                if (!imAuthor) {
-                    boolean imEditor = false;
-
-                    for (Author editor : item.getEditors()) {
-                        if (editor.isMe(settings.getGeneralSettings())) {
-                            imEditor = true;
-                            break;
-                        }
-                    }
+            warnForItemsNotAuthoredByMe(settings, notAuthoredByMe);
+        }
+    }
 
-                    if (!imEditor) {
-                        notAuthoredByMe.add(item);
-                    }
-                }
+    /**
+     * Checks whether the user is one of the authors or editors of the given
+     * publication.
+     *
+     * @param me the matcher for the user's names
+     * @param item the publication
+     * @return true if one of the authors or editors is the user
+     */
+    static boolean isAuthoredByMe(MyNameMatcher me, BibItem item) {
+        for (Author author : item.getAuthors()) {
+            if (author.isMe(me)) {
+                return true;
             }
+        }
 
-            if (!notAuthoredByMe.isEmpty()) {
-                Console.warn(Console.WarningType.NOT_AUTHORED_BY_USER,
-                        "None of the authors or editors of the following %s match %s (%s):%n%s",
-                        (notAuthoredByMe.size() == 1 ? "publication" : notAuthoredByMe.size() + " publications"),
-                        (settings.getGeneralSettings().getMyNames().size() == 1 ? "your name" : "any of your names"),
-                        getMyNames(settings),
-                        listPaperIDs(notAuthoredByMe));
+        for (Author editor : item.getEditors()) {
+            if (editor.isMe(me)) {
+                return true;
             }
         }
+
+        return false;
+    }
+
+    /**
+     * Prints a warning message for the given publications that were not
+     * authored by the user, if there are any.
+     *
+     * @param settings the configuration settings to use
+     * @param notAuthoredByMe the identifiers of these publications
+     */
+    static void warnForItemsNotAuthoredByMe(Settings settings, List<String> notAuthoredByMe) {
+        if (!notAuthoredByMe.isEmpty()) {
+            Console.warn(Console.WarningType.NOT_AUTHORED_BY_USER,
+                    "None of the authors or editors of the following %s match %s (%s):%n%s",
+                    (notAuthoredByMe.size() == 1 ? "publication" : notAuthoredByMe.size() + " publications"),
+                    (settings.getGeneralSettings().getMyNames().size() == 1 ? "your name" : "any of your names"),
+                    getMyNames(settings),
+                    listPaperIDs(notAuthoredByMe));
+        }
     }
 
     private static String getMyNames(Settings settings) {
@@ -557,18 +647,18 @@ public class PublicationPostProcessor {
         return myNames.toString();
     }
 
-    private static String listPaperIDs(List<BibItem> items) {
-        StringBuilder ids = new StringBuilder();
+    private static String listPaperIDs(List<String> ids) {
+        StringBuilder list = new StringBuilder();
 
-        for (BibItem item : items) {
-            ids.append(item.getId()).append('\n');
+        for (String id : ids) {
+            list.append(id).append('\n');
         }
 
-        if (ids.length() > 0) {
-            ids.delete(ids.length() - 1, ids.length()); // Remove the last newline
+        if (list.length() > 0) {
+            list.delete(list.length() - 1, list.length()); // Remove the last newline
         }
 
-        return ids.toString();
+        return list.toString();
     }
 
     /**
@@ -576,40 +666,85 @@ public class PublicationPostProcessor {
      * publications or files that do not exist.
      *
      * @param settings
+     * @param references the checker for referenced files
      * @param items
      * @param sections
      */
-    private static void warnForMissingReferences(Settings settings, List<BibItem> items, List<Section> sections) {
+    private static void warnForMissingReferences(Settings settings, ReferenceChecker references, List<BibItem> items, List<Section> sections) {
+        // Check all linked files at once, so that the warnings below don't wait for the file system
+        List<Path> files = new ArrayList<>();
+
         for (BibItem item : items) {
-            // Check 'file' links
-            String path = item.get("file");
+            forEachReference(item, (path, attribute) -> files.add(resolveFile(settings, path)), (id, attribute) -> {
+            });
+        }
+
+        references.checkAll(files);
+
+        SectionIndex index = new SectionIndex(sections);
 
-            if (path != null && !path.isEmpty()) {
-                checkFileExistance(settings, item.get("file"), "file", item);
+        ParallelProcessing.forEach(items, item -> warnForMissingReferences(settings, references, item, (id, attribute) -> {
+            if (!index.contains(id)) {
+                warnForMissingPaper(id, attribute, item.getId());
             }
+        }));
+    }
 
-            // Check all 'link' links
-            for (int i = -1; i < 20; i++) {
-                String attribute = (i == -1 ? "link" : "link" + i);
-                String link = item.get(attribute);
+    /**
+     * Prints warning messages for files referenced by the given publication
+     * that do not exist.
+     * <p>
+     * Links to other publications can only be checked once the final list is
+     * known, so they are passed to the given consumer instead, as the
+     * identifier of the linked publication and the linking attribute.
+     *
+     * @param settings the configuration settings to use
+     * @param references the checker for referenced files
+     * @param item the publication
+     * @param paperLinks receives the links to other publications
+     */
+    static void warnForMissingReferences(Settings settings, ReferenceChecker references, BibItem item, BiConsumer<String, String> paperLinks) {
+        forEachReference(item, (path, attribute) -> checkFileExistance(settings, references, path, attribute, item), paperLinks);
+    }
 
-                if (link != null && !link.isEmpty()) {
-                    int divider = link.indexOf('|');
+    /**
+     * Passes each file that the given publication links to to the first
+     * consumer, and each other publication that it links to to the second
+     * consumer, together with the linking attribute.
+     *
+     * @param item the publication
+     * @param fileLinks receives the links to files, relative to the HTML
+     * target
+     * @param paperLinks receives the identifiers of linked publications
+     */
+    private static void forEachReference(BibItem item, BiConsumer<String, String> fileLinks, BiConsumer<String, String> paperLinks) {
+        // Check 'file' links
+        String path = item.get("file");
 
-                    if (divider > -1) {
-                        String target = link.substring(divider + 1);
+        if (path != null && !path.isEmpty()) {
+            fileLinks.accept(path, "file");
+        }
 
-                        if (target.startsWith("#")) {
-                            // Link to another paper
-                            checkIdExistance(target.substring(1), attribute, item, sections);
-                        } else if (target.contains(":")) {
-                            // Most file systems prohibit colons in file names, so
-                            // it seems safe to assume that this indicates an
-                            // absolute URI and as such, should be fine.
-                        } else {
-                            // Most likely link to a file on disk
-                            checkFileExistance(settings, target, attribute, item);
-                        }
+        // Check all 'link' links
+        for (String attribute : FieldData.getLinkFields()) {
+            String link = item.get(attribute);
+
+            if (link != null && !link.isEmpty()) {
+                int divider = link.indexOf('|');
+
+                if (divider > -1) {
+                    String target = link.substring(divider + 1);
+
+                    if (target.startsWith("#")) {
+                        // Link to another paper
+                        paperLinks.accept(target.substring(1), attribute);
+                    } else if (target.contains(":")) {
+                        // Most file systems prohibit colons in file names, so
+                        // it seems safe to assume that this indicates an
+                        // absolute URI and as such, should be fine.
+                    } else {
+                        // Most likely link to a file on disk
+                        fileLinks.accept(target, attribute);
                     }
                 }
             }
@@ -621,48 +756,32 @@ public class PublicationPostProcessor {
      * resolved from the HTML target location, prints a warning if it doesn't
      *
      * @param settings
+     * @param references the checker for referenced files
      * @param path
      * @param attr
      * @param item
      */
-    private static void checkFileExistance(Settings settings, String path, String attr, BibItem item) {
-        Path file = settings.getFileSettings().getTarget().resolveSibling(path);
+    private static void checkFileExistance(Settings settings, ReferenceChecker references, String path, String attr, BibItem item) {
+        Path file = resolveFile(settings, path);
 
-        if (Files.notExists(file)) {
+        if (!references.exists(file)) {
             Console.warn(Console.WarningType.MISSING_REFERENCE, "File \"%s\" (linked in attribute \"%s\" of publication \"%s\") cannot be found at \"%s\".", path, attr, item.getId(), file);
         }
     }
 
+    private static Path resolveFile(Settings settings, String path) {
+        return settings.getFileSettings().getTarget().resolveSibling(path);
+    }
+
     /**
-     * Checks whether a BibItem with the given id is in any of the given
-     * sections or sub-sections, prints a warning if it doesn't.
+     * Prints a warning that a linked publication is not in the final list.
      *
-     * @param id
+     * @param id the identifier of the linked publication
+     * @param attr the linking attribute
+     * @param itemId the identifier of the linking publication
      */
-    private static void checkIdExistance(String id, String attr, BibItem item, List<Section> sections) {
-        for (Section s : sections) {
-            if (checkIdExists(id, s)) {
-                return;
-            }
-        }
-
-        Console.warn(Console.WarningType.MISSING_REFERENCE, "Publication \"%s\" (linked in attribute \"%s\" of publication \"%s\") is not in the final list.", id, attr, item.getId());
-    }
-
-    private static boolean checkIdExists(String id, Section section) {
-        for (BibItem i : section.getItems()) {
-            if (i.getId().equals(id)) {
-                return true;
-            }
-        }
-
-        for (Section subsection : section.getSubsections()) {
-            if (checkIdExists(id, subsection)) {
-                return true;
-            }
-        }
-
-        return false;
+    static void warnForMissingPaper(String id, String attr, String itemId) {
+        Console.warn(Console.WarningType.MISSING_REFERENCE, "Publication \"%s\" (linked in attribute \"%s\" of publication \"%s\") is not in the final list.", id, attr, itemId);
     }
 
     private PublicationPostProcessor() {
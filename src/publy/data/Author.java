@@ -43,6 +43,11 @@ public class Author {
     private String url; // The url associated with this author
     private String group; // The group associated with this author
     private final String name; // The name in LaTeX format, as given in the input
+    // Memoized results of getFormattedName and getLinkedHTMLName, indexed by formatIndex
+    private String[] formattedNames;
+    private String[] linkedHTMLNames; // Cleared when the URL or group changes
+    // The last matchers that did and did not recognize this author as the user
+    private volatile MyNameMatcher meMatcher, notMeMatcher;
 
     /**
      * Creates a new Author from the given LaTeX name.
@@ -140,6 +145,23 @@ public class Author {
      * @return the formatted name
      */
     public String getLinkedHTMLName(GeneralSettings.FirstNameDisplay display, boolean reversed) {
+        String[] names = linkedHTMLNames;
+
+        if (names == null) {
+            names = new String[2 * GeneralSettings.FirstNameDisplay.values().length];
+            linkedHTMLNames = names;
+        }
+
+        int index = formatIndex(display, reversed);
+
+        if (names[index] == null) {
+            names[index] = computeLinkedHTMLName(display, reversed);
+        }
+
+        return names[index];
+    }
+
+    private String computeLinkedHTMLName(GeneralSettings.FirstNameDisplay display, boolean reversed) {
         String result = getFormattedName(display, reversed);
 
         String classes = "author";
@@ -180,6 +202,32 @@ public class Author {
      * @return the formatted name
      */
     public String getFormattedName(GeneralSettings.FirstNameDisplay display, boolean reversed) {
+        String[] names = formattedNames;
+
+        if (names == null) {
+            names = new String[2 * GeneralSettings.FirstNameDisplay.values().length];
+            formattedNames = names;
+        }
+
+        int index = formatIndex(display, reversed);
+
+        if (names[index] == null) {
+            names[index] = computeFormattedName(display, reversed);
+        }
+
+        return names[index];
+    }
+
+    /**
+     * Returns the position of the given format in the arrays of memoized
+     * names. Concurrent calls may compute a name twice, but always store the
+     * same value.
+     */
+    private static int formatIndex(GeneralSettings.FirstNameDisplay display, boolean reversed) {
+        return 2 * display.ordinal() + (reversed ? 1 : 0);
+    }
+
+    private String computeFormattedName(GeneralSettings.FirstNameDisplay display, boolean reversed) {
         // First von Last, Jr OR von Last, Jr, First
         String result = "";
 
@@ -221,6 +269,7 @@ public class Author {
      */
     public void setUrl(String url) {
         this.url = url;
+        linkedHTMLNames = null;
     }
 
     /**
@@ -240,29 +289,37 @@ public class Author {
      */
     public void setGroup(String group) {
         this.group = group;
+        linkedHTMLNames = null;
     }
 
     /**
-     * Tests whether this author represents the user.
+     * Tests whether this author represents the user, according to the given
+     * matcher. The result is remembered until the author is checked against a
+     * different matcher.
      * <p>
      * This is based on the names given by {@link GeneralSettings#getMyNames}.
      * Each name there is checked against this author's LaTeX name,
      * abbreviation, and formatted name.
      *
-     * @param generalSettings
+     * @param matcher the matcher for the user's names
      * @return true if one of the user's names matches this author, false
      * otherwise
      */
-    public boolean isMe(GeneralSettings generalSettings) {
-        for (String myName : generalSettings.getMyNames()) {
-            if (name.equals(myName)
-                    || abbreviation.equals(myName)
-                    || getFormattedName(generalSettings.getNameDisplay(), generalSettings.isReverseNames()).equals(myName)) {
-                return true;
-            }
+    public boolean isMe(MyNameMatcher matcher) {
+        if (matcher == meMatcher) {
+            return true;
+        } else if (matcher == notMeMatcher) {
+            return false;
         }
 
-        return false;
+        // Each field only ever holds a matcher that gave that answer, so concurrent checks are safe
+        if (matcher.matches(this)) {
+            meMatcher = matcher;
+            return true;
+        } else {
+            notMeMatcher = matcher;
+            return false;
+        }
     }
 
     private String formatFirstName(GeneralSettings.FirstNameDisplay display) {
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data;
+
+import java.util.HashSet;
+import java.util.Set;
+import publy.data.settings.GeneralSettings;
+
+/**
+ * Decides which authors represent the user, based on the names given by
+ * {@link GeneralSettings#getMyNames}.
+ * <p>
+ * A matcher is immutable and holds the user's names in a hash set, so that an
+ * author is checked with three lookups, no matter how many names there are.
+ * Authors remember the last matcher they were checked against, so each author
+ * is only checked once per run, as long as the whole run uses the same matcher
+ * (see {@link publy.io.GenerationContext#getMyNames()}).
+ */
+public final class MyNameMatcher {
+
+    private final Set<String> names;
+    private final GeneralSettings.FirstNameDisplay nameDisplay;
+    private final boolean reverseNames;
+
+    /**
+     * Creates a matcher for the user's names and the name display in the
+     * given settings. Later changes to the settings don't affect the matcher.
+     *
+     * @param generalSettings the settings
+     */
+    public MyNameMatcher(GeneralSettings generalSettings) {
+        names = new HashSet<>(generalSettings.getMyNames());
+        nameDisplay = generalSettings.getNameDisplay();
+        reverseNames = generalSettings.isReverseNames();
+    }
+
+    /**
+     * Tests whether the given author represents the user. Each of the user's
+     * names is checked against the author's LaTeX name, abbreviation, and
+     * formatted name.
+     * <p>
+     * Use {@link Author#isMe(MyNameMatcher)} instead, which remembers the
+     * result.
+     *
+     * @param author the author
+     * @return true if one of the user's names matches this author, false
+     * otherwise
+     */
+    boolean matches(Author author) {
+        return names.contains(author.getName())
+                || names.contains(author.getAbbreviation())
+                || names.contains(author.getFormattedName(nameDisplay, reverseNames));
+    }
+}
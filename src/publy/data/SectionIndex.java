@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import publy.data.bibitem.BibItem;
+
+/**
+ * An index of the publications in a publication list, by identifier.
+ * <p>
+ * The index records the innermost section that contains each publication, so
+ * that links to other publications can be checked without searching all
+ * sections. It is not updated when the sections change.
+ */
+public class SectionIndex {
+
+    private final Map<String, Section> sectionsById = new HashMap<>();
+
+    /**
+     * Creates an index of all publications in the given sections and their
+     * sub-sections.
+     *
+     * @param sections the sections
+     */
+    public SectionIndex(List<Section> sections) {
+        for (Section section : sections) {
+            add(section);
+        }
+    }
+
+    private void add(Section section) {
+        for (BibItem item : section.getItems()) {
+            if (!sectionsById.containsKey(item.getId())) {
+                sectionsById.put(item.getId(), section);
+            }
+        }
+
+        for (Section subsection : section.getSubsections()) {
+            add(subsection);
+        }
+    }
+
+    /**
+     * Checks whether a publication with the given identifier is in the list.
+     *
+     * @param id the identifier
+     * @return true if the publication is in one of the sections
+     */
+    public boolean contains(String id) {
+        return sectionsById.containsKey(id);
+    }
+
+    /**
+     * Gets the innermost section that contains the publication with the given
+     * identifier.
+     *
+     * @param id the identifier
+     * @return the section, or null if the publication is not in the list
+     */
+    public Section getSection(String id) {
+        return sectionsById.get(id);
+    }
+
+    /**
+     * Gets the HTML anchor of the publication with the given identifier.
+     * <p>
+     * This is the identifier itself, with a "p" in front if it starts with a
+     * digit, as HTML 4 identifiers must start with a letter.
+     *
+     * @param id the identifier of the publication
+     * @return the anchor
+     */
+    public static String getAnchor(String id) {
+        return (Character.isDigit(id.charAt(0)) ? "p" + id : id);
+    }
+}
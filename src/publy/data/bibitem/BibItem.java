@@ -17,7 +17,6 @@ package publy.data.bibitem;
 
 import publy.data.Author;
 import java.util.*;
-import java.util.Map.Entry;
 import publy.Console;
 
 /**
@@ -25,10 +24,15 @@ import publy.Console;
  */
 public class BibItem {
 
+    private static final int INITIAL_CAPACITY = 8; // Enough for most publications
+
     private final String id;
     private final Type type;
     private final String originalType; // The type as specified in the input file (for example 'article', or 'inproceedings')
-    private final HashMap<String, String> values;
+    // The fields, in the order in which they were first set, as numbers from FieldNames, and their values
+    private int[] fieldIds;
+    private String[] values;
+    private int fieldCount = 0;
     private final List<Author> authors;
     private final List<Author> editors;
 
@@ -44,7 +48,8 @@ public class BibItem {
         this.originalType = type;
         this.id = id;
 
-        values = new LinkedHashMap<>();
+        fieldIds = new int[INITIAL_CAPACITY];
+        values = new String[INITIAL_CAPACITY];
         authors = new ArrayList<>();
         editors = new ArrayList<>();
 
@@ -61,13 +66,13 @@ public class BibItem {
     private void handleSpecialTypes(String originalType) {
         switch (originalType) {
             case "mastersthesis":
-                values.put("type", "Master's thesis");
+                put("type", "Master's thesis");
                 break;
             case "phdthesis":
-                values.put("type", "PhD thesis");
+                put("type", "PhD thesis");
                 break;
             case "techreport":
-                values.put("type", "technical report");
+                put("type", "technical report");
                 break;
         }
     }
@@ -107,7 +112,8 @@ public class BibItem {
      * exists
      */
     public String get(String field) {
-        return values.get(field);
+        int index = indexOf(FieldNames.getId(field));
+        return (index < 0 ? null : values[index]);
     }
 
     /**
@@ -117,7 +123,60 @@ public class BibItem {
      * @param value the value to associate with this field
      */
     public void put(String field, String value) {
-        values.put(field, value);
+        int id = FieldNames.getOrCreateId(field);
+        int index = indexOf(id);
+
+        if (index >= 0) {
+            values[index] = value;
+        } else {
+            add(id, value);
+        }
+    }
+
+    private void add(int id, String value) {
+        if (fieldCount == fieldIds.length) {
+            int capacity = fieldCount + (fieldCount >> 1) + 1;
+            fieldIds = Arrays.copyOf(fieldIds, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        fieldIds[fieldCount] = id;
+        values[fieldCount] = value;
+        fieldCount++;
+    }
+
+    /**
+     * Copies the value of each field of the given publication that is not
+     * set or empty in this publication, as long as that value is not empty.
+     *
+     * @param source the publication to copy from
+     */
+    public void putMissingFields(BibItem source) {
+        for (int i = 0; i < source.fieldCount; i++) {
+            String value = source.values[i];
+
+            if (value != null && !value.isEmpty()) {
+                int index = indexOf(source.fieldIds[i]);
+
+                if (index < 0) {
+                    add(source.fieldIds[i], value);
+                } else if (values[index] == null || values[index].isEmpty()) {
+                    values[index] = value;
+                }
+            }
+        }
+    }
+
+    private int indexOf(int id) {
+        if (id >= 0) {
+            for (int i = 0; i < fieldCount; i++) {
+                if (fieldIds[i] == id) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
     }
 
     /**
@@ -125,12 +184,46 @@ public class BibItem {
      * <p>
      * This includes fields that were set in the input file, and fields that
      * have been set by Publy afterwards. There is no guarantee that these
-     * fields have non-null or non-empty values.
+     * fields have non-null or non-empty values. The fields are in the order
+     * in which they were first set, and the set reflects later changes.
      *
      * @return a set containing all fields
      */
     public Set<String> getFields() {
-        return values.keySet();
+        return new AbstractSet<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < fieldCount;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= fieldCount) {
+                            throw new NoSuchElementException();
+                        }
+
+                        return FieldNames.getName(fieldIds[next++]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return fieldCount;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && indexOf(FieldNames.getId((String) o)) >= 0;
+            }
+        };
     }
 
     /**
@@ -243,12 +336,12 @@ public class BibItem {
         sb.append(id);
         sb.append(",\n");
 
-        for (Entry<String, String> entry : values.entrySet()) {
-            if (entry.getValue() != null) {
+        for (int i = 0; i < fieldCount; i++) {
+            if (values[i] != null) {
                 sb.append("  ");
-                sb.append(entry.getKey());
+                sb.append(FieldNames.getName(fieldIds[i]));
                 sb.append("={");
-                sb.append(entry.getValue());
+                sb.append(values[i]);
                 sb.append("},\n");
             }
         }
@@ -268,7 +361,7 @@ public class BibItem {
 
     private boolean anyNonEmpty(String... fields) {
         for (String field : fields) {
-            String v = values.get(field);
+            String v = get(field);
 
             if (v != null && !v.isEmpty()) {
                 return true;
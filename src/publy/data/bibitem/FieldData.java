@@ -16,6 +16,7 @@
 package publy.data.bibitem;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,11 @@ public class FieldData {
      */
     private static final Map<Type, List<String>> mandatoryFields;
     private static final Map<Type, List<String>> optionalFields;
+    /**
+     * The fields that hold user-specified links: "link" and "link0" to
+     * "link19".
+     */
+    private static final List<String> linkFields;
 
     static {
         mandatoryFields = new HashMap<>();
@@ -50,6 +56,15 @@ public class FieldData {
         mandatoryFields.put(Type.THESIS, Arrays.asList("author", "title", "type", "school;institution", "year"));
         mandatoryFields.put(Type.UNPUBLISHED, Arrays.asList("author", "title", "year"));
 
+        String[] links = new String[21];
+        links[0] = "link";
+
+        for (int i = 0; i < 20; i++) {
+            links[i + 1] = "link" + i;
+        }
+
+        linkFields = Collections.unmodifiableList(Arrays.asList(links));
+
         optionalFields = new HashMap<>();
 
         optionalFields.put(Type.ARTICLE, Arrays.asList("volume", "number", "pages", "issn", "eid", "month", "note", "doi", "eprint", "eprintclass", "eprinttype", "url", "urldate"));
@@ -94,6 +109,16 @@ public class FieldData {
         return optionalFields.get(type);
     }
 
+    /**
+     * Gets the fields that can hold a user-specified link: "link" and "link0"
+     * to "link19".
+     *
+     * @return an unmodifiable list of link fields
+     */
+    public static List<String> getLinkFields() {
+        return linkFields;
+    }
+
     private FieldData() {
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.bibitem;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A global dictionary that assigns a small number to every field name, so that
+ * publications can store their fields in arrays.
+ * <p>
+ * The fields known from {@link FieldData} are numbered first. Other field
+ * names are added when they are first set on a publication, from any thread,
+ * and are never removed.
+ */
+class FieldNames {
+
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count = 0; // Guarded by FieldNames.class
+
+    static {
+        for (Type type : Type.getEntryTypes()) {
+            intern(FieldData.getMandatoryFields(type));
+            intern(FieldData.getOptionalFields(type));
+        }
+
+        intern(Arrays.asList("crossref", "type", "link", "file", "abstract", "category", "pubstate", "journaltitle"));
+    }
+
+    private static void intern(List<String> fields) {
+        if (fields != null) {
+            for (String field : fields) {
+                for (String alternative : field.split(";")) {
+                    getOrCreateId(alternative);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the given field name.
+     *
+     * @param name the field name
+     * @return its number, or -1 if no publication has ever used this field
+     */
+    static int getId(String name) {
+        Integer id = ids.get(name);
+        return (id == null ? -1 : id);
+    }
+
+    /**
+     * Returns the number of the given field name, and assigns it a new number
+     * if it doesn't have one yet.
+     *
+     * @param name the field name
+     * @return its number
+     */
+    static int getOrCreateId(String name) {
+        Integer id = ids.get(name);
+        return (id == null ? createId(name) : id);
+    }
+
+    private static synchronized int createId(String name) {
+        Integer id = ids.get(name);
+
+        if (id != null) {
+            return id; // Created by another thread in the meantime
+        }
+
+        if (count == names.length) {
+            names = Arrays.copyOf(names, 2 * count);
+        }
+
+        names[count] = name;
+        ids.put(name, count); // Publishes the name to threads that look up the id
+        return count++;
+    }
+
+    /**
+     * Returns the field name with the given number.
+     *
+     * @param id the number of the field name
+     * @return the field name
+     */
+    static String getName(int id) {
+        return names[id];
+    }
+
+    private FieldNames() {
+    }
+}
@@ -0,0 +1,605 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import publy.data.bibitem.BibItem;
+import publy.data.category.CategoryStatistics.Statistics;
+import publy.data.category.conditions.AndCondition;
+import publy.data.category.conditions.CompositeCondition;
+import publy.data.category.conditions.Condition;
+import publy.data.category.conditions.FieldCondition;
+import publy.data.category.conditions.FieldContainsCondition;
+import publy.data.category.conditions.FieldEqualsCondition;
+import publy.data.category.conditions.FieldExistsCondition;
+import publy.data.category.conditions.OrCondition;
+import publy.data.category.conditions.TypeCondition;
+
+/**
+ * Assigns publications to the first category whose conditions they match, like
+ * testing {@link OutputCategory#fitsCategory(BibItem)} for each category in
+ * turn, but faster.
+ * <p>
+ * The conditions are compiled when the classifier is created. The type
+ * conditions become a table with the candidate categories for each type, so
+ * that categories that cannot match are never considered. Field conditions
+ * look up their values in hash sets. All strings that conditions look for in
+ * the same field are found in a single scan of that field, which is shared by
+ * all categories. Changes to the categories after the classifier is created
+ * are not seen.
+ * <p>
+ * Since conditions have no side effects, the conditions that are combined in a
+ * category can be tested in any order. Conditions that are cheap to test, or
+ * likely to decide the result, are tested first. How often each condition
+ * matched is recorded in the {@link CategoryStatistics} of the classifier,
+ * which can be kept between runs, so later runs use the match rates measured
+ * by earlier ones.
+ * <p>
+ * A classifier can be used by several threads at the same time.
+ */
+public class CategoryClassifier {
+
+    private final CategoryStatistics statistics;
+    private final OutputCategory[] categories;
+    private final Map<String, int[]> candidatesPerType = new HashMap<>(); // Increasing category indices
+    private final int[] otherCandidates; // For types that no type condition mentions
+    private final Matcher[] matchers; // The other conditions of each category, or null if there are none
+    private final Map<String, PatternScanner> scanners = new HashMap<>(); // The strings to look for in each field
+
+    /**
+     * Creates a classifier for the given categories, which starts without
+     * match rates.
+     *
+     * @param categories the categories, in order of preference
+     */
+    public CategoryClassifier(List<OutputCategory> categories) {
+        this(categories, new CategoryStatistics());
+    }
+
+    /**
+     * Creates a classifier for the given categories, which uses and records
+     * the match rates in the given statistics.
+     *
+     * @param categories the categories, in order of preference
+     * @param statistics the match rates of the conditions
+     */
+    public CategoryClassifier(List<OutputCategory> categories, CategoryStatistics statistics) {
+        this.statistics = statistics;
+        this.categories = categories.toArray(new OutputCategory[categories.size()]);
+        matchers = new Matcher[this.categories.length];
+
+        Set<String> types = new HashSet<>();
+
+        for (int i = 0; i < this.categories.length; i++) {
+            types.addAll(this.categories[i].getTypeCondition().getTypes());
+            matchers[i] = compile(this.categories[i]);
+        }
+
+        for (PatternScanner scanner : scanners.values()) {
+            scanner.build();
+        }
+
+        for (String type : types) {
+            candidatesPerType.put(type, getCandidates(type));
+        }
+
+        otherCandidates = getCandidates(null);
+    }
+
+    /**
+     * Returns the categories whose type condition matches the given type, or
+     * any type that no type condition mentions if the type is null.
+     */
+    private int[] getCandidates(String type) {
+        int[] candidates = new int[categories.length];
+        int count = 0;
+
+        for (int i = 0; i < categories.length; i++) {
+            TypeCondition condition = categories[i].getTypeCondition();
+            boolean match = condition.getTypes().contains("*") || (type != null && condition.getTypes().contains(type));
+
+            if (match != condition.isInverted()) {
+                candidates[count] = i;
+                count++;
+            }
+        }
+
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Returns the first category that the given publication fits in.
+     *
+     * @param item the publication
+     * @return the first matching category, or null if the publication does not
+     * fit any category
+     */
+    public OutputCategory classify(BibItem item) {
+        int[] candidates = candidatesPerType.get(item.getOriginalType());
+
+        if (candidates == null) {
+            candidates = otherCandidates;
+        }
+
+        long[][] found = new long[scanners.size()][]; // The strings found in each field, once it is scanned
+
+        for (int i : candidates) {
+            if (matchers[i] == null || matchers[i].matches(item, found)) {
+                return categories[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Compiles the field conditions and the combined condition of the given
+     * category. The type condition is handled by the candidate tables.
+     */
+    private Matcher compile(OutputCategory category) {
+        int count = category.getFieldConditions().size() + (category.getCondition() == null ? 0 : 1);
+        Matcher[] children = new Matcher[count];
+
+        for (int i = 0; i < category.getFieldConditions().size(); i++) {
+            children[i] = compile(category.getFieldConditions().get(i));
+        }
+
+        if (category.getCondition() != null) {
+            children[count - 1] = compile(category.getCondition());
+        }
+
+        switch (count) {
+            case 0:
+                return null;
+            case 1:
+                return children[0];
+            default:
+                return new CompositeMatcher(children, true, false, null);
+        }
+    }
+
+    private Matcher compile(Condition condition) {
+        Statistics stats = getStatistics(condition);
+
+        if (condition instanceof TypeCondition) {
+            final Set<String> types = new HashSet<>(((TypeCondition) condition).getTypes());
+            final boolean any = types.contains("*");
+
+            return new Matcher(condition.isInverted(), 1, stats) {
+                @Override
+                boolean test(BibItem item, long[][] found) {
+                    return any || types.contains(item.getOriginalType());
+                }
+            };
+        } else if (condition instanceof FieldExistsCondition) {
+            return new FieldMatcher((FieldCondition) condition, 1, stats) {
+                @Override
+                boolean test(String value, long[][] found) {
+                    return value != null && !value.isEmpty();
+                }
+            };
+        } else if (condition instanceof FieldEqualsCondition) {
+            final Set<String> values = new HashSet<>(((FieldEqualsCondition) condition).getValues());
+
+            return new FieldMatcher((FieldCondition) condition, 2, stats) {
+                @Override
+                boolean test(String value, long[][] found) {
+                    return values.contains(value);
+                }
+            };
+        } else if (condition instanceof FieldContainsCondition) {
+            return compileContains((FieldContainsCondition) condition, stats);
+        } else if (condition instanceof AndCondition || condition instanceof OrCondition) {
+            List<Condition> conditions = ((CompositeCondition) condition).getConditions();
+            Matcher[] children = new Matcher[conditions.size()];
+
+            for (int i = 0; i < children.length; i++) {
+                children[i] = compile(conditions.get(i));
+            }
+
+            return new CompositeMatcher(children, condition instanceof AndCondition, condition.isInverted(), stats);
+        } else {
+            final Condition unknown = condition; // Evaluated as it is
+
+            return new Matcher(false, 8, stats) {
+                @Override
+                boolean test(BibItem item, long[][] found) {
+                    return unknown.matches(item);
+                }
+            };
+        }
+    }
+
+    private Matcher compileContains(FieldContainsCondition condition, Statistics stats) {
+        List<String> values = condition.getValues();
+
+        if (values.contains("")) {
+            return new FieldMatcher(condition, 1, stats) {
+                @Override
+                boolean test(String value, long[][] found) {
+                    return value != null; // Every string contains the empty string
+                }
+            };
+        }
+
+        PatternScanner scanner = scanners.get(condition.getField());
+
+        if (scanner == null) {
+            scanner = new PatternScanner(scanners.size());
+            scanners.put(condition.getField(), scanner);
+        }
+
+        final PatternScanner fieldScanner = scanner;
+        final int[] patterns = new int[values.size()];
+
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = scanner.add(values.get(i));
+        }
+
+        return new FieldMatcher(condition, 4, stats) {
+            @Override
+            boolean test(String value, long[][] found) {
+                if (value == null) {
+                    return false;
+                }
+
+                long[] present = found[fieldScanner.index];
+
+                if (present == null) {
+                    present = fieldScanner.scan(value);
+                    found[fieldScanner.index] = present;
+                }
+
+                for (int pattern : patterns) {
+                    if ((present[pattern >> 6] & (1L << pattern)) != 0) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the statistics for the given condition, which are shared with
+     * all equal conditions, or null if the condition is of an unknown type.
+     */
+    private Statistics getStatistics(Condition condition) {
+        String key = getKey(condition);
+        return (key == null ? null : statistics.get(key));
+    }
+
+    /**
+     * Returns a string that describes the given condition, such that equal
+     * conditions have the same description.
+     */
+    private static String getKey(Condition condition) {
+        StringBuilder key = new StringBuilder();
+        return (appendKey(key, condition) ? key.toString() : null);
+    }
+
+    private static boolean appendKey(StringBuilder key, Condition condition) {
+        if (condition.isInverted()) {
+            key.append('!');
+        }
+
+        if (condition instanceof TypeCondition) {
+            key.append("type").append(((TypeCondition) condition).getTypes());
+        } else if (condition instanceof FieldExistsCondition) {
+            key.append("exists:").append(((FieldCondition) condition).getField());
+        } else if (condition instanceof FieldEqualsCondition) {
+            key.append("equals:").append(((FieldCondition) condition).getField()).append(((FieldEqualsCondition) condition).getValues());
+        } else if (condition instanceof FieldContainsCondition) {
+            key.append("contains:").append(((FieldCondition) condition).getField()).append(((FieldContainsCondition) condition).getValues());
+        } else if (condition instanceof AndCondition || condition instanceof OrCondition) {
+            key.append(condition instanceof AndCondition ? "and(" : "or(");
+
+            for (Condition child : ((CompositeCondition) condition).getConditions()) {
+                if (!appendKey(key, child)) {
+                    return false;
+                }
+
+                key.append(',');
+            }
+
+            key.append(')');
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A compiled condition.
+     */
+    private static abstract class Matcher {
+
+        final boolean inverted;
+        final double cost; // The estimated time to test this condition, relative to checking whether a field exists
+        final Statistics stats; // Null if the match rate is not recorded
+
+        Matcher(boolean inverted, double cost, Statistics stats) {
+            this.inverted = inverted;
+            this.cost = cost;
+            this.stats = stats;
+        }
+
+        /**
+         * Checks whether the given publication matches this condition.
+         *
+         * @param item the publication
+         * @param found the results of the field scans for this publication
+         * @return true if the publication matches
+         */
+        final boolean matches(BibItem item, long[][] found) {
+            boolean match = test(item, found) != inverted;
+
+            if (stats != null) {
+                stats.record(match);
+            }
+
+            return match;
+        }
+
+        abstract boolean test(BibItem item, long[][] found);
+
+        double getMatchRate() {
+            return (stats == null ? 0.5 : stats.getMatchRate());
+        }
+    }
+
+    private static abstract class FieldMatcher extends Matcher {
+
+        private final String field;
+
+        FieldMatcher(FieldCondition condition, double cost, Statistics stats) {
+            super(condition.isInverted(), cost, stats);
+            field = condition.getField();
+        }
+
+        @Override
+        boolean test(BibItem item, long[][] found) {
+            return test(item.get(field), found);
+        }
+
+        abstract boolean test(String value, long[][] found);
+    }
+
+    /**
+     * A conjunction or disjunction. Its conditions are tested in order of
+     * increasing expected cost per decisive result: for a conjunction, the
+     * conditions that are cheap and unlikely to match come first; for a
+     * disjunction, those that are cheap and likely to match.
+     */
+    private static class CompositeMatcher extends Matcher {
+
+        private final Matcher[] children;
+        private final boolean and;
+
+        CompositeMatcher(Matcher[] children, boolean and, boolean inverted, Statistics stats) {
+            super(inverted, totalCost(children), stats);
+            this.and = and;
+            this.children = children.clone();
+
+            final double[] order = new double[children.length];
+
+            for (int i = 0; i < children.length; i++) {
+                double decisive = (and ? 1 - children[i].getMatchRate() : children[i].getMatchRate());
+                order[i] = children[i].cost / Math.max(decisive, 0.001);
+            }
+
+            // Sort the indices, so that the sort is stable and equal conditions keep their order
+            Integer[] indices = new Integer[children.length];
+
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = i;
+            }
+
+            Arrays.sort(indices, (a, b) -> Double.compare(order[a], order[b]));
+
+            for (int i = 0; i < indices.length; i++) {
+                this.children[i] = children[indices[i]];
+            }
+        }
+
+        private static double totalCost(Matcher[] children) {
+            double cost = 0;
+
+            for (Matcher child : children) {
+                cost += child.cost;
+            }
+
+            return cost;
+        }
+
+        @Override
+        boolean test(BibItem item, long[][] found) {
+            for (Matcher child : children) {
+                if (child.matches(item, found) != and) {
+                    return !and;
+                }
+            }
+
+            return and;
+        }
+    }
+
+    /**
+     * Finds which of a set of non-empty strings occur in a text, in a single
+     * scan (Aho-Corasick).
+     */
+    private static class PatternScanner {
+
+        final int index; // The position of this scanner's results in the array passed to the matchers
+        private final Map<String, Integer> patterns = new HashMap<>();
+        private final Node root = new Node();
+        private int words; // The number of longs needed for one bit per pattern
+
+        PatternScanner(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Adds a string to look for, and returns its number.
+         */
+        int add(String pattern) {
+            Integer id = patterns.get(pattern);
+
+            if (id == null) {
+                id = patterns.size();
+                patterns.put(pattern, id);
+            }
+
+            return id;
+        }
+
+        /**
+         * Builds the automaton, once all strings have been added.
+         */
+        void build() {
+            words = (patterns.size() + 63) / 64;
+
+            for (Map.Entry<String, Integer> pattern : patterns.entrySet()) {
+                Node node = root;
+
+                for (int i = 0; i < pattern.getKey().length(); i++) {
+                    node = node.getOrCreateChild(pattern.getKey().charAt(i));
+                }
+
+                if (node.found == null) {
+                    node.found = new long[words];
+                }
+
+                node.found[pattern.getValue() >> 6] |= 1L << pattern.getValue();
+            }
+
+            // Compute the failure links in breadth-first order, so that shorter suffixes are done first
+            Queue<Node> queue = new ArrayDeque<>();
+
+            for (Node child : root.children) {
+                child.fail = root;
+                queue.add(child);
+            }
+
+            while (!queue.isEmpty()) {
+                Node node = queue.remove();
+
+                for (int i = 0; i < node.keys.length; i++) {
+                    Node child = node.children[i];
+                    Node fail = node.fail;
+
+                    while (fail.getChild(node.keys[i]) == null && fail != root) {
+                        fail = fail.fail;
+                    }
+
+                    Node next = fail.getChild(node.keys[i]);
+                    child.fail = (next == null ? root : next);
+                    child.found = union(child.found, child.fail.found); // The strings that end here include those that are suffixes
+                    queue.add(child);
+                }
+            }
+        }
+
+        private static long[] union(long[] a, long[] b) {
+            if (b == null) {
+                return a;
+            } else if (a == null) {
+                return b;
+            }
+
+            long[] result = a.clone();
+
+            for (int i = 0; i < b.length; i++) {
+                result[i] |= b[i];
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a bit set of the strings that occur in the given text.
+         */
+        long[] scan(String text) {
+            long[] result = new long[words];
+            Node node = root;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                Node next;
+
+                while ((next = node.getChild(c)) == null && node != root) {
+                    node = node.fail;
+                }
+
+                if (next != null) {
+                    node = next;
+
+                    if (node.found != null) {
+                        for (int j = 0; j < words; j++) {
+                            result[j] |= node.found[j];
+                        }
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        private static class Node {
+
+            char[] keys = new char[0]; // Sorted
+            Node[] children = new Node[0];
+            Node fail = null;
+            long[] found = null; // The strings that end at this node, if any
+
+            Node getChild(char c) {
+                int index = Arrays.binarySearch(keys, c);
+                return (index < 0 ? null : children[index]);
+            }
+
+            Node getOrCreateChild(char c) {
+                int index = Arrays.binarySearch(keys, c);
+
+                if (index < 0) {
+                    index = -index - 1;
+
+                    char[] newKeys = new char[keys.length + 1];
+                    System.arraycopy(keys, 0, newKeys, 0, index);
+                    newKeys[index] = c;
+                    System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+                    keys = newKeys;
+
+                    Node[] newChildren = new Node[children.length + 1];
+                    System.arraycopy(children, 0, newChildren, 0, index);
+                    newChildren[index] = new Node();
+                    System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+                    children = newChildren;
+                }
+
+                return children[index];
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import publy.Console;
+
+/**
+ * Records how often the conditions of the categories matched, so that a
+ * {@link CategoryClassifier} can test the conditions that are likely to decide
+ * the result first.
+ * <p>
+ * The match rates can be kept in a file next to the target between runs. Only
+ * the conditions that were used in the current run are written back, so the
+ * file does not grow when categories change. All methods are thread-safe.
+ */
+public class CategoryStatistics {
+
+    private static final long LIMIT = 1 << 20; // Keeps the saved counts bounded, so that recent results weigh more
+
+    private final Path file;
+    private final Map<String, long[]> previous = new HashMap<>(); // The counts of previous runs, by condition; never changed after loading
+    private final Map<String, Statistics> used = new ConcurrentHashMap<>(); // The conditions of this run
+
+    /**
+     * Creates statistics that are not kept between runs.
+     */
+    public CategoryStatistics() {
+        this(null);
+    }
+
+    /**
+     * Creates statistics that are kept in the given file between runs. The
+     * match rates of previous runs are read from the file, and {@link #save()}
+     * writes them back.
+     *
+     * @param file the statistics file, or null to not keep the match rates
+     */
+    public CategoryStatistics(Path file) {
+        this.file = file;
+
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the file in which the match rates for the given target are kept.
+     *
+     * @param target the HTML target
+     * @return the statistics file
+     */
+    public static Path getFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".categories");
+    }
+
+    /**
+     * Gets the file in which the match rates are kept between runs.
+     *
+     * @return the statistics file, or null if the match rates are not kept
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the statistics for the condition with the given key, which are
+     * shared with all equal conditions.
+     */
+    Statistics get(String key) {
+        return used.computeIfAbsent(key, k -> new Statistics(previous.get(k)));
+    }
+
+    /**
+     * Writes the match rates of the conditions that were used in this run to
+     * the statistics file, if there is one.
+     */
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+
+        List<String> lines = new ArrayList<>(used.size());
+
+        for (Map.Entry<String, Statistics> entry : used.entrySet()) {
+            String key = entry.getKey();
+
+            if (key.indexOf('\n') < 0 && key.indexOf('\r') < 0) {
+                long[] counts = entry.getValue().getCounts();
+                lines.add(counts[0] + "\t" + counts[1] + "\t" + key);
+            }
+        }
+
+        try {
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            Console.except(ex, "Could not write the category statistics \"%s\":", file);
+        }
+    }
+
+    /**
+     * Reads the match rates of previous runs from the statistics file, if it
+     * exists.
+     */
+    private void load() {
+        if (Files.notExists(file)) {
+            return;
+        }
+
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", 3);
+
+                if (parts.length == 3) {
+                    try {
+                        long tested = Long.parseLong(parts[0]);
+                        long matched = Long.parseLong(parts[1]);
+
+                        if (tested >= 0 && matched >= 0 && matched <= tested) {
+                            previous.put(parts[2], new long[]{tested, matched});
+                        }
+                    } catch (NumberFormatException ex) {
+                        // Skip the line; the condition starts without statistics
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            Console.except(ex, "Could not read the category statistics \"%s\":", file);
+        }
+    }
+
+    /**
+     * How often a condition matched, in previous runs and in this one. The
+     * counts of this run are added up with {@link LongAdder}s, as many threads
+     * may classify publications at the same time.
+     */
+    static class Statistics {
+
+        private final long previousTested;
+        private final long previousMatched;
+        private final LongAdder tested = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+
+        Statistics(long[] previous) {
+            previousTested = (previous == null ? 0 : previous[0]);
+            previousMatched = (previous == null ? 0 : previous[1]);
+        }
+
+        void record(boolean match) {
+            tested.increment();
+
+            if (match) {
+                matched.increment();
+            }
+        }
+
+        /**
+         * Returns the fraction of tests that matched, or one half if the
+         * condition was never tested.
+         */
+        double getMatchRate() {
+            long[] counts = getCounts();
+            return (counts[0] == 0 ? 0.5 : Math.min(1, counts[1] / (double) counts[0]));
+        }
+
+        /**
+         * Returns the number of tests and the number of matches, scaled down
+         * to at most {@link #LIMIT} tests.
+         */
+        long[] getCounts() {
+            long m = previousMatched + matched.sum(); // Read first, so that it does not exceed the tests
+            long t = previousTested + tested.sum();
+
+            while (t > LIMIT) {
+                t /= 2;
+                m /= 2;
+            }
+
+            return new long[]{t, Math.min(m, t)};
+        }
+    }
+}
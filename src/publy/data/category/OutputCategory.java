@@ -19,7 +19,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import publy.data.bibitem.BibItem;
+import publy.data.category.conditions.AndCondition;
+import publy.data.category.conditions.Condition;
 import publy.data.category.conditions.FieldCondition;
+import publy.data.category.conditions.OrCondition;
 import publy.data.category.conditions.TypeCondition;
 
 /**
@@ -30,8 +33,8 @@ import publy.data.category.conditions.TypeCondition;
  * each category are grouped together under a heading. Publications that are not
  * included in any category will not be listed.
  * <p>
- * Publications that match the type and field conditions of a category are
- * automatically assigned to that category. If a publication matches multiple
+ * Publications that match the type and field conditions of a category, and its
+ * optional combined condition, are automatically assigned to that category. If a publication matches multiple
  * categories, it is assigned to the first in the list of categories.
  */
 public class OutputCategory {
@@ -41,6 +44,7 @@ public class OutputCategory {
     // Conditions to categorize bibitems
     private TypeCondition typeCondition;
     private List<FieldCondition> fieldConditions;
+    private Condition condition; // Null if there is no combined condition
     // Fields that should be ignored for this category
     private List<String> ignoredFields;
 
@@ -191,6 +195,36 @@ public class OutputCategory {
         this.fieldConditions = fieldConditions;
     }
 
+    /**
+     * Gets the combined condition of this category.
+     * <p>
+     * This is an arbitrary combination of type and field conditions, built
+     * with {@link AndCondition}s, {@link OrCondition}s, and inversion. A
+     * publication must match the type condition, the field conditions, and
+     * the combined condition to be accepted. This allows a single category to
+     * accept, for example, both journal papers and papers at a specific
+     * conference.
+     *
+     * @return the combined condition, or null if this category has none
+     */
+    public Condition getCondition() {
+        return condition;
+    }
+
+    /**
+     * Sets the combined condition of this category.
+     * <p>
+     * This is an arbitrary combination of type and field conditions, built
+     * with {@link AndCondition}s, {@link OrCondition}s, and inversion. A
+     * publication must match the type condition, the field conditions, and
+     * the combined condition to be accepted.
+     *
+     * @param condition the new combined condition, or null to remove it
+     */
+    public void setCondition(Condition condition) {
+        this.condition = condition;
+    }
+
     /**
      * Gets the ignored fields of this category.
      * <p>
@@ -226,13 +260,13 @@ public class OutputCategory {
      */
     public boolean fitsCategory(BibItem item) {
         if (typeCondition.matches(item)) {
-            for (FieldCondition condition : fieldConditions) {
-                if (!condition.matches(item)) {
+            for (FieldCondition fieldCondition : fieldConditions) {
+                if (!fieldCondition.matches(item)) {
                     return false;
                 }
             }
 
-            return true;
+            return condition == null || condition.matches(item);
         } else {
             return false;
         }
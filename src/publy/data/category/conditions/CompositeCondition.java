@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category.conditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A condition that combines several other conditions, which can be composite
+ * conditions themselves. Together with inversion, this allows arbitrary
+ * boolean combinations of type and field conditions.
+ */
+public abstract class CompositeCondition extends Condition {
+
+    private List<Condition> conditions;
+
+    /**
+     * Creates a new condition that combines the given conditions.
+     * <p>
+     * If {@code inverted} is true, any item that would otherwise match this
+     * condition no longer matches it and vice versa.
+     *
+     * @param inverted whether to invert this condition
+     * @param conditions the conditions to combine
+     */
+    public CompositeCondition(boolean inverted, List<Condition> conditions) {
+        super(inverted);
+        this.conditions = conditions;
+    }
+
+    /**
+     * Creates a new condition that combines the given conditions.
+     * <p>
+     * If {@code inverted} is true, any item that would otherwise match this
+     * condition no longer matches it and vice versa.
+     *
+     * @param inverted whether to invert this condition
+     * @param conditions the conditions to combine
+     */
+    public CompositeCondition(boolean inverted, Condition... conditions) {
+        super(inverted);
+        this.conditions = new ArrayList<>(Arrays.asList(conditions));
+    }
+
+    /**
+     * Creates a new composite condition with the same attributes as the given
+     * one. The combined conditions themselves are not copied.
+     *
+     * @param condition the condition to copy
+     */
+    public CompositeCondition(CompositeCondition condition) {
+        super(condition);
+        conditions = new ArrayList<>(condition.conditions);
+    }
+
+    /**
+     * Gets the conditions that this condition combines.
+     *
+     * @return the conditions
+     */
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Sets the conditions that this condition combines.
+     *
+     * @param conditions the new conditions
+     */
+    public void setConditions(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category.conditions;
+
+import java.util.List;
+import publy.data.bibitem.BibItem;
+
+/**
+ * A condition that matches publications that match at least one of its
+ * conditions.
+ * <p>
+ * For example, it could match all journal papers and all conference papers
+ * at a specific venue.
+ */
+public class OrCondition extends CompositeCondition {
+
+    /**
+     * Creates a new condition that tests whether a publication matches any of
+     * the given conditions.
+     * <p>
+     * If {@code inverted} is true, any item that would otherwise match this
+     * condition no longer matches it and vice versa. In other words, the
+     * condition tests that none of the given conditions match.
+     *
+     * @param inverted whether to invert this condition
+     * @param conditions the conditions to combine
+     */
+    public OrCondition(boolean inverted, List<Condition> conditions) {
+        super(inverted, conditions);
+    }
+
+    /**
+     * Creates a new condition that tests whether a publication matches any of
+     * the given conditions.
+     * <p>
+     * If {@code inverted} is true, any item that would otherwise match this
+     * condition no longer matches it and vice versa. In other words, the
+     * condition tests that none of the given conditions match.
+     *
+     * @param inverted whether to invert this condition
+     * @param conditions the conditions to combine
+     */
+    public OrCondition(boolean inverted, Condition... conditions) {
+        super(inverted, conditions);
+    }
+
+    /**
+     * Creates a new condition with the same attributes as the given one.
+     *
+     * @param condition the condition to copy
+     */
+    public OrCondition(OrCondition condition) {
+        super(condition);
+    }
+
+    @Override
+    protected boolean internalMatches(BibItem item) {
+        for (Condition condition : getConditions()) {
+            if (condition.matches(item)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -31,6 +31,7 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import publy.data.bibitem.BibItem;
 import publy.data.category.OutputCategory;
+import publy.data.category.conditions.Condition;
 import publy.data.category.conditions.FieldCondition;
 import publy.data.category.conditions.FieldContainsCondition;
 import publy.data.category.conditions.FieldEqualsCondition;
@@ -339,6 +340,7 @@ public class ConditionsDialog extends javax.swing.JDialog {
             if (items != null) {
                 // Find all matching items
                 List<FieldCondition> fieldConditions = getFieldConditions();
+                Condition combined = category.getCondition(); // Not editable here, but applied in the output
                 List<BibItem> matches = new ArrayList<>();
 
                 for (BibItem item : items) {
@@ -348,6 +350,8 @@ public class ConditionsDialog extends javax.swing.JDialog {
                         match = match && condition.matches(item);
                     }
 
+                    match = match && (combined == null || combined.matches(item));
+
                     if (match) {
                         matches.add(item);
                     }
@@ -373,6 +377,10 @@ public class ConditionsDialog extends javax.swing.JDialog {
                 }
 
                 testOutputTextArea.append(matches.size() + " matches.");
+
+                if (combined != null) {
+                    testOutputTextArea.append("\nThis category also has a combined condition from the configuration file, which was applied as well.");
+                }
             }
         }
     }//GEN-LAST:event_testButtonActionPerformed
@@ -36,18 +36,38 @@ public abstract class BibItemWriter {
 
     protected final BufferedWriter out;
     protected final Settings settings;
+    private GenerationContext context; // Created when first needed if the writer was made without one
     protected final Set<String> ignoredFields;
     protected int indentationLevel = 0;
     protected String indentString = "";
 
     public BibItemWriter(BufferedWriter out, Settings settings) {
+        this(out, settings, null);
+    }
+
+    public BibItemWriter(BufferedWriter out, Settings settings, GenerationContext context) {
         this.out = out;
         this.settings = settings;
+        this.context = context;
         ignoredFields = new HashSet<>();
     }
 
     public abstract void write(BibItem item) throws IOException;
 
+    /**
+     * Returns the state of the generation run that this writer is part of. A
+     * writer that was created without one gets its own context.
+     *
+     * @return the generation context
+     */
+    protected GenerationContext getContext() {
+        if (context == null) {
+            context = new GenerationContext(settings);
+        }
+
+        return context;
+    }
+
     public Set<String> getIgnoredFields() {
         return ignoredFields;
     }
@@ -95,7 +115,7 @@ public abstract class BibItemWriter {
                     Console.error("Null author found for entry \"%s\".%n(Authors: \"%s\")", item.getId(), item.get("author"));
                 }
             } else {
-                if (gs.isListAllAuthors() || !a.isMe(gs)) {
+                if (gs.isListAllAuthors() || !a.isMe(getContext().getMyNames())) {
                     if (includeLinks) {
                         authors.add(a.getLinkedHTMLName(gs.getNameDisplay(), gs.isReverseNames()));
                     } else {
@@ -272,7 +292,12 @@ public abstract class BibItemWriter {
     }
 
     protected String processString(String string) {
-        return changeQuotes(removeBraces(LatexToUnicode.convertToUnicode(string)));
+        if (context == null) {
+            // Not part of a generation run; caching the results would not pay off
+            return changeQuotes(removeBraces(LatexToUnicode.convertToUnicode(string)));
+        }
+
+        return context.getProcessedStrings().get(string, s -> changeQuotes(removeBraces(LatexToUnicode.convertToUnicode(s))));
     }
 
     /**
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe cache for the results of a string conversion that
+ * only depends on its input.
+ * <p>
+ * The cache is split into segments by hash code, so that threads that convert
+ * different strings rarely wait for each other. Each segment evicts its least
+ * recently used entry when it is full. Strings that are longer than a given
+ * limit are converted, but not cached, since long values like abstracts are
+ * rarely repeated.
+ */
+public class ConversionCache {
+
+    private static final int SEGMENTS = 16; // Must be a power of two
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the maximum number of cached strings
+     * @param maxLength the maximum length of a cached string
+     */
+    public ConversionCache(int capacity, int maxLength) {
+        this.maxLength = maxLength;
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, capacity / SEGMENTS));
+        }
+    }
+
+    /**
+     * Returns the cached conversion of the given string. If there is none, it
+     * is computed with the given conversion and cached.
+     *
+     * @param string the string to convert
+     * @param conversion the conversion, which must always return the same
+     * result for the same string
+     * @return the converted string
+     */
+    public String get(String string, Function<String, String> conversion) {
+        if (string.length() > maxLength) {
+            misses.increment();
+            return conversion.apply(string);
+        }
+
+        Segment segment = segments[spread(string.hashCode()) & (SEGMENTS - 1)];
+        String result;
+
+        synchronized (segment) {
+            result = segment.get(string);
+        }
+
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+
+        // Convert outside the lock; another thread may do the same work
+        misses.increment();
+        result = conversion.apply(string);
+
+        synchronized (segment) {
+            segment.put(string, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes all strings from the cache and resets the statistics.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Returns the number of conversions that were answered from the cache
+     * since it was last cleared.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of conversions that had to be computed since the
+     * cache was last cleared.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of strings that are currently cached.
+     *
+     * @return the number of cached strings
+     */
+    public int size() {
+        int size = 0;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16); // Let the high bits influence the segment
+    }
+
+    private static class Segment extends LinkedHashMap<String, String> {
+
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true); // Access order
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
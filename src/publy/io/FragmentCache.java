@@ -0,0 +1,345 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import publy.Console;
+import publy.Constants;
+import publy.data.Author;
+import publy.data.bibitem.BibItem;
+import publy.data.settings.Settings;
+import publy.io.settings.SettingsWriter;
+
+/**
+ * Remembers how each publication was written, so that publications that did
+ * not change since the previous run don't need to be written again.
+ * <p>
+ * A fragment is identified by a hash of everything that the item writer
+ * uses: the kind of writer, its indentation and ignored fields, and the
+ * fields, authors, and editors of the publication. The fragments are stored
+ * in a file next to the target. That file also records the version of Publy
+ * and the settings that affect the output. If either differs, all fragments
+ * are written again.
+ * <p>
+ * Fragments whose writing produced messages are not cached, so that the
+ * messages are shown again in the next run.
+ * <p>
+ * A new cache is created for every run of the publication list generator and
+ * given to the list writers through the {@link GenerationContext}. Programs
+ * that generate the same list several times can keep the fragments in a
+ * {@link Memory}, so that they don't need to be read from the cache file
+ * again. All methods are thread-safe.
+ */
+public class FragmentCache {
+
+    private static final String HEADER = "Publy fragment cache";
+
+    private final boolean enabled;
+    private final Path cacheFile;
+    private final String settingsHash;
+    private final Memory memory;
+    private final Map<String, String> fragments; // The fragments of the previous run, by key; never changed
+    private final Map<String, String> used = new ConcurrentHashMap<>(); // The fragments that were written in this run
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a disabled cache: publications are always written by their item
+     * writer, and no cache file is used.
+     */
+    public FragmentCache() {
+        enabled = false;
+        cacheFile = null;
+        settingsHash = null;
+        memory = null;
+        fragments = Collections.emptyMap();
+    }
+
+    /**
+     * Creates the cache for writing the publication list with the given
+     * settings. The fragments of the previous run are taken from the given
+     * memory if it holds them, and read from the cache file otherwise.
+     *
+     * @param settings the configuration
+     * @param memory the fragments of a previous run in this program, or null
+     */
+    public FragmentCache(Settings settings, Memory memory) {
+        enabled = true;
+        cacheFile = getCacheFile(settings.getFileSettings().getTarget());
+        settingsHash = hash(Constants.MAJOR_VERSION + "." + Constants.MINOR_VERSION + "\n" + SettingsWriter.getOutputSettings(settings));
+        this.memory = memory;
+
+        Map<String, String> remembered = (memory == null ? null : memory.get(cacheFile, settingsHash));
+        fragments = (remembered == null ? load(cacheFile, settingsHash) : remembered);
+    }
+
+    /**
+     * Gets whether fragments are cached.
+     *
+     * @return true if fragments are cached
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the file in which the fragments for the given target are kept.
+     *
+     * @param target the HTML target
+     * @return the cache file
+     */
+    public static Path getCacheFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".fragments");
+    }
+
+    /**
+     * Writes the given publication with the given item writer, or writes the
+     * fragment that the item writer produced for it before.
+     *
+     * @param writer the item writer
+     * @param item the publication
+     * @param copy creates an item writer of the same kind, with the same
+     * settings and context, for the given output; it is used to write new
+     * fragments
+     * @throws IOException
+     */
+    public void write(BibItemWriter writer, BibItem item, Function<BufferedWriter, ? extends BibItemWriter> copy) throws IOException {
+        if (!enabled) {
+            writer.write(item);
+            return;
+        }
+
+        String key = getKey(writer, item);
+        String fragment = fragments.get(key);
+
+        if (fragment == null) {
+            fragment = used.get(key); // Written earlier in this run, for instance by another section
+        }
+
+        if (fragment != null) {
+            hits.increment();
+            used.put(key, fragment);
+        } else {
+            misses.increment();
+            StringWriter text = new StringWriter();
+            Console.startBuffering();
+            Console.BufferedMessages messages;
+
+            try (BufferedWriter out = new BufferedWriter(text)) {
+                BibItemWriter fragmentWriter = copy.apply(out);
+                fragmentWriter.setIndentationLevel(writer.indentationLevel);
+                fragmentWriter.setIgnoredFields(writer.ignoredFields);
+                fragmentWriter.write(item);
+            } finally {
+                messages = Console.stopBuffering();
+                messages.show();
+            }
+
+            fragment = text.toString();
+
+            if (messages.isEmpty()) {
+                used.put(key, fragment);
+            }
+        }
+
+        writer.out.write(fragment);
+    }
+
+    /**
+     * Writes the fragments that were used in this run to the cache file, and
+     * keeps them in the memory for the next run. Fragments that were not used
+     * are dropped. This should be called once, after the publication list has
+     * been written.
+     */
+    public synchronized void save() {
+        if (!enabled) {
+            return;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(cacheFile)))) {
+            out.writeUTF(HEADER);
+            out.writeUTF(settingsHash);
+            out.writeInt(used.size());
+
+            for (Map.Entry<String, String> entry : used.entrySet()) {
+                byte[] fragment = entry.getValue().getBytes(StandardCharsets.UTF_8);
+
+                out.writeUTF(entry.getKey());
+                out.writeInt(fragment.length);
+                out.write(fragment);
+            }
+        } catch (IOException ex) {
+            Console.except(ex, "Could not write the fragment cache \"%s\":", cacheFile);
+        }
+
+        if (memory != null) {
+            memory.set(cacheFile, settingsHash, new HashMap<>(used));
+        }
+    }
+
+    /**
+     * Returns the number of publications that were written from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of publications that had to be written.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static Map<String, String> load(Path cacheFile, String settingsHash) {
+        Map<String, String> fragments = new HashMap<>();
+
+        if (Files.notExists(cacheFile)) {
+            return fragments;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (!HEADER.equals(in.readUTF()) || !settingsHash.equals(in.readUTF())) {
+                Console.debug("The fragment cache \"%s\" was made by another version of Publy or with other settings; writing all publications.", cacheFile);
+                return fragments;
+            }
+
+            int count = in.readInt();
+
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                byte[] fragment = new byte[in.readInt()];
+                in.readFully(fragment);
+                fragments.put(key, new String(fragment, StandardCharsets.UTF_8));
+            }
+        } catch (IOException | RuntimeException ex) {
+            Console.debug("Could not read the fragment cache \"%s\"; writing all publications: %s", cacheFile, ex);
+            fragments.clear();
+        }
+
+        return fragments;
+    }
+
+    /**
+     * Returns a hash of everything that affects how the given writer writes
+     * the given publication.
+     */
+    private static String getKey(BibItemWriter writer, BibItem item) {
+        List<String> parts = new ArrayList<>();
+        parts.add(writer.getClass().getName());
+        parts.add(Integer.toString(writer.indentationLevel));
+        parts.add(new TreeSet<>(writer.ignoredFields).toString());
+        parts.add(item.getOriginalType());
+        parts.add(item.getId());
+
+        for (String field : item.getFields()) {
+            parts.add(field);
+            parts.add(String.valueOf(item.get(field)));
+        }
+
+        addAuthors(parts, item.getAuthors());
+        addAuthors(parts, item.getEditors());
+
+        return hash(parts);
+    }
+
+    private static void addAuthors(List<String> parts, List<Author> authors) {
+        parts.add(Integer.toString(authors.size()));
+
+        for (Author author : authors) {
+            parts.add(author.getName());
+            parts.add(String.valueOf(author.getAbbreviation()));
+            parts.add(String.valueOf(author.getUrl()));
+            parts.add(String.valueOf(author.getGroup()));
+        }
+    }
+
+    private static String hash(List<String> parts) {
+        StringBuilder sb = new StringBuilder();
+
+        for (String part : parts) {
+            // Prefix each part with its length, so that different parts can't produce the same text
+            sb.append(part.length()).append(':').append(part);
+        }
+
+        return hash(sb.toString());
+    }
+
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(2 * digest.length);
+
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new AssertionError(ex); // Every Java platform supports SHA-256
+        }
+    }
+
+    /**
+     * Keeps the fragments of the last run in memory, so that the next run in
+     * the same program doesn't need to read them from the cache file again.
+     * The {@link publy.algo.PublicationListWatcher} keeps one between runs.
+     */
+    public static class Memory {
+
+        private Path cacheFile = null; // Guarded by this
+        private String settingsHash = null; // Guarded by this
+        private Map<String, String> fragments = null; // Guarded by this
+
+        synchronized Map<String, String> get(Path cacheFile, String settingsHash) {
+            if (cacheFile.equals(this.cacheFile) && settingsHash.equals(this.settingsHash)) {
+                return fragments;
+            } else {
+                return null;
+            }
+        }
+
+        synchronized void set(Path cacheFile, String settingsHash, Map<String, String> fragments) {
+            this.cacheFile = cacheFile;
+            this.settingsHash = settingsHash;
+            this.fragments = Collections.unmodifiableMap(fragments);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import publy.data.MyNameMatcher;
+import publy.data.category.CategoryStatistics;
+import publy.data.settings.Settings;
+
+/**
+ * The state that is shared by all parts of a single generation of the
+ * publication list.
+ * <p>
+ * A new context is created for every run and handed to the post-processor and
+ * the writers, so that runs in the same program, one after another or at the
+ * same time, don't affect each other.
+ */
+public class GenerationContext {
+
+    private final MyNameMatcher myNames;
+    private final ConversionCache processedStrings = new ConversionCache(8192, 1024);
+    private final ReferenceChecker references;
+    private final FragmentCache fragments;
+    private final CategoryStatistics categoryStatistics;
+
+    /**
+     * Creates the context for generating the publication list with the given
+     * settings and default options.
+     *
+     * @param settings the configuration
+     */
+    public GenerationContext(Settings settings) {
+        this(settings, new GenerationOptions());
+    }
+
+    /**
+     * Creates the context for generating the publication list with the given
+     * settings and options. This reads the cache files that the options
+     * specify.
+     *
+     * @param settings the configuration
+     * @param options the options that are not part of the configuration
+     */
+    public GenerationContext(Settings settings, GenerationOptions options) {
+        myNames = new MyNameMatcher(settings.getGeneralSettings());
+        references = new ReferenceChecker(options.getReferenceCache());
+
+        if (options.isFragmentCache()) {
+            fragments = new FragmentCache(settings, options.getFragmentMemory());
+            categoryStatistics = new CategoryStatistics(CategoryStatistics.getFile(settings.getFileSettings().getTarget()));
+        } else {
+            fragments = new FragmentCache();
+            categoryStatistics = new CategoryStatistics();
+        }
+    }
+
+    /**
+     * Returns the matcher that decides which authors represent the user.
+     *
+     * @return the matcher for the user's names
+     */
+    public MyNameMatcher getMyNames() {
+        return myNames;
+    }
+
+    /**
+     * Returns the cache for {@link BibItemWriter#processString(String)}. Its
+     * results only depend on the input, so they are shared by all writers of
+     * this run, as long as no writer overrides
+     * {@link BibItemWriter#removeBraces(String)} or
+     * {@link BibItemWriter#changeQuotes(String)}.
+     *
+     * @return the cache of processed strings
+     */
+    public ConversionCache getProcessedStrings() {
+        return processedStrings;
+    }
+
+    /**
+     * Returns the checker for files that are referenced by the publication
+     * list.
+     *
+     * @return the reference checker
+     */
+    public ReferenceChecker getReferences() {
+        return references;
+    }
+
+    /**
+     * Returns the cache of the output for each publication. It is disabled
+     * unless the options ask for it.
+     *
+     * @return the fragment cache
+     */
+    public FragmentCache getFragments() {
+        return fragments;
+    }
+
+    /**
+     * Returns how often the conditions of the categories matched. The match
+     * rates are kept next to the target between runs if the fragment cache is
+     * used.
+     *
+     * @return the category statistics
+     */
+    public CategoryStatistics getCategoryStatistics() {
+        return categoryStatistics;
+    }
+}
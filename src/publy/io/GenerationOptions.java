@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.nio.file.Path;
+
+/**
+ * Options for generating the publication list that are not part of the
+ * configuration, such as the caches that are given on the command line. The
+ * {@link GenerationContext} of each run is created from these options.
+ */
+public class GenerationOptions {
+
+    private Path referenceCache = null;
+    private boolean fragmentCache = false;
+    private FragmentCache.Memory fragmentMemory = null;
+
+    /**
+     * Gets the file in which the {@link ReferenceChecker} of each run keeps
+     * its answers between runs.
+     *
+     * @return the cache file, or null if answers are not kept
+     */
+    public Path getReferenceCache() {
+        return referenceCache;
+    }
+
+    /**
+     * Sets the file in which the {@link ReferenceChecker} of each run keeps
+     * its answers between runs.
+     *
+     * @param referenceCache the cache file, or null to not keep answers
+     */
+    public void setReferenceCache(Path referenceCache) {
+        this.referenceCache = referenceCache;
+    }
+
+    /**
+     * Gets whether each run keeps the output for each publication in a
+     * {@link FragmentCache}. The match rates of the category conditions are
+     * then kept as well.
+     *
+     * @return whether to use the fragment cache
+     */
+    public boolean isFragmentCache() {
+        return fragmentCache;
+    }
+
+    /**
+     * Sets whether each run keeps the output for each publication in a
+     * {@link FragmentCache}.
+     *
+     * @param fragmentCache whether to use the fragment cache
+     */
+    public void setFragmentCache(boolean fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    /**
+     * Gets the memory in which the fragment cache of each run leaves its
+     * fragments for the next run.
+     *
+     * @return the fragment memory, or null if fragments are always read from
+     * the cache file
+     */
+    public FragmentCache.Memory getFragmentMemory() {
+        return fragmentMemory;
+    }
+
+    /**
+     * Sets the memory in which the fragment cache of each run leaves its
+     * fragments for the next run.
+     *
+     * @param fragmentMemory the fragment memory, or null to always read the
+     * fragments from the cache file
+     */
+    public void setFragmentMemory(FragmentCache.Memory fragmentMemory) {
+        this.fragmentMemory = fragmentMemory;
+    }
+}
@@ -15,11 +15,10 @@
  */
 package publy.io;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  *
@@ -28,33 +27,35 @@ import java.util.regex.Pattern;
 public class LatexToUnicode {
 
     /**
-     * A generic LaTeX command:
-     * A backslash - \\\\
-     * One or more non-terminating characters - [^ \\\\{}]+
-     * A closing character or argument - ($| |\\}|\\\\|\\{[^}]*\\})
+     * The characters that can follow a backslash in the special syntax for
+     * LaTeX commands that operate on a single character, like \'e or \"{\i}.
      */
-    private static final Pattern LATEX_COMMAND_1 = Pattern.compile("(\\\\[^ \\\\{}]+)($| |\\}|\\\\|\\{[^}]*\\})");
+    private static final String ACCENTS = "'`^\"~=.";
+    private static final Map<String, Character> LATEX_TO_UNICODE = populateSpecialCharacters();
     /**
-     * Special syntax for LaTeX commands that operate on a single character:
-     * A backslash - \\\\
-     * One symbol among the following: ', `, ^, ", ~, ., = - (['`\\^\"~=.])
-     * A one-character argument - (\\\\i ?|\\\\j ?|.)
+     * All spellings in LATEX_TO_UNICODE that start with a backslash, so that
+     * commands can be looked up while they are scanned.
      */
-    private static final Pattern LATEX_COMMAND_2 = Pattern.compile("\\\\(['`\\^\"~=.])(\\\\i ?|\\\\j ?|.)");
-    private static final Map<String, Character> LATEX_TO_UNICODE = populateSpecialCharacters();
+    private static final Node COMMANDS = buildCommandTrie(LATEX_TO_UNICODE);
 
     private LatexToUnicode() {
     }
 
     public static String convertToUnicode(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s; // Nothing to convert
+        }
+
         // Split into parts that are not in math-mode and treat each seperately
-        StringBuilder result = new StringBuilder();
+        StringBuilder result = new StringBuilder(s.length());
         StringBuilder part = new StringBuilder();
 
         boolean math = false;
         boolean escape = false;
 
-        for (char c : s.toCharArray()) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
             if (!math) {
                 if (!escape) {
                     switch (c) {
@@ -85,7 +86,7 @@ public class LatexToUnicode {
                 if (math) {
                     // Math mode was just entered; process the previous non-math block
                     if (part.length() > 0) {
-                        result.append(convertNonMathToUnicode(part.toString()));
+                        convertNonMathToUnicode(part, result);
                         part.setLength(0);
                     }
 
@@ -117,81 +118,262 @@ public class LatexToUnicode {
 
         // Add the remaining non-math part
         if (part.length() > 0) {
-            result.append(convertNonMathToUnicode(part.toString()));
+            convertNonMathToUnicode(part, result);
         }
 
         return result.toString();
     }
 
-    private static String convertNonMathToUnicode(String s) {
-        // Processing 2 first, because otherwise \\'\\i will be processed as
-        // separate commands, instead of a single one.
-        String result = replaceCommands(s, LATEX_COMMAND_2);
-        return replaceCommands(result, LATEX_COMMAND_1);
+    /**
+     * Converts the given non-math text and appends it to the result.
+     * <p>
+     * The special syntax for single-character commands is processed first,
+     * because otherwise \'\i would be processed as separate commands, instead
+     * of a single one. Generic commands are then recognized in its output.
+     */
+    private static void convertNonMathToUnicode(CharSequence s, StringBuilder result) {
+        if (indexOf(s, '\\', 0) < 0) {
+            result.append(s);
+            return;
+        }
+
+        StringBuilder accentsReplaced = new StringBuilder(s.length());
+        replaceAccentCommands(s, accentsReplaced);
+        replaceCommands(accentsReplaced, result);
     }
 
-    private static String replaceCommands(String input, Pattern commandPattern) {
-        StringBuilder result = new StringBuilder();
-        Matcher m = commandPattern.matcher(input);
+    /**
+     * Replaces commands of the form \'o, \'\i, or \'\i followed by a space, by
+     * looking up \'{o} or \'{\i}. Unknown commands are kept as they are, and
+     * the search continues after them.
+     */
+    private static void replaceAccentCommands(CharSequence s, StringBuilder result) {
+        int length = s.length();
+        int copied = 0; // Everything before this has been handled
+        int i = 0;
 
-        int currentSearchPosition = 0;
+        while (i + 2 < length) {
+            if (s.charAt(i) != '\\' || ACCENTS.indexOf(s.charAt(i + 1)) < 0) {
+                i++;
+                continue;
+            }
 
-        while (m.find(currentSearchPosition)) {
-            int nextSearchPosition = m.end();
+            int argumentStart = i + 2;
+            int argumentEnd;
+            int end;
+            char first = s.charAt(argumentStart);
 
-            // Convert the argument-less version (\'o) to the version with argument (\'{o}) if necessary
-            String command;
-            String tail = "";
+            if (first == '\\' && argumentStart + 1 < length && (s.charAt(argumentStart + 1) == 'i' || s.charAt(argumentStart + 1) == 'j')) {
+                argumentEnd = argumentStart + 2;
+                end = (argumentEnd < length && s.charAt(argumentEnd) == ' ' ? argumentEnd + 1 : argumentEnd);
+            } else if (isLineTerminator(first)) {
+                i++;
+                continue;
+            } else {
+                // A single code point
+                argumentEnd = argumentStart + (Character.isHighSurrogate(first) && argumentStart + 1 < length && Character.isLowSurrogate(s.charAt(argumentStart + 1)) ? 2 : 1);
+                end = argumentEnd;
+            }
 
-            if (commandPattern == LATEX_COMMAND_1) {
-                if (m.group().endsWith("}") && m.group().contains("{")) {
-                    command = m.group();
-                } else {
-                    // Do not take the closing character into account
-                    command = m.group(1);
-
-                    if (m.group(2).equals("\\")) {
-                        // This character has to be taken into account for the next command
-                        nextSearchPosition--;
-                    } else {
-                        tail = m.group(2);
-                    }
-                }
-            } else if (commandPattern == LATEX_COMMAND_2) {
-                if (m.group(2).length() > 1) {
-                    command = '\\' + m.group(1) + '{' + m.group(2).trim() + '}';
-                } else {
-                    command = '\\' + m.group(1) + '{' + m.group(2) + '}';
+            Node node = COMMANDS.child(s.charAt(i + 1));
+            node = (node == null ? null : node.child('{'));
+            node = (node == null ? null : node.find(s, argumentStart, argumentEnd));
+            node = (node == null ? null : node.child('}'));
+
+            if (node != null && node.hasValue) {
+                result.append(s, copied, i).append(node.value);
+                copied = end;
+            }
+
+            i = end;
+        }
+
+        result.append(s, copied, length);
+    }
+
+    /**
+     * Replaces generic commands: a backslash, followed by one or more
+     * characters other than space, backslash, or braces, and then either the
+     * end of the text, a space, a closing brace, a backslash, or an argument
+     * in braces. The closing character is kept.
+     */
+    private static void replaceCommands(CharSequence s, StringBuilder result) {
+        int length = s.length();
+        int copied = 0; // Everything before this has been handled
+        int i = 0;
+
+        while (i < length) {
+            if (s.charAt(i) != '\\') {
+                i++;
+                continue;
+            }
+
+            // Find the command name, looking it up along the way
+            Node name = COMMANDS;
+            int nameEnd = i + 1;
+
+            while (nameEnd < length && !isCommandEnd(s.charAt(nameEnd))) {
+                if (name != null) {
+                    name = name.child(s.charAt(nameEnd));
                 }
-            } else {
-                throw new AssertionError("Unexpected command pattern: " + commandPattern);
+
+                nameEnd++;
+            }
+
+            if (nameEnd == i + 1) {
+                i++; // No command name
+                continue;
             }
 
-            if (LATEX_TO_UNICODE.containsKey(command)) {
-                // Replace the command with the corresponding Unicode character
-                result.append(input.substring(currentSearchPosition, m.start()))
-                        .append(Character.toString(LATEX_TO_UNICODE.get(command)))
-                        .append(tail);
-            } else if (commandPattern == LATEX_COMMAND_1 && LATEX_TO_UNICODE.containsKey(m.group(1))) {
-                // Apparently the part in braces doesn't actually belong to the command
-                // Replace the command with the corresponding Unicode character
-                result.append(input.substring(currentSearchPosition, m.start()))
-                        .append(Character.toString(LATEX_TO_UNICODE.get(m.group(1))));
-
-                if (!m.group(2).equals("{}")) {
-                    result.append(m.group(2));
+            char close = (nameEnd < length ? s.charAt(nameEnd) : 0);
+
+            if (close == '{') {
+                int argumentEnd = indexOf(s, '}', nameEnd + 1);
+
+                if (argumentEnd < 0) {
+                    i = nameEnd; // Not a command; nothing in the name can start one
+                    continue;
                 }
+
+                int end = argumentEnd + 1;
+                Node command = (name == null ? null : name.find(s, nameEnd, end));
+
+                if (command != null && command.hasValue) {
+                    result.append(s, copied, i).append(command.value);
+                    copied = end;
+                } else if (name != null && name.hasValue) {
+                    // Apparently the part in braces doesn't actually belong to the command
+                    result.append(s, copied, i).append(name.value);
+
+                    if (end - nameEnd != 2) { // Drop empty braces
+                        result.append(s, nameEnd, end);
+                    }
+
+                    copied = end;
+                }
+
+                i = end;
             } else {
-                // Keep the command in
-                result.append(input.substring(currentSearchPosition, nextSearchPosition));
+                // This character has to be taken into account for the next command
+                int end = (close == '\\' || nameEnd == length ? nameEnd : nameEnd + 1);
+
+                if (name != null && name.hasValue) {
+                    result.append(s, copied, i).append(name.value);
+
+                    if (close == ' ' || close == '}') {
+                        result.append(close);
+                    }
+
+                    copied = end;
+                }
+
+                i = end;
             }
+        }
+
+        result.append(s, copied, length);
+    }
+
+    private static boolean isCommandEnd(char c) {
+        return c == ' ' || c == '\\' || c == '{' || c == '}';
+    }
 
-            currentSearchPosition = nextSearchPosition;
+    /**
+     * Returns whether the given character ends a line, in the sense of the
+     * '.' character class of regular expressions.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static int indexOf(CharSequence s, char c, int start) {
+        for (int i = start; i < s.length(); i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
         }
 
-        result.append(input.substring(currentSearchPosition));
+        return -1;
+    }
+
+    private static Node buildCommandTrie(Map<String, Character> characters) {
+        Node root = new Node();
 
-        return result.toString();
+        for (Map.Entry<String, Character> entry : characters.entrySet()) {
+            String spelling = entry.getKey();
+
+            if (spelling.startsWith("\\")) {
+                Node node = root.insert(spelling, 1);
+                node.hasValue = true;
+                node.value = entry.getValue();
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * A node of a trie over LaTeX spellings. The root represents the initial
+     * backslash.
+     */
+    private static class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        char[] keys = NO_KEYS; // Sorted
+        Node[] children = NO_CHILDREN;
+        boolean hasValue = false;
+        char value;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return (index < 0 ? null : children[index]);
+        }
+
+        /**
+         * Returns the node for this node's spelling followed by s[start, end),
+         * or null if no spelling starts with these characters.
+         */
+        Node find(CharSequence s, int start, int end) {
+            Node node = this;
+
+            for (int i = start; i < end && node != null; i++) {
+                node = node.child(s.charAt(i));
+            }
+
+            return node;
+        }
+
+        Node insert(String spelling, int start) {
+            Node node = this;
+
+            for (int i = start; i < spelling.length(); i++) {
+                char c = spelling.charAt(i);
+                int index = Arrays.binarySearch(node.keys, c);
+
+                if (index < 0) {
+                    index = -index - 1;
+
+                    char[] keys = new char[node.keys.length + 1];
+                    System.arraycopy(node.keys, 0, keys, 0, index);
+                    keys[index] = c;
+                    System.arraycopy(node.keys, index, keys, index + 1, node.keys.length - index);
+
+                    Node[] children = new Node[node.children.length + 1];
+                    System.arraycopy(node.children, 0, children, 0, index);
+                    children[index] = new Node();
+                    System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+
+                    node.keys = keys;
+                    node.children = children;
+                }
+
+                node = node.children[index];
+            }
+
+            return node;
+        }
     }
 
     private static Map<String, Character> populateSpecialCharacters() {
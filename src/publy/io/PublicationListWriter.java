@@ -16,11 +16,15 @@
 package publy.io;
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import publy.data.Section;
+import publy.data.bibitem.BibItem;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.Settings;
 
@@ -31,9 +35,15 @@ import publy.data.settings.Settings;
 public abstract class PublicationListWriter {
 
     protected final Settings settings;
+    protected final GenerationContext context;
 
     public PublicationListWriter(Settings settings) {
+        this(settings, new GenerationContext(settings));
+    }
+
+    public PublicationListWriter(Settings settings, GenerationContext context) {
         this.settings = settings;
+        this.context = context;
     }
 
     public void writePublicationList(List<Section> sections, Path target) throws IOException {
@@ -47,7 +57,134 @@ public abstract class PublicationListWriter {
         }
     }
 
-    protected abstract void writePublicationList(List<Section> sections, BufferedWriter out) throws IOException;
+    /**
+     * Starts writing a publication list that consists of the given section,
+     * without sub-sections. Instead of being stored in the section, its
+     * publications are passed to the returned stream one at a time, so that
+     * they never need to be in memory all at once.
+     * <p>
+     * The result is the same as writing a list with this section after adding
+     * all publications to it. Numbering must not be reversed, as that depends
+     * on the total number of publications.
+     *
+     * @param section the only section of the publication list
+     * @param target the file to write to
+     * @return a stream that writes publications to the section
+     * @throws IOException
+     */
+    public SectionStream streamPublicationList(Section section, Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+
+        return new SectionStream(section, TempWriter.newTempWriter(target));
+    }
+
+    protected void writePublicationList(List<Section> sections, BufferedWriter out) throws IOException {
+        writePreamble(sections, out);
+
+        for (Section s : sections) {
+            writeSection(s, sections, new ArrayList<Section>(), out);
+        }
+
+        writePostamble(sections, out);
+    }
+
+    private void writeSection(Section section, List<Section> sections, List<Section> parents, BufferedWriter out) throws IOException {
+        boolean hasItems = !section.getItems().isEmpty();
+
+        writeSectionStart(section, sections, parents, hasItems, out);
+
+        writeItems(section.getItems(), out);
+
+        writeSectionItemsEnd(section, parents, hasItems, out);
+
+        // Write the sub-sections
+        parents.add(section);
+        for (Section subsection : section.getSubsections()) {
+            writeSection(subsection, sections, parents, out);
+        }
+        parents.remove(section);
+
+        writeSectionEnd(section, parents, out);
+    }
+
+    /**
+     * Writes everything that precedes the first section.
+     *
+     * @param sections the top-level sections of the publication list
+     * @param out the output
+     * @throws IOException
+     */
+    protected abstract void writePreamble(List<Section> sections, BufferedWriter out) throws IOException;
+
+    /**
+     * Writes everything in the given section that precedes its publications.
+     *
+     * @param section the section
+     * @param sections the top-level sections of the publication list
+     * @param parents the sections that contain this section, outermost first
+     * @param hasItems whether the section contains any publications
+     * @param out the output
+     * @throws IOException
+     */
+    protected abstract void writeSectionStart(Section section, List<Section> sections, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException;
+
+    /**
+     * Writes a publication of the section that was started last.
+     *
+     * @param item the publication
+     * @param out the output
+     * @throws IOException
+     */
+    protected abstract void writeItem(BibItem item, BufferedWriter out) throws IOException;
+
+    /**
+     * Writes all publications of the section that was started last. By
+     * default, this writes them one at a time with
+     * {@link #writeItem(BibItem, BufferedWriter)}.
+     *
+     * @param items the publications
+     * @param out the output
+     * @throws IOException
+     */
+    protected void writeItems(List<BibItem> items, BufferedWriter out) throws IOException {
+        for (BibItem item : items) {
+            writeItem(item, out);
+        }
+    }
+
+    /**
+     * Writes everything in the given section that follows its publications
+     * and precedes its sub-sections. By default, this writes nothing.
+     *
+     * @param section the section
+     * @param parents the sections that contain this section, outermost first
+     * @param hasItems whether the section contains any publications
+     * @param out the output
+     * @throws IOException
+     */
+    protected void writeSectionItemsEnd(Section section, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException {
+    }
+
+    /**
+     * Writes everything in the given section that follows its sub-sections.
+     *
+     * @param section the section
+     * @param parents the sections that contain this section, outermost first
+     * @param out the output
+     * @throws IOException
+     */
+    protected abstract void writeSectionEnd(Section section, List<Section> parents, BufferedWriter out) throws IOException;
+
+    /**
+     * Writes everything that follows the last section.
+     *
+     * @param sections the top-level sections of the publication list
+     * @param out the output
+     * @throws IOException
+     */
+    protected abstract void writePostamble(List<Section> sections, BufferedWriter out) throws IOException;
 
     protected int getInitialCount(List<Section> sections) {
         if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.GLOBAL) {
@@ -65,4 +202,65 @@ public abstract class PublicationListWriter {
 
         return count;
     }
+
+    /**
+     * A publication list with a single section, that is written one
+     * publication at a time.
+     * <p>
+     * Like a {@link TempWriter}, the target file is only replaced if
+     * {@link #finish()} is called before the stream is closed.
+     */
+    public class SectionStream implements Closeable {
+
+        private final Section section;
+        private final TempWriter out;
+        private boolean started = false; // Whether the preamble and section start have been written
+
+        private SectionStream(Section section, TempWriter out) {
+            this.section = section;
+            this.out = out;
+        }
+
+        /**
+         * Writes the next publication of the section.
+         *
+         * @param item the publication
+         * @throws IOException
+         */
+        public void write(BibItem item) throws IOException {
+            if (!started) {
+                // Empty sections are left out, so nothing can be written until the first publication arrives
+                List<Section> sections = Collections.singletonList(section);
+                writePreamble(sections, out);
+                writeSectionStart(section, sections, new ArrayList<Section>(), true, out);
+                started = true;
+            }
+
+            writeItem(item, out);
+        }
+
+        /**
+         * Completes the publication list, and ensures that it replaces the
+         * target file when this stream is closed.
+         *
+         * @throws IOException
+         */
+        public void finish() throws IOException {
+            if (started) {
+                writeSectionItemsEnd(section, new ArrayList<Section>(), true, out);
+                writeSectionEnd(section, new ArrayList<Section>(), out);
+                writePostamble(Collections.singletonList(section), out);
+            } else {
+                writePreamble(Collections.<Section>emptyList(), out);
+                writePostamble(Collections.<Section>emptyList(), out);
+            }
+
+            out.copyWrittenFileOnClose();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import publy.Console;
+
+/**
+ * Checks whether files that are referenced by the publication list exist.
+ * <p>
+ * On network file systems, each check can take a while. The checker therefore
+ * remembers its answers, and checks a batch of files on several threads at
+ * once. It can also keep its answers in a cache file between runs. A cached
+ * answer is used as long as the last-modified time of the file's directory is
+ * unchanged, as adding or removing a file changes it, and the directory had
+ * not been modified shortly before the answer was found. Many file systems
+ * only keep this time to the second or two, so a file that is added in the
+ * same tick as the check would otherwise go unnoticed. Answers that were not
+ * needed in a run are dropped from the cache file.
+ * <p>
+ * A checker is meant to be used for a single generation run (see
+ * {@link GenerationContext#getReferences()}), as files may be added or removed
+ * between runs. All methods are thread-safe.
+ */
+public class ReferenceChecker {
+
+    private static final int MAX_THREADS = 8; // The checks wait on the file system, not the processor
+    private static final long TIME_RESOLUTION = 2000; // The coarsest resolution of last-modified times, in milliseconds (FAT)
+
+    private final Map<Path, Boolean> results = new ConcurrentHashMap<>();
+    private final Map<Path, Long> directoryTimes = new ConcurrentHashMap<>();
+    private final Map<Path, CachedResult> cached = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder checks = new LongAdder();
+    private final Path cacheFile;
+    private volatile boolean cacheChanged = false;
+
+    /**
+     * Creates a checker that does not keep its answers between runs.
+     */
+    public ReferenceChecker() {
+        this(null);
+    }
+
+    /**
+     * Creates a checker that keeps its answers in the given file between runs.
+     * The answers of previous runs are read from the file, and
+     * {@link #save()} writes them back.
+     *
+     * @param cacheFile the cache file, or null to not keep answers
+     */
+    public ReferenceChecker(Path cacheFile) {
+        this.cacheFile = cacheFile;
+
+        if (cacheFile != null) {
+            loadCache();
+        }
+    }
+
+    /**
+     * Gets the file in which answers are kept between runs.
+     *
+     * @return the cache file, or null if answers are not kept
+     */
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Checks whether the given files exist, on several threads, so that
+     * subsequent calls to {@link #exists(Path)} for these files are answered
+     * immediately.
+     *
+     * @param files the files
+     */
+    public void checkAll(Collection<Path> files) {
+        Set<Path> unknown = new LinkedHashSet<>();
+
+        for (Path file : files) {
+            Path key = getKey(file);
+
+            if (!results.containsKey(key)) {
+                unknown.add(key);
+            }
+        }
+
+        if (unknown.size() < 2) {
+            for (Path file : unknown) {
+                check(file);
+            }
+
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_THREADS, unknown.size()), runnable -> {
+            Thread thread = new Thread(runnable, "Publy reference checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(unknown.size());
+
+            for (Path file : unknown) {
+                futures.add(executor.submit(() -> check(file)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt(); // The remaining files are checked when they are needed
+        } catch (ExecutionException ex) {
+            Console.except(ex.getCause(), "Exception while checking referenced files:");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether the given file exists.
+     *
+     * @param file the file
+     * @return false if the file is known not to exist, true otherwise
+     */
+    public boolean exists(Path file) {
+        Path key = getKey(file);
+        Boolean result = results.get(key);
+
+        if (result == null) {
+            return check(key);
+        } else {
+            hits.increment();
+            return result;
+        }
+    }
+
+    /**
+     * Writes the answers that were needed in this run to the cache file, if
+     * there is one and anything changed since it was read.
+     */
+    public synchronized void save() {
+        if (cacheFile == null || (!cacheChanged && results.size() == cached.size())) {
+            return;
+        }
+
+        List<String> lines = new ArrayList<>(results.size());
+
+        for (Map.Entry<Path, CachedResult> entry : cached.entrySet()) {
+            if (results.containsKey(entry.getKey())) {
+                CachedResult result = entry.getValue();
+                lines.add(result.directoryTime + "\t" + result.checkTime + "\t" + (result.exists ? 1 : 0) + "\t" + entry.getKey());
+            }
+        }
+
+        try {
+            Files.write(cacheFile, lines, StandardCharsets.UTF_8);
+            cacheChanged = false;
+        } catch (IOException ex) {
+            Console.except(ex, "Could not write the reference cache \"%s\":", cacheFile);
+        }
+    }
+
+    /**
+     * Returns the number of answers that did not require a check.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of files that were checked.
+     *
+     * @return the number of checks
+     */
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    private static Path getKey(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    private boolean check(Path file) {
+        boolean useCache = (cacheFile != null);
+        long directoryTime = -1;
+
+        if (useCache) {
+            directoryTime = getDirectoryTime(file.getParent());
+            CachedResult previous = cached.get(file);
+
+            if (previous != null && previous.isCurrent(directoryTime)) {
+                hits.increment();
+                results.put(file, previous.exists);
+                return previous.exists;
+            }
+        }
+
+        checks.increment();
+        long checkTime = System.currentTimeMillis();
+        boolean exists = !Files.notExists(file);
+        results.put(file, exists);
+
+        if (useCache) {
+            cached.put(file, new CachedResult(directoryTime, checkTime, exists));
+            cacheChanged = true;
+        }
+
+        return exists;
+    }
+
+    /**
+     * Returns the last-modified time of the given directory, or -1 if it does
+     * not exist.
+     */
+    private long getDirectoryTime(Path directory) {
+        if (directory == null) {
+            return -1;
+        }
+
+        return directoryTimes.computeIfAbsent(directory, dir -> {
+            try {
+                return Files.getLastModifiedTime(dir).toMillis();
+            } catch (IOException ex) {
+                return -1L;
+            }
+        });
+    }
+
+    /**
+     * Reads the answers of previous runs from the cache file, if it exists.
+     */
+    private void loadCache() {
+        if (Files.notExists(cacheFile)) {
+            return;
+        }
+
+        try {
+            for (String line : Files.readAllLines(cacheFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", 4);
+
+                if (parts.length == 4) {
+                    try {
+                        cached.put(Paths.get(parts[3]), new CachedResult(Long.parseLong(parts[0]), Long.parseLong(parts[1]), "1".equals(parts[2])));
+                    } catch (NumberFormatException | InvalidPathException ex) {
+                        // Skip the line; the file is checked again
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            Console.except(ex, "Could not read the reference cache \"%s\":", cacheFile);
+        }
+    }
+
+    private static class CachedResult {
+
+        final long directoryTime;
+        final long checkTime;
+        final boolean exists;
+
+        CachedResult(long directoryTime, long checkTime, boolean exists) {
+            this.directoryTime = directoryTime;
+            this.checkTime = checkTime;
+            this.exists = exists;
+        }
+
+        /**
+         * Checks whether this answer still holds for a directory with the
+         * given last-modified time. Changes in the same tick as the check
+         * don't change that time, so the check must have been at least a tick
+         * after the last change.
+         */
+        boolean isCurrent(long directoryTime) {
+            return this.directoryTime == directoryTime && checkTime - directoryTime >= TIME_RESOLUTION;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import publy.data.bibitem.BibItem;
 import publy.data.bibitem.FieldData;
 import publy.data.settings.Settings;
 import publy.io.BibItemWriter;
+import publy.io.GenerationContext;
 
 /**
  *
@@ -35,6 +36,10 @@ public class BibtexBibItemWriter extends BibItemWriter {
         super(out, settings);
     }
 
+    public BibtexBibItemWriter(BufferedWriter out, Settings settings, GenerationContext context) {
+        super(out, settings, context);
+    }
+
     @Override
     public void write(BibItem item) throws IOException {
         // Item type
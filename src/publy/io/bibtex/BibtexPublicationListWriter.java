@@ -25,6 +25,7 @@ import publy.data.bibitem.BibItem;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.Settings;
 import publy.Constants;
+import publy.io.GenerationContext;
 import publy.io.PublicationListWriter;
 
 /**
@@ -40,22 +41,25 @@ public class BibtexPublicationListWriter extends PublicationListWriter {
         super(settings);
     }
 
+    public BibtexPublicationListWriter(Settings settings, GenerationContext context) {
+        super(settings, context);
+    }
+
     @Override
-    protected void writePublicationList(List<Section> sections, BufferedWriter out) throws IOException {
-        itemWriter = new BibtexBibItemWriter(out, settings);
+    protected void writePreamble(List<Section> sections, BufferedWriter out) throws IOException {
+        itemWriter = new BibtexBibItemWriter(out, settings, context);
         count = getInitialCount(sections);
+    }
 
-        // Write the body
-        for (Section s : sections) {
-            writeSection(s, out, 0);
-        }
-
+    @Override
+    protected void writePostamble(List<Section> sections, BufferedWriter out) throws IOException {
         // Credit line and last modified
         out.write("-- Generated by Publy " + Constants.MAJOR_VERSION + "." + Constants.MINOR_VERSION + ".  Last modified on " + (new SimpleDateFormat("d MMMM yyyy")).format(new Date()) + ".");
         out.newLine();
     }
 
-    private void writeSection(Section section, BufferedWriter out, int nestingLevel) throws IOException {
+    @Override
+    protected void writeSectionStart(Section section, List<Section> sections, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException {
         // Reset the count if necessary
         if (settings.getGeneralSettings().getNumbering() == GeneralSettings.Numbering.WITHIN_CATEGORIES) {
             if (settings.getGeneralSettings().isReverseNumbering()) {
@@ -65,34 +69,33 @@ public class BibtexPublicationListWriter extends PublicationListWriter {
             }
         }
 
-        indent(out, 2 * nestingLevel);
+        indent(out, 2 * parents.size());
         out.write("-- " + section.getName() + ".");
         out.newLine();
         out.newLine();
+    }
 
-        for (BibItem item : section.getItems()) {
-            // Write the appropriate number
-            if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.NO_NUMBERS) {
-                out.write("-- " + count + ".");
-                out.newLine();
-
-                if (settings.getGeneralSettings().isReverseNumbering()) {
-                    count--;
-                } else {
-                    count++;
-                }
-            }
-
-            itemWriter.write(item);
-
+    @Override
+    protected void writeItem(BibItem item, BufferedWriter out) throws IOException {
+        // Write the appropriate number
+        if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.NO_NUMBERS) {
+            out.write("-- " + count + ".");
             out.newLine();
-        }
 
-        // Write the sub-sections
-        for (Section subsection : section.getSubsections()) {
-            writeSection(subsection, out, nestingLevel + 1);
+            if (settings.getGeneralSettings().isReverseNumbering()) {
+                count--;
+            } else {
+                count++;
+            }
         }
 
+        context.getFragments().write(itemWriter, item, copy -> new BibtexBibItemWriter(copy, settings, context));
+
+        out.newLine();
+    }
+
+    @Override
+    protected void writeSectionEnd(Section section, List<Section> parents, BufferedWriter out) throws IOException {
         out.newLine();
 
         // Reset the count if necessary
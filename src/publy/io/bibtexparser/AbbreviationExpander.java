@@ -0,0 +1,414 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import publy.Console;
+import publy.data.Author;
+import publy.data.bibitem.BibItem;
+
+/**
+ * Expands the abbreviations in field values, and warns about possible
+ * abbreviation mistakes, in a single scan over each value.
+ * <p>
+ * All abbreviation names are stored in a trie, so that a name can be looked up
+ * while it is scanned, without copying it. The matches are exactly those of
+ * the patterns
+ * <pre>
+ * abbreviation: &lt;&lt;([^&gt;]*)&gt;&gt;
+ * mistake:      (?:^|[^&lt;])&lt;([^&lt;&gt;]*)&gt;(?:$|[^&gt;])|&lt;&lt;([^&lt;&gt;]*)&gt;(?:$|[^&gt;])|(?:^|[^&lt;])&lt;([^&lt;&gt;]*)&gt;&gt;
+ * </pre>
+ * that were used before, found from left to right without overlap.
+ * <p>
+ * An expander reuses its internal buffer, so it must not be shared between
+ * threads.
+ */
+class AbbreviationExpander {
+
+    private final Map<String, String> abbreviations;
+    private final Node root = new Node();
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates an expander for the given abbreviations. Later changes to the
+     * maps are not reflected in the expander.
+     *
+     * @param abbreviations all general abbreviations
+     * @param authors all author abbreviations
+     */
+    AbbreviationExpander(Map<String, String> abbreviations, Map<String, Author> authors) {
+        this.abbreviations = abbreviations;
+
+        for (String name : authors.keySet()) {
+            root.insert(name).defined = true;
+        }
+
+        // General abbreviations take precedence over authors with the same name
+        for (Map.Entry<String, String> entry : abbreviations.entrySet()) {
+            Node node = root.insert(entry.getKey());
+            node.defined = true;
+            node.general = true;
+            node.name = entry.getKey();
+            node.value = entry.getValue();
+        }
+    }
+
+    /**
+     * Expands the abbreviations used in the general abbreviations, and
+     * updates their map. Each abbreviation is expanded once, after all
+     * abbreviations that it uses, regardless of the order of their
+     * definitions. References that would create a cycle are reported and left
+     * unexpanded.
+     */
+    void expandDefinitions() {
+        for (String name : abbreviations.keySet()) {
+            resolve(root.find(name, 0, name.length()));
+        }
+
+        for (Map.Entry<String, String> entry : abbreviations.entrySet()) {
+            entry.setValue(root.find(entry.getKey(), 0, entry.getKey().length()).value);
+        }
+    }
+
+    /**
+     * Expands the given abbreviation and all abbreviations it depends on, in
+     * depth-first post-order. The search uses an explicit stack, as chains of
+     * abbreviations can be very long.
+     */
+    private void resolve(Node start) {
+        if (start.state != State.UNRESOLVED) {
+            return;
+        }
+
+        Deque<Node> path = new ArrayDeque<>();
+        Deque<Iterator<Node>> dependencies = new ArrayDeque<>();
+
+        start.state = State.RESOLVING;
+        path.push(start);
+        dependencies.push(getReferences(start.value).iterator());
+
+        while (!path.isEmpty()) {
+            if (dependencies.peek().hasNext()) {
+                Node dependency = dependencies.peek().next();
+
+                if (dependency.state == State.UNRESOLVED) {
+                    dependency.state = State.RESOLVING;
+                    path.push(dependency);
+                    dependencies.push(getReferences(dependency.value).iterator());
+                } else if (dependency.state == State.RESOLVING) {
+                    reportCycle(path, dependency);
+                }
+            } else {
+                Node node = path.pop();
+                dependencies.pop();
+
+                if (node.value != null && !node.value.isEmpty()) {
+                    node.value = expand(node.value, null, null); // Leaves the references to abbreviations on the path
+                }
+
+                node.state = State.RESOLVED;
+            }
+        }
+    }
+
+    /**
+     * Returns the general abbreviations used in the given text.
+     */
+    private List<Node> getReferences(String text) {
+        List<Node> references = new ArrayList<>();
+
+        if (text == null) {
+            return references;
+        }
+
+        int start = text.indexOf("<<");
+
+        while (start >= 0) {
+            int close = text.indexOf('>', start + 2);
+
+            if (close < 0) {
+                break;
+            } else if (close + 1 < text.length() && text.charAt(close + 1) == '>') {
+                Node node = root.find(text, start + 2, close);
+
+                if (node != null && node.general) {
+                    references.add(node);
+                }
+
+                start = text.indexOf("<<", close + 2);
+            } else {
+                start = text.indexOf("<<", start + 1);
+            }
+        }
+
+        return references;
+    }
+
+    private static void reportCycle(Deque<Node> path, Node repeated) {
+        StringBuilder cycle = new StringBuilder();
+        Iterator<Node> it = path.descendingIterator(); // Outermost first
+        Node node = it.next();
+
+        while (node != repeated) {
+            node = it.next();
+        }
+
+        cycle.append(repeated.name);
+
+        while (it.hasNext()) {
+            cycle.append(" -> ").append(it.next().name);
+        }
+
+        cycle.append(" -> ").append(repeated.name);
+
+        Console.error("Abbreviation \"%s\" is defined in terms of itself (%s). This use is not expanded.", repeated.name, cycle.toString());
+    }
+
+    /**
+     * Expands the abbreviations in all fields of the given publication, and
+     * warns about text that looks like a mistaken abbreviation.
+     *
+     * @param item the publication
+     */
+    void expand(BibItem item) {
+        for (String field : item.getFields()) {
+            String currentValue = item.get(field);
+
+            if (currentValue != null && !currentValue.isEmpty()) {
+                String expanded = expand(currentValue, field, item);
+
+                if (expanded != currentValue) {
+                    item.put(field, expanded);
+                }
+            }
+        }
+    }
+
+    /**
+     * Expands the abbreviations in the given text. If item is not null, this
+     * also warns about possible mistakes in the given field of the item.
+     *
+     * @return the expanded text, or the original text if it contains no
+     * abbreviations
+     */
+    private String expand(String text, String field, BibItem item) {
+        int length = text.length();
+        int copied = 0; // Everything before this has been handled
+        int nextAbbreviation = 0; // Abbreviation matches may not start before this
+        int nextMistake = (item == null ? length : 0); // Mistake matches may not start before this
+        boolean expanded = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            char next = (i + 1 < length ? text.charAt(i + 1) : 0);
+
+            if (c != '<' && next != '<') {
+                continue; // Neither pattern can match here
+            }
+
+            if (i >= nextMistake) {
+                nextMistake = findMistake(text, i, field, item);
+            }
+
+            if (i >= nextAbbreviation && c == '<' && next == '<') {
+                int close = text.indexOf('>', i + 2);
+
+                if (close < 0) {
+                    nextAbbreviation = length; // No further abbreviations
+                } else if (close + 1 < length && text.charAt(close + 1) == '>') {
+                    if (!expanded) {
+                        buffer.setLength(0);
+                        expanded = true;
+                    }
+
+                    buffer.append(text, copied, i);
+                    appendExpansion(text, i + 2, close);
+                    copied = close + 2;
+                    nextAbbreviation = copied;
+                }
+            }
+        }
+
+        if (!expanded) {
+            return text;
+        }
+
+        buffer.append(text, copied, length);
+        return buffer.toString();
+    }
+
+    private void appendExpansion(String text, int start, int end) {
+        Node node = root.find(text, start, end);
+
+        if (node != null && node.general && node.state != State.RESOLVING) {
+            buffer.append(node.value);
+        } else if (node != null && node.general) {
+            buffer.append(text, start - 2, end + 2); // Part of a cycle
+        } else if (node != null && node.defined) {
+            buffer.append(text, start - 2, end + 2); // Leave the author abbreviations
+        } else {
+            Console.error("Abbreviation \"%s\" is used, but never defined.", text.substring(start, end));
+        }
+    }
+
+    /**
+     * Checks whether a mistake match starts at position i, and warns if its
+     * name is a known abbreviation.
+     *
+     * @return the end of the match, or i if there is none
+     */
+    private int findMistake(String text, int i, String field, BibItem item) {
+        int length = text.length();
+        char c = text.charAt(i);
+        int open; // Position of the single '<'
+
+        if (i == 0 && c == '<') {
+            open = 0;
+        } else if (c != '<') {
+            open = i + 1; // The caller checked that this is a '<'
+        } else {
+            open = -1;
+        }
+
+        if (open >= 0) {
+            // (?:^|[^<])<([^<>]*)>(?:$|[^>]) or (?:^|[^<])<([^<>]*)>>
+            int close = endOfName(text, open + 1);
+
+            if (close < length && text.charAt(close) == '>') {
+                int end = (close + 1 == length ? close + 1 : close + 2);
+                warnIfDefined(text, i, end, open + 1, close, field, item);
+                return end;
+            }
+        }
+
+        if (c == '<' && i + 1 < length && text.charAt(i + 1) == '<') {
+            // <<([^<>]*)>(?:$|[^>])
+            int close = endOfName(text, i + 2);
+
+            if (close < length && text.charAt(close) == '>') {
+                if (close + 1 == length) {
+                    warnIfDefined(text, i, close + 1, i + 2, close, field, item);
+                    return close + 1;
+                } else if (text.charAt(close + 1) != '>') {
+                    warnIfDefined(text, i, close + 2, i + 2, close, field, item);
+                    return close + 2;
+                }
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns the position of the first '&lt;' or '&gt;' at or after start,
+     * or the length of the text if there is none.
+     */
+    private static int endOfName(String text, int start) {
+        for (int j = start; j < text.length(); j++) {
+            char c = text.charAt(j);
+
+            if (c == '<' || c == '>') {
+                return j;
+            }
+        }
+
+        return text.length();
+    }
+
+    private void warnIfDefined(String text, int matchStart, int matchEnd, int nameStart, int nameEnd, String field, BibItem item) {
+        Node node = root.find(text, nameStart, nameEnd);
+
+        if (node != null && node.defined) {
+            String abbreviation = text.substring(nameStart, nameEnd);
+            Console.warn(Console.WarningType.POSSIBLE_MISTAKEN_ABBREVIATION, "I found the text \"%s\" in field \"%s\" of publication \"%s\". Did you mean to use an abbreviation (\"%s\") here?", text.substring(matchStart, matchEnd).trim(), field, item.getId(), "<<" + abbreviation + ">>");
+        }
+    }
+
+    private enum State {
+
+        UNRESOLVED, RESOLVING, RESOLVED;
+    }
+
+    private static class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        char[] keys = NO_KEYS; // Sorted
+        Node[] children = NO_CHILDREN;
+        boolean defined = false; // Whether this node ends a general or author abbreviation
+        boolean general = false; // Whether this node ends a general abbreviation
+        String name = null; // The name of the general abbreviation
+        String value = null;
+        State state = State.UNRESOLVED;
+
+        Node insert(String name) {
+            Node node = this;
+
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                int index = Arrays.binarySearch(node.keys, c);
+
+                if (index < 0) {
+                    index = -index - 1;
+                    node.keys = insert(node.keys, index, c);
+                    node.children = insert(node.children, index, new Node());
+                }
+
+                node = node.children[index];
+            }
+
+            return node;
+        }
+
+        /**
+         * Returns the node for text[start, end), or null if no abbreviation
+         * starts with these characters.
+         */
+        Node find(String text, int start, int end) {
+            Node node = this;
+
+            for (int i = start; i < end && node != null; i++) {
+                int index = Arrays.binarySearch(node.keys, text.charAt(i));
+                node = (index < 0 ? null : node.children[index]);
+            }
+
+            return node;
+        }
+
+        private static char[] insert(char[] array, int index, char c) {
+            char[] result = new char[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = c;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        private static Node[] insert(Node[] array, int index, Node node) {
+            Node[] result = new Node[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = node;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+    }
+}
@@ -29,15 +29,50 @@ public class AbbreviationHandler {
 
     // Pattern for detecting an abbreviation
     private static final Pattern abbrPattern = Pattern.compile("<<([^>]*)>>");
-    // Pattern to detect mistakes of the form <abbr>, <<abbr>, or <abbr>>
-    private static final Pattern mistakePattern = Pattern.compile("(?:^|[^<])<([^<>]*)>(?:$|[^>])|<<([^<>]*)>(?:$|[^>])|(?:^|[^<])<([^<>]*)>>");
 
     public static void handleAbbreviationsAndAuthors(List<BibItem> items, Map<String, String> abbreviations, Map<String, Author> authors) {
+        AbbreviationExpander expander = prepareAbbreviations(abbreviations, authors);
+        ValuePool values = new ValuePool();
+
+        for (BibItem item : items) {
+            handleAbbreviationsAndAuthors(item, expander, values, authors);
+        }
+
+        values.reportStatistics();
+    }
+
+    /**
+     * Checks the given abbreviations, and expands the abbreviations used in
+     * them. This must happen once, before any publication is handled by
+     * {@link #handleAbbreviationsAndAuthors(BibItem, AbbreviationExpander, ValuePool, Map)}.
+     *
+     * @param abbreviations all general abbreviations
+     * @param authors all author abbreviations
+     * @return an expander for these abbreviations
+     */
+    static AbbreviationExpander prepareAbbreviations(Map<String, String> abbreviations, Map<String, Author> authors) {
         ensureAbbreviationsAreUnique(abbreviations, authors);
-        expandAbbreviationsInAbbreviations(abbreviations, authors);
-        warnForPossibleAbbreviationMistakes(items, abbreviations, authors);
-        expandAbbreviations(items, abbreviations, authors);
-        replaceAuthorsAndEditors(items, authors);
+
+        AbbreviationExpander expander = new AbbreviationExpander(abbreviations, authors);
+        expander.expandDefinitions();
+        return expander;
+    }
+
+    /**
+     * Expands the abbreviations in a single publication and replaces its
+     * authors and editors. Possible abbreviation mistakes are reported while
+     * the abbreviations are expanded. Finally, values that are equal to those
+     * of earlier publications are replaced by the earlier instance.
+     *
+     * @param item the publication
+     * @param expander the result of {@link #prepareAbbreviations(Map, Map)}
+     * @param values the values of earlier publications in the same parse
+     * @param authors all author abbreviations
+     */
+    static void handleAbbreviationsAndAuthors(BibItem item, AbbreviationExpander expander, ValuePool values, Map<String, Author> authors) {
+        expander.expand(item);
+        replaceAuthorsAndEditors(item, authors, values);
+        values.intern(item);
     }
 
     private static void ensureAbbreviationsAreUnique(Map<String, String> abbreviations, Map<String, Author> authors) {
@@ -66,90 +101,19 @@ public class AbbreviationHandler {
         }
     }
 
-    private static void expandAbbreviationsInAbbreviations(Map<String, String> abbreviations, Map<String, Author> authors) {
-        for (Map.Entry<String, String> entry : abbreviations.entrySet()) {
-            String fullText = entry.getValue();
-
-            if (fullText != null && !fullText.isEmpty()) {
-                entry.setValue(expandAbbreviations(fullText, abbreviations, authors));
-            }
-        }
-    }
-
-    private static void expandAbbreviations(List<BibItem> items, Map<String, String> abbreviations, Map<String, Author> authors) {
-        for (BibItem item : items) {
-            for (String field : item.getFields()) {
-                String currentValue = item.get(field);
-
-                if (currentValue != null && !currentValue.isEmpty()) {
-                    item.put(field, expandAbbreviations(currentValue, abbreviations, authors));
-                }
-            }
+    private static void replaceAuthorsAndEditors(BibItem item, Map<String, Author> authors, ValuePool values) {
+        String author = item.get("author");
+        if (author != null && !author.isEmpty()) {
+            item.put("author", replaceAuthors(author, authors, values, item.getAuthors()));
         }
-    }
-
-    private static void warnForPossibleAbbreviationMistakes(List<BibItem> items, Map<String, String> abbreviations, Map<String, Author> authors) {
-        for (BibItem item : items) {
-            for (String field : item.getFields()) {
-                String currentValue = item.get(field);
-
-                if (currentValue != null && !currentValue.isEmpty()) {
-                    Matcher matcher = mistakePattern.matcher(currentValue);
 
-                    while (matcher.find()) {
-                        // This is in the only non-null group
-                        String abbreviation = (matcher.group(1) != null ? matcher.group(1) : (matcher.group(2) != null ? matcher.group(2) : matcher.group(3)));
-
-                        if (abbreviations.containsKey(abbreviation) || authors.containsKey(abbreviation)) {
-                            Console.warn(Console.WarningType.POSSIBLE_MISTAKEN_ABBREVIATION, "I found the text \"%s\" in field \"%s\" of publication \"%s\". Did you mean to use an abbreviation (\"%s\") here?", matcher.group().trim(), field, item.getId(), "<<" + abbreviation + ">>");
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    private static String expandAbbreviations(String currentValue, Map<String, String> abbreviations, Map<String, Author> authors) {
-        StringBuilder finalValue = new StringBuilder();
-        Matcher matcher = abbrPattern.matcher(currentValue);
-        int prevEnd = 0;
-
-        while (matcher.find()) {
-            finalValue.append(currentValue.substring(prevEnd, matcher.start()));
-
-            String abbreviation = matcher.group(1);
-
-            if (abbreviations.containsKey(abbreviation)) {
-                finalValue.append(abbreviations.get(abbreviation));
-            } else if (authors.containsKey(abbreviation)) {
-                finalValue.append("<<").append(abbreviation).append(">>"); // Leave the author abbreviations
-            } else {
-                Console.error("Abbreviation \"%s\" is used, but never defined.", abbreviation);
-            }
-
-            prevEnd = matcher.end();
-        }
-
-        finalValue.append(currentValue.substring(prevEnd, currentValue.length()));
-
-        return finalValue.toString();
-    }
-
-    private static void replaceAuthorsAndEditors(List<BibItem> items, Map<String, Author> authors) {
-        for (BibItem item : items) {
-            String author = item.get("author");
-            if (author != null && !author.isEmpty()) {
-                item.put("author", replaceAuthors(author, authors, item.getAuthors()));
-            }
-
-            String editor = item.get("editor");
-            if (editor != null && !editor.isEmpty()) {
-                item.put("editor", replaceAuthors(item.get("editor"), authors, item.getEditors()));
-            }
+        String editor = item.get("editor");
+        if (editor != null && !editor.isEmpty()) {
+            item.put("editor", replaceAuthors(item.get("editor"), authors, values, item.getEditors()));
         }
     }
 
-    private static String replaceAuthors(String fieldValue, Map<String, Author> authors, List<Author> authorList) {
+    private static String replaceAuthors(String fieldValue, Map<String, Author> authors, ValuePool values, List<Author> authorList) {
         String[] names = fieldValue.split("\\s+[aA][nN][dD]\\s+"); // " and ", ignoring case
 
         for (String name : names) {
@@ -165,7 +129,7 @@ public class AbbreviationHandler {
                 }
             } else {
                 if (!name.trim().isEmpty()) {
-                    authorList.add(new Author(name));
+                    authorList.add(values.getAuthor(name));
                 }
             }
         }
@@ -17,41 +17,75 @@ package publy.io.bibtexparser;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StreamTokenizer;
-import java.util.regex.Pattern;
 import publy.data.Pair;
 import publy.data.bibitem.BibItem;
 
+/**
+ * Parses BibTeX entries from a {@link Lexer}.
+ * <p>
+ * Each parser only uses its own lexer, so separate instances can be used
+ * concurrently from different threads. A single instance is not thread-safe.
+ */
 public class BibItemParser {
 
-    private static final int[] SPECIAL_CHARACTERS = new int[]{
-        '{', // Entry delimiters {...}
-        '}',
-        '(', // Entry delimiters (...)
-        ')',
-        ',', // Field separator
-        '=', // Field-value separator
-        '"', // Value delimiter "..."
-        '#' // String concatenation
-    };
-    private static final int MAX_RESET = 6000000; // ~12MB, Easily accomodates largest bib file I've found
-    private static final Pattern number = Pattern.compile("(\\d)+");
-    private static Tokenizer tokenizer;
+    private static final boolean[] SPECIAL_CHARACTERS = Lexer.specialCharacterTable(
+            '{', // Entry delimiters {...}
+            '}',
+            '(', // Entry delimiters (...)
+            ')',
+            ',', // Field separator
+            '=', // Field-value separator
+            '"', // Value delimiter "..."
+            '#' // String concatenation
+    );
+    private final Lexer lexer;
+    private final StringBuilder value = new StringBuilder(); // Reused for all field values
+    private int closingDelimiter; // The character that closes the body of the current entry, or 0 if the body has not been opened yet
 
+    /**
+     * Parses a single BibTeX entry, starting just after its '@'.
+     * <p>
+     * The input is buffered, so the reader should not be used for anything
+     * else afterwards.
+     *
+     * @param in the input
+     * @return the number of lines spanned by the entry, and the parsed item
+     * @throws IOException
+     * @throws ParseException
+     */
     public static Pair<Integer, BibItem> parseBibItem(Reader in) throws IOException, ParseException {
-        if (in.markSupported()) {
-            in.mark(MAX_RESET);
-        }
+        return new BibItemParser(new Lexer(in)).parseBibItem();
+    }
+
+    /**
+     * Creates a parser that reads entries from the given lexer.
+     *
+     * @param lexer the input
+     */
+    public BibItemParser(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    /**
+     * Parses a single BibTeX entry, starting just after its '@'. If the entry
+     * cannot be parsed, the remainder of its body is skipped, as described in
+     * {@link Lexer#recover(int)}.
+     *
+     * @return the number of lines spanned by the entry, and the parsed item
+     * @throws IOException
+     * @throws ParseException
+     */
+    public Pair<Integer, BibItem> parseBibItem() throws IOException, ParseException {
+        lexer.setSpecialCharacters(SPECIAL_CHARACTERS);
 
-        tokenizer = new Tokenizer(in);
-        tokenizer.setSpecialCharacters(SPECIAL_CHARACTERS);
+        int startLine = lexer.getLineNumber();
+        closingDelimiter = 0;
 
         BibItem result = null;
-        int extraNewLines = 0;
-        
+
         try {
-            tokenizer.match(StreamTokenizer.TT_WORD);
-            String type = tokenizer.getLastTokenAsString().toLowerCase();
+            lexer.match(Lexer.WORD);
+            String type = lexer.getTokenTextLowerCase();
 
             switch (type) {
                 case "comment":
@@ -64,17 +98,15 @@ public class BibItemParser {
                     result = parseString();
                     break;
                 default:
-                    Pair<Integer, BibItem> pub = parsePublication(type);
-                    extraNewLines = pub.getFirst();
-                    result = pub.getSecond();
+                    result = parsePublication(type);
                     break;
             }
-        } catch (ParseException ex) { // Do not reset upon IOException, as that is likely to be unrecoverable
-            if (in.markSupported()) {
-                in.reset();
+        } catch (ParseException ex) { // Do not recover from IOException, as that is likely to be unrecoverable
+            ex.setLineNumber(lexer.getLineNumber() - startLine + 1);
+
+            if (closingDelimiter != 0) {
+                lexer.recover(closingDelimiter);
             }
-            
-            ex.setLineNumber(tokenizer.lineno());
 
             if (ex.getType() == null || ex.getType().isEmpty()) {
                 ex.setType("entry");
@@ -82,8 +114,8 @@ public class BibItemParser {
 
             throw ex;
         }
-        
-        return new Pair<>(tokenizer.lineno() + extraNewLines, result);
+
+        return new Pair<>(lexer.getLineNumber() - startLine + 1, result);
     }
 
     /**
@@ -93,29 +125,25 @@ public class BibItemParser {
      * @throws ParseException
      * @throws IOException
      */
-    private static BibItem parseString() throws ParseException, IOException {
+    private BibItem parseString() throws ParseException, IOException {
         // <string> ::= "(" <short> "=" <value> ")" | "{" <short> "=" <value> "}"
         String shortName = null;
 
         try {
-            int bracket = tokenizer.match('{', '(');
+            openBody();
 
-            tokenizer.match(StreamTokenizer.TT_WORD);
-            shortName = tokenizer.getLastTokenAsString();
+            shortName = lexer.matchWord();
 
-            tokenizer.match('=');
+            lexer.match('=');
 
-            String fullText = parseValue();
+            value.setLength(0);
+            parseValue(false);
 
-            if (bracket == '{') {
-                tokenizer.match('}');
-            } else {
-                tokenizer.match(')');
-            }
+            lexer.match(closingDelimiter);
 
             BibItem result = new BibItem("string", null);
             result.put("short", shortName);
-            result.put("full", fullText);
+            result.put("full", value.toString());
 
             return result;
         } catch (ParseException pe) {
@@ -136,36 +164,25 @@ public class BibItemParser {
      * @return
      * @throws ParseException
      */
-    private static Pair<Integer, BibItem> parsePublication(String type) throws ParseException, IOException {
+    private BibItem parsePublication(String type) throws ParseException, IOException {
         // <body> ::= "{" <id> ("," <field>)* "}" | "(" <id> ("," <field>)* ")"
         String id = null;
 
         try {
-            int fieldBodyNewLines = 0;
-            int bracket = tokenizer.match('{', '(');
+            openBody();
 
-            tokenizer.match(StreamTokenizer.TT_WORD);
-            id = tokenizer.getLastTokenAsString();
+            id = lexer.matchWord();
 
             BibItem result = new BibItem(type, id);
 
-            while (tokenizer.nextTokenIs(',')) {
-                tokenizer.match(',');
-                Pair<String, String> field = parseField();
-
-                if (field != null) {
-                    fieldBodyNewLines += countNewLines(field.getSecond());
-                    result.put(field.getFirst(), normalizeValue(field.getSecond()));
-                }
+            while (lexer.peekToken() == ',') {
+                lexer.match(',');
+                parseField(result);
             }
 
-            if (bracket == '{') {
-                tokenizer.match(',', '}'); // this won't be a comma ',', but including it here makes the error message much clearer
-            } else {
-                tokenizer.match(',', ')');
-            }
+            lexer.match(',', closingDelimiter); // this won't be a comma ',', but including it here makes the error message much clearer
 
-            return new Pair<>(fieldBodyNewLines, result);
+            return result;
         } catch (ParseException pe) {
             pe.setType('@' + type + " entry");
 
@@ -177,101 +194,72 @@ public class BibItemParser {
         }
     }
 
-    private static Pair<String, String> parseField() throws IOException, ParseException {
+    private void openBody() throws IOException, ParseException {
+        int bracket = lexer.match('{', '(');
+        closingDelimiter = (bracket == '{' ? '}' : ')');
+    }
+
+    private void parseField(BibItem item) throws IOException, ParseException {
         // <field> ::= (<name> "=" <value>)?
-        if (tokenizer.nextTokenIs(StreamTokenizer.TT_WORD)) {
-            tokenizer.match(StreamTokenizer.TT_WORD);
-            String name = tokenizer.getLastTokenAsString().toLowerCase();
+        if (lexer.peekToken() == Lexer.WORD) {
+            lexer.match(Lexer.WORD);
+            String name = lexer.getTokenTextLowerCase();
 
-            tokenizer.match('=');
+            lexer.match('=');
 
-            return new Pair<>(name, parseValue());
-        } else {
-            return null;
+            value.setLength(0);
+            parseValue(true);
+            Lexer.trimEnd(value);
+
+            item.put(name, value.toString());
         }
     }
 
-    private static String parseValue() throws IOException, ParseException {
+    /**
+     * Parses a value and appends it to {@link #value}.
+     *
+     * @param normalize whether whitespace should be collapsed, as in
+     * {@link Lexer#appendTokenTextNormalized(StringBuilder)}
+     * @throws IOException
+     * @throws ParseException
+     */
+    private void parseValue(boolean normalize) throws IOException, ParseException {
         // <value> ::= (<simple-value> ("#" <simple-value>)*)?
-        if (tokenizer.nextTokenIs(StreamTokenizer.TT_WORD, '{', '"')) {
-            StringBuilder value = new StringBuilder(parseSimpleValue());
+        int token = lexer.peekToken();
 
-            while (tokenizer.nextTokenIs('#')) {
-                tokenizer.match('#');
-                value.append(parseSimpleValue());
-            }
+        if (token == Lexer.WORD || token == '{' || token == '"') {
+            parseSimpleValue(normalize);
 
-            return value.toString();
-        } else {
-            return "";
+            while (lexer.peekToken() == '#') {
+                lexer.match('#');
+                parseSimpleValue(normalize);
+            }
         }
     }
 
-    private static String parseSimpleValue() throws IOException, ParseException {
+    private void parseSimpleValue(boolean normalize) throws IOException, ParseException {
         // <simple-value> ::= <abbreviation> | <number> | "{" <braced-value> "}" | "\"" <quoted-value> "\""
-        int token = tokenizer.match(StreamTokenizer.TT_WORD, '{', '"');
-
-        if (token == StreamTokenizer.TT_WORD) {
-            String value = tokenizer.getLastTokenAsString();
+        // <braced-value> ::= (word | nonBraceSpecialChars | "{" <braced-value> "}")*
+        // <quoted-value> ::= (word | nonBraceAndQuoteSpecialChars | "{" <braced-value> "}")*
+        int token = lexer.match(Lexer.WORD, '{', '"');
 
-            if (isNumeric(value)) {
-                return value;
+        if (token == Lexer.WORD) {
+            if (lexer.isTokenNumeric()) {
+                lexer.appendTokenText(value);
             } else {
-                return "<<" + value + ">>";
+                value.append("<<");
+                lexer.appendTokenText(value);
+                value.append(">>");
             }
         } else {
-            tokenizer.setWhiteSpaceMatters(true);
-            String value = parseDelimitedValue(token);
-            tokenizer.setWhiteSpaceMatters(false);
+            lexer.scanDelimitedValue(token);
 
-            if (token == '{') {
-                tokenizer.match('}');
+            if (normalize) {
+                lexer.appendTokenTextNormalized(value);
             } else {
-                tokenizer.match('"');
-            }
-
-            return value;
-        }
-    }
-
-    private static String parseDelimitedValue(int delimiter) throws IOException, ParseException {
-        // <braced-value> ::= (word | nonBraceSpecialChars | "{" <braced-value> "}")*
-        // <quoted-value> ::= (word | nonBraceAndQuoteSpecialChars | "{" <braced-value> "}")*
-        int[] wordCharacters = (delimiter == '{'
-                ? new int[]{StreamTokenizer.TT_WORD, '(', ')', ',', '#', '=', '{', '"'}
-                : new int[]{StreamTokenizer.TT_WORD, '(', ')', ',', '#', '=', '{'});
-
-        StringBuilder value = new StringBuilder();
-
-        while (tokenizer.nextTokenIs(wordCharacters)) {
-            int token = tokenizer.match(wordCharacters);
-            value.append(tokenizer.getLastTokenAsString());
-
-            if (token == '{') {
-                value.append(parseDelimitedValue('{'));
-                tokenizer.match('}');
-                value.append('}');
+                lexer.appendTokenText(value);
             }
         }
-
-        return value.toString();
-    }
-
-    private static boolean isNumeric(String input) {
-        return number.matcher(input).matches();
     }
 
-    private static String normalizeValue(String value) {
-        return value.replaceAll("\\s+", " ").trim();
-    }
-    
-    private static int countNewLines(String value) {
-        // (value + " ") so that it counts newlines on the end of value
-        // "\r?\n|\r" matches \r\n, \n, and \r
-        // - 1, because we only care about new lines, not the current one
-        return (value + " ").split("\r?\n|\r").length - 1;
-    }
-
-    private BibItemParser() {
-    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits UTF-8 encoded BibTeX input into chunks that can be parsed
+ * independently.
+ * <p>
+ * Chunks start at an '@' that is the first non-whitespace character on its
+ * line and is not enclosed in braces. If no such '@' is found for a long
+ * time, because of unbalanced braces in the input, the enclosing braces are
+ * ignored. This is a cheap estimate of where the list parser would start a
+ * new entry: it is usually right, but a chunk can still end in the middle of
+ * an entry (for example an entry delimited by parentheses). Callers must
+ * detect this, see
+ * {@link Lexer#hasReachedEnd()}.
+ * <p>
+ * All characters that matter here are ASCII, and UTF-8 never uses ASCII bytes
+ * inside multi-byte sequences, so the bytes can be scanned without decoding.
+ */
+class ChunkSplitter {
+
+    /**
+     * A range of the input that starts at the beginning of a line.
+     */
+    static class Chunk {
+
+        final int start; // Index of the first byte
+        final int end; // Index after the last byte
+        final int firstLineNumber;
+
+        Chunk(int start, int end, int firstLineNumber) {
+            this.start = start;
+            this.end = end;
+            this.firstLineNumber = firstLineNumber;
+        }
+    }
+
+    /**
+     * Splits the remaining bytes of the given buffer into chunks of at least
+     * the given size. Only the last chunk may be smaller.
+     *
+     * @param input the input, which is not modified
+     * @param minimumSize the minimum number of bytes per chunk
+     * @return the chunks, in order
+     */
+    static List<Chunk> split(ByteBuffer input, int minimumSize) {
+        List<Chunk> chunks = new ArrayList<>();
+
+        int chunkStart = input.position();
+        int chunkLineNumber = 1;
+        int lineNumber = 1;
+        int depth = 0;
+        boolean lineStart = true;
+        boolean afterCarriageReturn = false;
+
+        for (int i = input.position(); i < input.limit(); i++) {
+            byte b = input.get(i);
+
+            if (b == '\n') {
+                if (!afterCarriageReturn) {
+                    lineNumber++;
+                }
+
+                afterCarriageReturn = false;
+                lineStart = true;
+                continue;
+            } else if (b == '\r') {
+                lineNumber++;
+                afterCarriageReturn = true;
+                lineStart = true;
+                continue;
+            }
+
+            afterCarriageReturn = false;
+
+            if (b == '@') {
+                // A single unbalanced brace would otherwise prevent all further splits
+                if (lineStart && i - chunkStart >= minimumSize && (depth == 0 || i - chunkStart >= 2 * minimumSize)) {
+                    chunks.add(new Chunk(chunkStart, i, chunkLineNumber));
+                    chunkStart = i;
+                    chunkLineNumber = lineNumber;
+                    depth = 0;
+                }
+            } else if (b == '{') {
+                depth++;
+            } else if (b == '}') {
+                // Unmatched closing braces outside entries are ignored by the parser
+                depth = Math.max(0, depth - 1);
+            }
+
+            if (b < 0 || b > ' ') { // Bytes of multi-byte characters are negative
+                lineStart = false;
+            }
+        }
+
+        chunks.add(new Chunk(chunkStart, input.limit(), chunkLineNumber));
+        return chunks;
+    }
+
+    private ChunkSplitter() {
+    }
+}
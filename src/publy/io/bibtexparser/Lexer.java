@@ -0,0 +1,714 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single-pass lexer for BibTeX files and Publy tags.
+ * <p>
+ * The lexer reads its input into a character buffer and scans it directly.
+ * The input is either a Reader, or UTF-8 encoded bytes (for example a
+ * file that was read into memory) that are decoded straight into the buffer as the lexer
+ * advances.
+ * Words and delimited values are not copied when they are scanned: they are
+ * described by their offsets in the buffer, and only turned into Strings
+ * (or appended to a builder) when the parser decides to keep them. The
+ * text of the last token is only available until the next call to
+ * {@link #read()}, {@link #peekToken()}, or any method that consumes a token.
+ * <p>
+ * Whitespace consists of all characters up to and including ' '. Which other
+ * characters form a token by themselves depends on the context, and is set
+ * through {@link #setSpecialCharacters(boolean[])}. All other characters are
+ * part of words.
+ * <p>
+ * The lexer keeps track of the line number of the current position. A line
+ * ends with "\r\n", "\n", or "\r".
+ * <p>
+ * The lexer never backtracks over input that it has consumed. After a parse
+ * error, {@link #recover(int)} skips ahead to a point where parsing can
+ * resume, so the buffer only needs to hold the token that is being scanned.
+ */
+public class Lexer {
+
+    /**
+     * Token type returned when the end of the input has been reached.
+     */
+    public static final int EOF = -1;
+    /**
+     * Token type returned for a word: a maximal sequence of characters that
+     * are neither whitespace nor special.
+     */
+    public static final int WORD = -2;
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final boolean[] NO_SPECIAL_CHARACTERS = new boolean[0];
+
+    private final Reader in;
+    private final ByteBuffer bytes; // Undecoded input, if the lexer does not read from a Reader
+    private final CharsetDecoder decoder;
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int position = 0; // Index of the next character to read
+    private int limit = 0; // Number of valid characters in the buffer
+    private boolean endOfInput = false; // Whether the reader or byte buffer has no more input
+    private boolean reachedEnd = false; // Whether the lexer tried to read beyond the end of the input
+    private int lineNumber = 1;
+    private boolean afterCarriageReturn = false; // Whether the last consumed character was '\r', so that "\r\n" counts as one line break
+    private boolean atLineStart = true; // Whether only whitespace was consumed since the last line break
+    private boolean[] special = NO_SPECIAL_CHARACTERS;
+    // The last token
+    private int tokenType = EOF;
+    private int tokenStart = -1; // Index of the first character of the token text, or -1 if the buffer need not preserve it
+    private int tokenEnd = -1;
+    // The last consumed token, if it was a word, for use by recover
+    private int wordStart = -1;
+    private int wordLineNumber;
+    private boolean wordAtLineStart;
+
+    public Lexer(Reader in) {
+        this.in = in;
+        bytes = null;
+        decoder = null;
+    }
+
+    /**
+     * Creates a lexer for the remaining UTF-8 encoded bytes of the given
+     * buffer. Only the part of the input around the current position is
+     * decoded at any time. Malformed input is reported as a
+     * {@link java.nio.charset.MalformedInputException}, just like
+     * {@link java.nio.file.Files#newBufferedReader(java.nio.file.Path, java.nio.charset.Charset)}
+     * does.
+     *
+     * @param input the input, which is consumed by the lexer
+     * @param firstLineNumber the line number of the first character
+     */
+    public Lexer(ByteBuffer input, int firstLineNumber) {
+        in = null;
+        bytes = input;
+        decoder = StandardCharsets.UTF_8.newDecoder();
+        lineNumber = firstLineNumber;
+    }
+
+    /**
+     * Creates a lookup table for the given special characters, to be used
+     * with {@link #setSpecialCharacters(boolean[])}.
+     *
+     * @param specialCharacters the characters that should always form a token
+     * by themselves
+     * @return the lookup table
+     */
+    public static boolean[] specialCharacterTable(int... specialCharacters) {
+        int max = 0;
+
+        for (int c : specialCharacters) {
+            max = Math.max(max, c);
+        }
+
+        boolean[] table = new boolean[max + 1];
+
+        for (int c : specialCharacters) {
+            table[c] = true;
+        }
+
+        return table;
+    }
+
+    /**
+     * Sets the characters that always form a token by themselves.
+     *
+     * @param specialCharacterTable a lookup table created by
+     * {@link #specialCharacterTable(int...)}
+     */
+    public void setSpecialCharacters(boolean[] specialCharacterTable) {
+        special = specialCharacterTable;
+    }
+
+    /**
+     * Gets the line number of the current position, starting at 1.
+     *
+     * @return the current line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Reads and consumes the next character.
+     *
+     * @return the next character, or {@link #EOF} if the end of the input has
+     * been reached
+     * @throws IOException
+     */
+    public int read() throws IOException {
+        tokenStart = -1;
+        wordStart = -1;
+
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+
+        char c = buffer[position++];
+        countLineBreak(c);
+        return c;
+    }
+
+    /**
+     * Checks whether the lexer ever needed to look beyond the end of the
+     * input. This is true once {@link #read()} returns {@link #EOF}, but also
+     * if a token or value was cut off by the end of the input.
+     *
+     * @return true if the lexer tried to read past the end of the input
+     */
+    public boolean hasReachedEnd() {
+        return reachedEnd;
+    }
+
+    /**
+     * Skips whitespace and returns the type of the next token, without
+     * consuming it.
+     *
+     * @return {@link #EOF}, {@link #WORD}, or the special character that
+     * forms the next token
+     * @throws IOException
+     */
+    public int peekToken() throws IOException {
+        tokenStart = -1;
+        skipWhitespace();
+
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+
+        char c = buffer[position];
+        return (isSpecial(c) ? c : WORD);
+    }
+
+    /**
+     * Consumes the next token.
+     *
+     * @return {@link #EOF}, {@link #WORD}, or the special character that
+     * formed the token
+     * @throws IOException
+     */
+    public int nextToken() throws IOException {
+        int token = peekToken();
+
+        if (token == WORD) {
+            wordLineNumber = lineNumber;
+            wordAtLineStart = atLineStart;
+            scanWord();
+            wordStart = tokenStart;
+        } else {
+            wordStart = -1;
+
+            if (token != EOF) {
+                position++;
+                consumedVisibleCharacter(); // Special characters are never whitespace
+            }
+        }
+
+        tokenType = token;
+        return token;
+    }
+
+    /**
+     * Consumes the next token and checks whether it matches any of the given
+     * types. If it does not, the token is not consumed.
+     *
+     * @param types the token types to accept
+     * @return the type of the consumed token
+     * @throws ParseException If the next token is not among the given types.
+     * @throws IOException
+     */
+    public int match(int... types) throws ParseException, IOException {
+        int token = peekToken();
+
+        for (int type : types) {
+            if (type == token) {
+                return nextToken();
+            }
+        }
+
+        if (token == WORD) {
+            // Determine the extent of the word for the error message, without consuming it
+            boolean lineStart = atLineStart;
+            scanWord();
+            position = tokenStart;
+            atLineStart = lineStart;
+        }
+
+        tokenType = token;
+        throw unexpectedToken(types);
+    }
+
+    /**
+     * Consumes the next token and checks that it is a word.
+     *
+     * @return the text of the word
+     * @throws ParseException If the next token is not a word.
+     * @throws IOException
+     */
+    public String matchWord() throws ParseException, IOException {
+        match(WORD);
+        return getTokenText();
+    }
+
+    /**
+     * Consumes the body of a value delimited by braces or quotes, whose
+     * opening delimiter has just been consumed, including its closing
+     * delimiter. Braces inside the value must be balanced; a quote only closes
+     * a quoted value when it is not enclosed in braces.
+     * <p>
+     * The body of the value (without delimiters) becomes the text of the
+     * current token.
+     *
+     * @param delimiter the opening delimiter: '{' or '"'
+     * @throws ParseException If the value is not closed properly.
+     * @throws IOException
+     */
+    public void scanDelimitedValue(int delimiter) throws ParseException, IOException {
+        tokenStart = position;
+        wordStart = -1;
+        int depth = 0;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                throw unexpectedEndOfValue(delimiter);
+            }
+
+            char c = buffer[position];
+
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (depth == 0) {
+                    if (delimiter == '{') {
+                        break;
+                    } else {
+                        throw unexpectedEndOfValue(delimiter);
+                    }
+                }
+
+                depth--;
+            } else if (c == '"' && depth == 0 && delimiter == '"') {
+                break;
+            }
+
+            countLineBreak(c);
+            position++;
+        }
+
+        tokenEnd = position;
+        position++; // Consume the closing delimiter
+        consumedVisibleCharacter();
+        tokenType = delimiter;
+    }
+
+    /**
+     * Consumes everything up to, and including, the next occurrence of the
+     * given character. The text before it becomes the text of the current
+     * token.
+     *
+     * @param end the character to scan to
+     * @throws ParseException If the end of the input is reached first.
+     * @throws IOException
+     */
+    public void scanUntil(char end) throws ParseException, IOException {
+        tokenStart = position;
+        wordStart = -1;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                tokenEnd = position;
+                tokenType = EOF;
+                throw unexpectedToken(end);
+            }
+
+            char c = buffer[position];
+
+            if (c == end) {
+                break;
+            }
+
+            countLineBreak(c);
+            position++;
+        }
+
+        tokenEnd = position;
+        countLineBreak(end);
+        position++;
+        tokenType = end;
+    }
+
+    /**
+     * Skips the remainder of an entry or tag that could not be parsed, so that
+     * parsing can resume after it. Skipping stops after the given closing
+     * delimiter, if it is not enclosed in braces, or just before an '@' or '<'
+     * at the start of a line, as that most likely begins the next entry or
+     * tag.
+     * <p>
+     * If the last consumed token was a word, skipping starts at that word
+     * instead. This way an entry whose closing brace is missing does not hide
+     * the next entry, whose type would have been read as a field name.
+     *
+     * @param closingDelimiter the character that closes the entry or tag
+     * @throws IOException
+     */
+    public void recover(int closingDelimiter) throws IOException {
+        if (wordStart >= 0) {
+            position = wordStart;
+            lineNumber = wordLineNumber;
+            atLineStart = wordAtLineStart;
+            afterCarriageReturn = false; // Words do not start with a line break
+            wordStart = -1;
+        }
+
+        tokenStart = -1;
+        int depth = 0;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+
+            char c = buffer[position];
+
+            if (atLineStart && (c == '@' || c == '<')) {
+                return;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && depth > 0) {
+                depth--;
+            } else if (c == closingDelimiter && depth == 0) {
+                position++;
+                consumedVisibleCharacter();
+                return;
+            }
+
+            countLineBreak(c);
+            position++;
+        }
+    }
+
+    /**
+     * Gets the text of the last word or scanned value.
+     *
+     * @return the token text
+     */
+    public String getTokenText() {
+        return new String(buffer, tokenStart, tokenEnd - tokenStart);
+    }
+
+    /**
+     * Gets the text of the last word or scanned value, converted to lower
+     * case.
+     *
+     * @return the token text in lower case
+     */
+    public String getTokenTextLowerCase() {
+        int length = tokenEnd - tokenStart;
+        char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            char c = buffer[tokenStart + i];
+
+            if (c >= 128) {
+                // Leave non-ASCII case mapping to the String class
+                return getTokenText().toLowerCase();
+            }
+
+            chars[i] = (c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Checks whether the last word or scanned value consists entirely of
+     * digits.
+     *
+     * @return true if the token text is a non-empty sequence of digits
+     */
+    public boolean isTokenNumeric() {
+        if (tokenEnd == tokenStart) {
+            return false;
+        }
+
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Appends the text of the last word or scanned value to the given
+     * builder.
+     *
+     * @param sb the builder to append to
+     */
+    public void appendTokenText(StringBuilder sb) {
+        sb.append(buffer, tokenStart, tokenEnd - tokenStart);
+    }
+
+    /**
+     * Appends the text of the last word or scanned value to the given
+     * builder, replacing each run of whitespace by a single space, and
+     * omitting control characters and spaces at the start of the builder.
+     * Call {@link #trimEnd(StringBuilder)} after appending the last part of a
+     * value to complete the equivalent of
+     * {@code value.replaceAll("\\s+", " ").trim()}.
+     *
+     * @param sb the builder to append to
+     */
+    public void appendTokenTextNormalized(StringBuilder sb) {
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            char c = buffer[i];
+
+            if (sb.length() == 0) {
+                if (c > ' ') {
+                    sb.append(c);
+                }
+            } else if (isRegexWhitespace(c)) {
+                if (sb.charAt(sb.length() - 1) != ' ') {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Removes all trailing whitespace and control characters from the given
+     * builder.
+     *
+     * @param sb the builder to trim
+     */
+    public static void trimEnd(StringBuilder sb) {
+        int length = sb.length();
+
+        while (length > 0 && sb.charAt(length - 1) <= ' ') {
+            length--;
+        }
+
+        sb.setLength(length);
+    }
+
+    /**
+     * Gets a description of the last token, for use in error messages.
+     *
+     * @return a description of the last token
+     */
+    public String getLastTokenAsString() {
+        switch (tokenType) {
+            case EOF:
+                return "EOF (end of file)";
+            case WORD:
+                return getTokenText();
+            default:
+                return Character.toString((char) tokenType);
+        }
+    }
+
+    private void scanWord() throws IOException {
+        tokenStart = position;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                break;
+            }
+
+            char c = buffer[position];
+
+            if (c <= ' ' || isSpecial(c)) {
+                break;
+            }
+
+            position++;
+        }
+
+        tokenEnd = position;
+        consumedVisibleCharacter(); // Words are never empty and contain no whitespace
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+
+            char c = buffer[position];
+
+            if (c > ' ') {
+                return;
+            }
+
+            countLineBreak(c);
+            position++;
+        }
+    }
+
+    private boolean isSpecial(char c) {
+        return c < special.length && special[c];
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        // The characters matched by \s
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private void countLineBreak(char c) {
+        if (c == '\n') {
+            if (!afterCarriageReturn) {
+                lineNumber++;
+            }
+
+            afterCarriageReturn = false;
+            atLineStart = true;
+        } else if (c == '\r') {
+            lineNumber++;
+            afterCarriageReturn = true;
+            atLineStart = true;
+        } else {
+            afterCarriageReturn = false;
+
+            if (c > ' ') {
+                atLineStart = false;
+            }
+        }
+    }
+
+    private void consumedVisibleCharacter() {
+        afterCarriageReturn = false;
+        atLineStart = false;
+    }
+
+    /**
+     * Reads more input into the buffer. Input before the current position is
+     * discarded, unless it belongs to the token being scanned or to the last
+     * word (see {@link #recover(int)}).
+     *
+     * @return true if more input is available, false if the end of the input
+     * has been reached
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            reachedEnd = true;
+            return false;
+        }
+
+        int keep = position;
+
+        if (wordStart >= 0) {
+            keep = Math.min(keep, wordStart);
+        }
+
+        if (tokenStart >= 0) {
+            keep = Math.min(keep, tokenStart);
+        }
+
+        if (keep > 0) {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+            limit -= keep;
+            position -= keep;
+
+            if (wordStart >= 0) {
+                wordStart -= keep;
+            }
+
+            if (tokenStart >= 0) {
+                tokenStart -= keep;
+            }
+        }
+
+        if (buffer.length - limit < 2) { // Decoding a supplementary character needs room for its surrogate pair
+            char[] larger = new char[2 * buffer.length];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+
+        int read = (in == null ? decode() : in.read(buffer, limit, buffer.length - limit));
+
+        if (read <= 0) {
+            // Readers only return 0 for a zero-length request, and the decoder only when all bytes have been decoded
+            endOfInput = true;
+            reachedEnd = true;
+            return false;
+        }
+
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Decodes as many bytes as fit into the free part of the buffer.
+     *
+     * @return the number of characters that were added to the buffer
+     * @throws IOException if the input is not valid UTF-8
+     */
+    private int decode() throws IOException {
+        CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+        CoderResult result = decoder.decode(bytes, out, true);
+
+        if (result.isError()) {
+            result.throwException();
+        }
+
+        return out.position() - limit;
+    }
+
+    private ParseException unexpectedEndOfValue(int delimiter) {
+        tokenType = (position == limit ? EOF : buffer[position]);
+        return unexpectedToken(delimiter == '{' ? '}' : '"');
+    }
+
+    private ParseException unexpectedToken(int... types) {
+        StringBuilder expected = new StringBuilder();
+        expected.append('[');
+
+        for (int type : types) {
+            switch (type) {
+                case EOF:
+                    expected.append("EOF (end of file)");
+                    break;
+                case WORD:
+                    expected.append("WORD");
+                    break;
+                default:
+                    expected.append('\'').append(Character.toString((char) type)).append('\'');
+                    break;
+            }
+            expected.append(", ");
+        }
+
+        expected.delete(expected.length() - 2, expected.length()); // Delete last ", "
+        expected.append(']');
+
+        return new ParseException(String.format(
+                "I expected one of these tokens: %s, but found \"%s\".",
+                expected.toString(), getLastTokenAsString()));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+/**
+ * Options that control how
+ * {@link PublicationListParser#parseFile(java.nio.file.Path, ParseOptions)}
+ * reads a publication list. None of these options affect the result.
+ */
+public class ParseOptions {
+
+    private boolean readAtOnce = true;
+    private int parallelism = 1;
+
+    /**
+     * Gets whether regular files are read into memory at once, instead of
+     * read through a Reader.
+     *
+     * @return true if regular files are read at once
+     */
+    public boolean isReadAtOnce() {
+        return readAtOnce;
+    }
+
+    /**
+     * Sets whether regular files are read into memory at once, instead of
+     * read through a Reader. Other files are always read through a Reader.
+     *
+     * @param readAtOnce true to read regular files at once
+     */
+    public void setReadAtOnce(boolean readAtOnce) {
+        this.readAtOnce = readAtOnce;
+    }
+
+    /**
+     * Gets the maximum number of threads used to parse a large file.
+     * <p>
+     * If this is larger than 1, large files that are read at once are split into
+     * chunks at entry boundaries, and the chunks are parsed concurrently.
+     *
+     * @return the maximum number of threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of threads used to parse a large file.
+     *
+     * @param parallelism the maximum number of threads, 1 to parse
+     * sequentially
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+
+        this.parallelism = parallelism;
+    }
+}
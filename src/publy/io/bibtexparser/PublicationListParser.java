@@ -17,68 +17,328 @@ package publy.io.bibtexparser;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import publy.Console;
 import publy.data.Author;
-import publy.data.Pair;
 import publy.data.bibitem.BibItem;
 
 public class PublicationListParser {
 
+    private static final int MINIMUM_CHUNK_SIZE = 1 << 20; // Smaller chunks are not worth a separate task
+    private static final int CHUNKS_PER_THREAD = 4; // Allows threads that finish early to help with the remaining chunks
+    private static final int KEPT_WHILE_STREAMING = 4096; // Publications that the first pass of streamFile keeps until it finds a cross-reference
+
     public static List<BibItem> parseFile(Path file) throws IOException, ParseException {
-        try (BufferedReader in = Files.newBufferedReader(file, Charset.forName("UTF-8"))) {
-            return parseBibTeX(in);
+        return parseFile(file, new ParseOptions());
+    }
+
+    /**
+     * Parses the given UTF-8 encoded publication list.
+     * <p>
+     * If the options allow it, regular files are read into memory at once, and
+     * decoded directly into the lexer's buffer. Other files, such as pipes, are
+     * read through a Reader. If the options allow it and a file that was read
+     * at once is large enough, it is split into chunks at entry boundaries,
+     * which are parsed concurrently. The result, as well as all messages shown
+     * to the user, is the same in all cases.
+     * <p>
+     * Files are read with a plain {@link FileChannel#read(ByteBuffer)} rather
+     * than memory-mapped. A mapping is only released when it is garbage
+     * collected, and until then it stops other programs from saving the file
+     * on some systems, which matters in the GUI and in watch mode.
+     *
+     * @param file the publication list
+     * @param options how to parse the file
+     * @return the publications
+     * @throws IOException
+     * @throws ParseException
+     */
+    public static List<BibItem> parseFile(Path file, ParseOptions options) throws IOException, ParseException {
+        ByteBuffer input = (options.isReadAtOnce() ? read(file) : null);
+        PublicationListParser parser;
+
+        if (input != null && options.getParallelism() > 1 && input.remaining() >= 2 * MINIMUM_CHUNK_SIZE) {
+            parser = parseInParallel(input, options.getParallelism());
+        } else {
+            parser = new PublicationListParser();
+            parser.parse(file, input);
         }
+
+        return parser.handleAbbreviationsAndAuthors();
+    }
+
+    /**
+     * Prepares to parse the given UTF-8 encoded publication list one
+     * publication at a time, so that the publications never need to be in
+     * memory all at once.
+     * <p>
+     * Abbreviations and authors can be defined after they are used, so the
+     * file is read twice. This performs the first pass, which only collects
+     * and checks these definitions. The publications are parsed by
+     * {@link PublicationStream#parse(Consumer)}, which also shows all messages
+     * about them. Both passes read the file through a Reader, so that memory
+     * use does not depend on its size.
+     * <p>
+     * Publications that use cross-references cannot be handled one at a time.
+     * The first pass therefore keeps the first publications it reads. If one
+     * of them uses a cross-reference, it keeps all publications and shows the
+     * messages about them, so that
+     * {@link PublicationStream#getPublications()} returns the complete list
+     * without a second pass.
+     *
+     * @param file the publication list
+     * @return a stream of the publications in the file
+     * @throws IOException
+     */
+    public static PublicationStream streamFile(Path file) throws IOException {
+        PublicationListParser parser = new PublicationListParser();
+        FirstPass pass = new FirstPass(parser.items);
+        parser.itemConsumer = pass;
+
+        Console.startBuffering();
+        Console.BufferedMessages messages;
+
+        try {
+            parser.parse(file, null);
+        } finally {
+            messages = Console.stopBuffering();
+        }
+
+        if (pass.isComplete()) {
+            // The publications use cross-references and were all kept, so there is no second pass
+            messages.show();
+            return new PublicationStream(parser.handleAbbreviationsAndAuthors(), pass.fieldNames);
+        }
+
+        // Discard the messages, they are shown by the second pass
+        AbbreviationExpander expander = AbbreviationHandler.prepareAbbreviations(parser.abbreviations, parser.authors);
+        return new PublicationStream(file, expander, parser.authors, pass.fieldNames);
+    }
+
+    /**
+     * Parses the given file sequentially, and passes each publication to the
+     * given consumer instead of keeping it. Abbreviations are not expanded.
+     *
+     * @param file the publication list
+     * @param consumer receives the publications in order
+     * @throws IOException
+     */
+    static void parseFile(Path file, Consumer<BibItem> consumer) throws IOException {
+        PublicationListParser parser = new PublicationListParser();
+        parser.itemConsumer = consumer;
+        parser.parse(file, null);
     }
 
     public static List<BibItem> parseBibTeX(Reader in) throws IOException, ParseException {
         PublicationListParser parser = new PublicationListParser();
 
-        parser.parseBibTeXInternal(in);
-        AbbreviationHandler.handleAbbreviationsAndAuthors(parser.items, parser.abbreviations, parser.authors);
+        parser.parseBibTeXInternal(new Lexer(in));
 
-        return parser.items;
+        return parser.handleAbbreviationsAndAuthors();
     }
 
     private final List<BibItem> items = new ArrayList<>();
-    private final Map<String, String> abbreviations = new LinkedHashMap<>(); // Ensure that order is preserved, so that abbreviations that use earlier abbreviations can be expanded properly
+    private final Map<String, String> abbreviations = new LinkedHashMap<>(); // Preserve the order of definition, so that problems with abbreviations are reported in a predictable order
     private final Map<String, Author> authors = new HashMap<>();
+    private Consumer<BibItem> itemConsumer = items::add; // Receives all publications, in order
+    private boolean cutOff = false; // Whether an entry or tag ran into the end of the input
+    private Console.BufferedMessages messages = null; // The messages produced while parsing a chunk
 
     private PublicationListParser() {
     }
 
-    private void parseBibTeXInternal(Reader in) throws IOException {
-        int lineNumber = 1;
+    private List<BibItem> handleAbbreviationsAndAuthors() {
+        AbbreviationHandler.handleAbbreviationsAndAuthors(items, abbreviations, authors);
+        return items;
+    }
+
+    /**
+     * Parses the whole file sequentially.
+     *
+     * @param file the publication list
+     * @param input the contents of the file, or null to read
+     * the file through a Reader
+     * @throws IOException
+     */
+    private void parse(Path file, ByteBuffer input) throws IOException {
+        if (input == null) {
+            try (BufferedReader in = Files.newBufferedReader(file, Charset.forName("UTF-8"))) {
+                parseBibTeXInternal(new Lexer(in));
+            }
+        } else {
+            parseBibTeXInternal(new Lexer(input, 1));
+        }
+    }
+
+    /**
+     * Reads the given file into memory, if possible. The file is closed
+     * before this returns.
+     *
+     * @param file the file to read
+     * @return the contents of the file, or null if it is not a regular file or
+     * is too large
+     * @throws IOException
+     */
+    private static ByteBuffer read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE - 8) { // The largest array that every JVM can allocate
+                return null;
+            }
+
+            ByteBuffer input = ByteBuffer.allocate((int) size);
+
+            while (input.hasRemaining() && channel.read(input) >= 0) {
+                // Keep reading; a file that shrinks meanwhile ends early
+            }
+
+            input.flip();
+            return input;
+        }
+    }
+
+    /**
+     * Parses the given input by splitting it into chunks, which are parsed
+     * concurrently and then combined in their original order.
+     *
+     * @param input the UTF-8 encoded publication list
+     * @param parallelism the maximum number of threads
+     * @return a parser containing the combined results of all chunks
+     * @throws IOException
+     */
+    private static PublicationListParser parseInParallel(ByteBuffer input, int parallelism) throws IOException {
+        int chunkSize = Math.max(MINIMUM_CHUNK_SIZE, input.remaining() / (CHUNKS_PER_THREAD * parallelism));
+        List<ChunkSplitter.Chunk> chunks = ChunkSplitter.split(input, chunkSize);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            List<Future<PublicationListParser>> results = new ArrayList<>(chunks.size());
+
+            for (ChunkSplitter.Chunk chunk : chunks) {
+                ByteBuffer chunkInput = input.duplicate(); // Buffers are not thread-safe
+                results.add(pool.submit(() -> parseChunk(chunkInput, chunk)));
+            }
+
+            PublicationListParser parser = new PublicationListParser();
+
+            for (int i = 0; i < chunks.size(); i++) {
+                ChunkSplitter.Chunk chunk = chunks.get(i);
+                PublicationListParser chunkParser = getResult(results.get(i));
+
+                // If the chunk ends inside an entry, it was split at the wrong place: parse it again together with the next chunk
+                while (chunkParser.cutOff && i + 1 < chunks.size()) {
+                    i++;
+                    chunk = new ChunkSplitter.Chunk(chunk.start, chunks.get(i).end, chunk.firstLineNumber);
+                    chunkParser = parseChunk(input.duplicate(), chunk);
+                }
+
+                parser.append(chunkParser);
+            }
+
+            return parser;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static PublicationListParser parseChunk(ByteBuffer input, ChunkSplitter.Chunk chunk) throws IOException {
+        input.limit(chunk.end);
+        input.position(chunk.start);
+
+        PublicationListParser parser = new PublicationListParser();
+        Console.startBuffering();
+
+        try {
+            parser.parseBibTeXInternal(new Lexer(input, chunk.firstLineNumber));
+        } finally {
+            parser.messages = Console.stopBuffering();
+        }
+
+        return parser;
+    }
+
+    private static PublicationListParser getResult(Future<PublicationListParser> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing.");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * Adds the results of parsing the next chunk, and shows its messages.
+     *
+     * @param chunk the parser for the next chunk
+     */
+    private void append(PublicationListParser chunk) {
+        items.addAll(chunk.items);
+        abbreviations.putAll(chunk.abbreviations);
+        authors.putAll(chunk.authors);
+        chunk.messages.show();
+    }
+
+    private void parseBibTeXInternal(Lexer in) throws IOException {
+        BibItemParser bibItemParser = new BibItemParser(in);
+        TagParser tagParser = new TagParser(in);
+
+        for (int c = in.read(); c != Lexer.EOF; c = in.read()) {
+            int lineNumber = in.getLineNumber();
 
-        for (int c = in.read(); c != -1; c = in.read()) {
             try {
                 switch (c) {
                     case '@':
-                        Pair<Integer, BibItem> parsedItem = BibItemParser.parseBibItem(in);
-                        lineNumber += parsedItem.getFirst() - 1;
-                        handleBibItem(parsedItem.getSecond());
+                        handleBibItem(bibItemParser.parseBibItem().getSecond());
                         break;
                     case '<':
-                        Pair<Integer, Tag> parsedTag = TagParser.parseTag(in);
-                        lineNumber += parsedTag.getFirst() - 1;
-                        handleTag(parsedTag.getSecond());
-                        break;
-                    case '\n':
-                        lineNumber++;
+                        handleTag(tagParser.parseTag().getSecond());
                         break;
                 }
             } catch (ParseException ex) {
                 ex.setLineNumber(ex.getLineNumber() + lineNumber - 1);
                 Console.error(ex.getErrorText());
             }
+
+            if (in.hasReachedEnd()) {
+                // The entry or tag might have continued after the end of the input
+                cutOff = true;
+            }
         }
     }
 
@@ -96,7 +356,7 @@ public class PublicationListParser {
                 abbreviations.put(item.get("short"), item.get("full"));
                 break;
             default:
-                items.add(item);
+                itemConsumer.accept(item);
         }
     }
 
@@ -116,4 +376,46 @@ public class PublicationListParser {
                 throw new InternalError("Tag with unexpected type: " + tag);
         }
     }
+
+    /**
+     * Receives the publications in the first pass of
+     * {@link #streamFile(Path, ParseOptions)}. It collects the names of their
+     * fields, and keeps the first publications until one of them uses a
+     * cross-reference. From then on, it keeps all publications.
+     */
+    private static class FirstPass implements Consumer<BibItem> {
+
+        final Set<String> fieldNames = new HashSet<>();
+        final List<BibItem> items;
+        boolean keeping = true; // Whether all publications so far are kept
+        boolean crossref = false; // Whether a kept publication uses a cross-reference
+
+        FirstPass(List<BibItem> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void accept(BibItem item) {
+            fieldNames.addAll(item.getFields());
+
+            if (keeping) {
+                items.add(item);
+                crossref |= (item.get("crossref") != null);
+
+                if (!crossref && items.size() > KEPT_WHILE_STREAMING) {
+                    // The list is probably long and without cross-references
+                    keeping = false;
+                    items.clear();
+                }
+            }
+        }
+
+        /**
+         * Checks whether all publications were kept because they use
+         * cross-references.
+         */
+        boolean isComplete() {
+            return keeping && crossref;
+        }
+    }
 }
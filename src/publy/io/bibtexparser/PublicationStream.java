@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import publy.data.Author;
+import publy.data.bibitem.BibItem;
+
+/**
+ * A publication list whose definitions have been read, but whose publications
+ * are parsed one at a time. See
+ * {@link PublicationListParser#streamFile(Path)}.
+ * <p>
+ * If the publications use cross-references, they may already have been read
+ * completely; {@link #getPublications()} then returns them.
+ */
+public class PublicationStream {
+
+    private final Path file;
+    private final AbbreviationExpander expander;
+    private final Map<String, Author> authors;
+    private final Set<String> fieldNames;
+    private final List<BibItem> publications; // Null if the publications are parsed by parse
+
+    PublicationStream(Path file, AbbreviationExpander expander, Map<String, Author> authors, Set<String> fieldNames) {
+        this.file = file;
+        this.expander = expander;
+        this.authors = authors;
+        this.fieldNames = fieldNames;
+        publications = null;
+    }
+
+    PublicationStream(List<BibItem> publications, Set<String> fieldNames) {
+        file = null;
+        expander = null;
+        authors = null;
+        this.fieldNames = fieldNames;
+        this.publications = publications;
+    }
+
+    /**
+     * Gets the names of all fields that are set by at least one publication.
+     *
+     * @return the field names
+     */
+    public Set<String> getFieldNames() {
+        return Collections.unmodifiableSet(fieldNames);
+    }
+
+    /**
+     * Returns all publications, if they were already read because they use
+     * cross-references. They are the same as the result of
+     * {@link PublicationListParser#parseFile(Path, ParseOptions)}, and all
+     * messages about them have been shown.
+     *
+     * @return the publications, or null if they still need to be parsed
+     */
+    public List<BibItem> getPublications() {
+        return publications;
+    }
+
+    /**
+     * Parses the publications and passes them to the given consumer, in
+     * order. Their abbreviations are expanded and their authors and editors
+     * are set, just like in the result of
+     * {@link PublicationListParser#parseFile(Path, ParseOptions)}. Messages
+     * about each publication are shown before it is passed on.
+     *
+     * @param consumer receives the publications
+     * @throws IOException
+     */
+    public void parse(Consumer<BibItem> consumer) throws IOException {
+        if (publications != null) {
+            publications.forEach(consumer);
+            return;
+        }
+
+        ValuePool values = new ValuePool();
+
+        PublicationListParser.parseFile(file, item -> {
+            AbbreviationHandler.handleAbbreviationsAndAuthors(item, expander, values, authors);
+            consumer.accept(item);
+        });
+
+        values.reportStatistics();
+    }
+}
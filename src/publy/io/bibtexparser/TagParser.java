@@ -17,40 +17,79 @@ package publy.io.bibtexparser;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StreamTokenizer;
 import publy.Console;
 import publy.data.Pair;
 
+/**
+ * Parses Publy's author and abbreviation tags from a {@link Lexer}.
+ * <p>
+ * Each parser only uses its own lexer, so separate instances can be used
+ * concurrently from different threads. A single instance is not thread-safe.
+ */
 public class TagParser {
 
-    private static final int[] SPECIAL_CHARACTERS = new int[]{
-        '>', // End of tag
-        '=', // Field-value separator
-        '"', // Value delimiter "..."
-    };
-    private static final int MAX_RESET = 6000000; // ~12MB, Easily accomodates largest bib file I've found
-    private static Tokenizer tokenizer;
-
+    private static final boolean[] SPECIAL_CHARACTERS = Lexer.specialCharacterTable(
+            '>', // End of tag
+            '=', // Field-value separator
+            '"' // Value delimiter "..."
+    );
+    private final Lexer lexer;
+
+    /**
+     * Parses a single tag, starting just after its '<'.
+     * <p>
+     * The input is buffered, so the reader should not be used for anything
+     * else afterwards.
+     *
+     * @param in the input
+     * @return the number of lines spanned by the tag, and the parsed tag, or
+     * null if this was a tag that should be ignored
+     * @throws IOException
+     * @throws ParseException
+     */
     public static Pair<Integer, Tag> parseTag(Reader in) throws IOException, ParseException {
-        if (in.markSupported()) {
-            in.mark(MAX_RESET);
-        }
+        return new TagParser(new Lexer(in)).parseTag();
+    }
 
-        tokenizer = new Tokenizer(in);
-        tokenizer.setSpecialCharacters(SPECIAL_CHARACTERS);
+    /**
+     * Creates a parser that reads tags from the given lexer.
+     *
+     * @param lexer the input
+     */
+    public TagParser(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    /**
+     * Parses a single tag, starting just after its '<'. If an author or
+     * abbreviation tag cannot be parsed, the remainder of the tag is skipped,
+     * as described in {@link Lexer#recover(int)}.
+     *
+     * @return the number of lines spanned by the tag, and the parsed tag, or
+     * null if this was a tag that should be ignored
+     * @throws IOException
+     * @throws ParseException
+     */
+    public Pair<Integer, Tag> parseTag() throws IOException, ParseException {
+        lexer.setSpecialCharacters(SPECIAL_CHARACTERS);
+
+        int startLine = lexer.getLineNumber();
 
         String type = null;
         Tag result = null;
+        boolean inTag = false; // Whether we are inside a tag that should be skipped on errors
 
         try {
-            tokenizer.match(StreamTokenizer.TT_WORD);
-            type = tokenizer.getLastTokenAsString().toLowerCase();
+            lexer.match(Lexer.WORD);
+            type = lexer.getTokenTextLowerCase();
 
             switch (type) {
                 case "author":
+                    inTag = true;
                     result = parseAuthor();
                     break;
                 case "abbr":
+                    inTag = true;
                     result = parseAbbreviation();
                     break;
                 // Ignore valid HTML tags
@@ -140,12 +179,12 @@ public class TagParser {
                         throw new ParseException(String.format("Unrecognized tag \"<%s>\".", type));
                     }
             }
-        } catch (ParseException ex) { // Do not reset upon IOException, as that is likely to be unrecoverable
-            if (in.markSupported()) {
-                in.reset();
-            }
+        } catch (ParseException ex) { // Do not recover from IOException, as that is likely to be unrecoverable
+            ex.setLineNumber(lexer.getLineNumber() - startLine + 1);
 
-            ex.setLineNumber(tokenizer.lineno());
+            if (inTag) {
+                lexer.recover('>');
+            }
 
             if (type == null) {
                 ex.setType("tag");
@@ -156,63 +195,49 @@ public class TagParser {
             throw ex;
         }
         
-        return new Pair<>(tokenizer.lineno(), result);
+        return new Pair<>(lexer.getLineNumber() - startLine + 1, result);
     }
 
-    private static Tag parseAuthor() throws IOException, ParseException {
+    private Tag parseAuthor() throws IOException, ParseException {
         Tag result = new Tag(Tag.Type.AUTHOR);
 
         parseFields(result);
-        tokenizer.match('>');
 
         if (!result.values.containsKey("short")) {
             throw new ParseException("Author tag is missing mandatory field \"short\".");
         } else if (!result.values.containsKey("name")) {
             throw new ParseException("Author tag is missing mandatory field \"name\".");
-        } else {
-            return result;
         }
+
+        lexer.match('>');
+        return result;
     }
 
-    private static Tag parseAbbreviation() throws IOException, ParseException {
+    private Tag parseAbbreviation() throws IOException, ParseException {
         Tag result = new Tag(Tag.Type.ABBREVIATION);
 
         parseFields(result);
-        tokenizer.match('>');
 
         if (!result.values.containsKey("short")) {
             throw new ParseException("Abbreviation tag is missing mandatory field \"short\".");
         } else if (!result.values.containsKey("full")) {
             throw new ParseException("Abbreviation tag is missing mandatory field \"full\".");
-        } else {
-            return result;
         }
+
+        lexer.match('>');
+        return result;
     }
 
-    private static void parseFields(Tag result) throws IOException, ParseException {
+    private void parseFields(Tag result) throws IOException, ParseException {
         // name = " value "
-        while (!tokenizer.nextTokenIs('>')) {
-            tokenizer.match(StreamTokenizer.TT_WORD);
-            String name = tokenizer.getLastTokenAsString();
-
-            tokenizer.match('=');
-            tokenizer.setWhiteSpaceMatters(true);
-            tokenizer.match('"');
-
-            StringBuilder value = new StringBuilder();
+        while (lexer.peekToken() != '>') {
+            String name = lexer.matchWord();
 
-            while (!tokenizer.nextTokenIs('"')) {
-                tokenizer.nextToken();
-                value.append(tokenizer.getLastTokenAsString());
-            }
-
-            result.values.put(name, value.toString());
+            lexer.match('=');
+            lexer.match('"');
+            lexer.scanUntil('"');
 
-            tokenizer.setWhiteSpaceMatters(false);
-            tokenizer.match('"');
+            result.values.put(name, lexer.getTokenText());
         }
     }
-
-    private TagParser() {
-    }
 }
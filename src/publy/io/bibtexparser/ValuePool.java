@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.util.HashMap;
+import java.util.Map;
+import publy.Console;
+import publy.data.Author;
+import publy.data.bibitem.BibItem;
+
+/**
+ * Replaces equal field values of different publications by a single String
+ * instance. Venues, publishers, and other expanded abbreviations are often
+ * repeated thousands of times, and each copy would otherwise stay in memory
+ * for as long as the publications do. Similarly, co-authors that are not
+ * defined by an author tag get a single Author instance per name, so that
+ * each name is only parsed once.
+ * <p>
+ * A pool is meant to be used for a single parse. It only holds short values,
+ * and stops growing when it is full, so that its size is bounded. It is not
+ * thread-safe.
+ */
+class ValuePool {
+
+    private static final int MAX_LENGTH = 256; // Longer values, like abstracts, are rarely repeated
+    private static final int CAPACITY = 1 << 16;
+
+    private final Map<String, String> pool = new HashMap<>();
+    private final Map<String, Author> authors = new HashMap<>();
+    private long values = 0;
+    private long duplicates = 0;
+    private long savedChars = 0;
+    private long authorNames = 0;
+
+    /**
+     * Replaces each value of the given publication by an equal value that was
+     * seen before, if there is one.
+     *
+     * @param item the publication
+     */
+    void intern(BibItem item) {
+        for (String field : item.getFields()) {
+            String value = item.get(field);
+
+            if (value != null && !value.isEmpty() && value.length() <= MAX_LENGTH) {
+                String canonical = intern(value);
+
+                if (canonical != value) {
+                    item.put(field, canonical);
+                }
+            }
+        }
+    }
+
+    private String intern(String value) {
+        values++;
+        String canonical = pool.get(value);
+
+        if (canonical == null) {
+            if (pool.size() < CAPACITY) {
+                pool.put(value, value);
+            }
+
+            return value;
+        }
+
+        if (canonical != value) {
+            duplicates++;
+            savedChars += value.length();
+        }
+
+        return canonical;
+    }
+
+    /**
+     * Returns the author with the given name. Publications that use the same
+     * name share the returned instance, so its URL and group must not be
+     * changed.
+     * <p>
+     * Field values have their whitespace normalized by the parser, so equal
+     * names are also spelled identically.
+     *
+     * @param name the author's name, using LaTeX syntax
+     * @return the author
+     */
+    Author getAuthor(String name) {
+        authorNames++;
+        Author author = authors.get(name);
+
+        if (author == null) {
+            author = new Author(name);
+
+            if (authors.size() < CAPACITY) {
+                authors.put(name, author);
+            }
+        }
+
+        return author;
+    }
+
+    /**
+     * Shows how many values were replaced, as a debug message.
+     */
+    void reportStatistics() {
+        if (values > 0) {
+            // Each String takes about 40 bytes, plus two per character
+            Console.debug("Field values: %d of %d were duplicates, saving about %d KB.", duplicates, values, (duplicates * 40 + savedChars * 2) / 1024);
+        }
+
+        if (authorNames > 0) {
+            Console.debug("Author names: %d distinct out of %d.", authors.size(), authorNames);
+        }
+    }
+}
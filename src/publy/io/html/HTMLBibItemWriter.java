@@ -17,18 +17,20 @@ package publy.io.html;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import publy.Console;
 import publy.data.PublicationStatus;
 import publy.data.Author;
+import publy.data.SectionIndex;
 import publy.data.bibitem.BibItem;
+import publy.data.bibitem.FieldData;
 import publy.data.bibitem.Type;
 import publy.data.settings.HTMLSettings;
 import publy.data.settings.Settings;
 import publy.io.BibItemWriter;
+import publy.io.GenerationContext;
 import publy.io.bibtex.BibtexBibItemWriter;
 
 /**
@@ -37,10 +39,17 @@ import publy.io.bibtex.BibtexBibItemWriter;
  */
 public class HTMLBibItemWriter extends BibItemWriter {
 
+    private BufferedWriter escapedOut = null; // Escapes its input and writes it to out; created when first needed
+    private BibItemWriter bibtexWriter = null; // Writes to escapedOut
+
     public HTMLBibItemWriter(BufferedWriter out, Settings settings) {
         super(out, settings);
     }
 
+    public HTMLBibItemWriter(BufferedWriter out, Settings settings, GenerationContext context) {
+        super(out, settings, context);
+    }
+
     @Override
     public void write(BibItem item) throws IOException {
         writeImage(item);
@@ -428,7 +437,7 @@ public class HTMLBibItemWriter extends BibItemWriter {
         List<Author> authorList = (useEditor ? item.getEditors() : item.getAuthors());
 
         // Don't add an authors line if it's just me and I just want to list co-authors
-        if (settings.getGeneralSettings().isListAllAuthors() || authorList.size() > 1 || (authorList.size() == 1 && !authorList.get(0).isMe(settings.getGeneralSettings()))) {
+        if (settings.getGeneralSettings().isListAllAuthors() || authorList.size() > 1 || (authorList.size() == 1 && !authorList.get(0).isMe(getContext().getMyNames()))) {
             String authors = formatAuthors(item, useEditor, true);
 
             if (authors.endsWith(".</span>") || authors.endsWith(".</a>")) {
@@ -582,7 +591,7 @@ public class HTMLBibItemWriter extends BibItemWriter {
             pages = "";
         }
 
-        return pages.replaceAll("-+", "&ndash;");
+        return HTMLEscaper.replaceDashes(pages);
     }
 
     private void writeLinks(BibItem item) throws IOException {
@@ -701,10 +710,8 @@ public class HTMLBibItemWriter extends BibItemWriter {
         }
 
         // Other user-specified links
-        divOpened = writeCustomLink(divOpened, item, -1); // link
-
-        for (int i = 0; i < 20; i++) {
-            divOpened = writeCustomLink(divOpened, item, i); // link<i>
+        for (String attribute : FieldData.getLinkFields()) {
+            divOpened = writeCustomLink(divOpened, item, attribute);
         }
 
         // Close links div
@@ -751,9 +758,7 @@ public class HTMLBibItemWriter extends BibItemWriter {
         out.newLine();
     }
 
-    private boolean writeCustomLink(boolean divOpened, BibItem item, int i) throws IOException {
-        String attribute = (i == -1 ? "link" : "link" + i);
-
+    private boolean writeCustomLink(boolean divOpened, BibItem item, String attribute) throws IOException {
         if (isPresent(item, attribute)) {
             String link = get(item, attribute);
             int divider = link.indexOf('|');
@@ -765,7 +770,10 @@ public class HTMLBibItemWriter extends BibItemWriter {
                 String target = link.substring(divider + 1);
 
                 if (target.startsWith("#")) {
-                    // Link to another paper, good as-is
+                    // Link to another paper; use the anchor that the publication list gives it
+                    if (target.length() > 1) {
+                        target = "#" + SectionIndex.getAnchor(target.substring(1));
+                    }
                 } else if (target.contains(":")) {
                     // Most file systems prohibit colons in file names, so
                     // it seems safe to assume that this indicates an
@@ -793,8 +801,7 @@ public class HTMLBibItemWriter extends BibItemWriter {
         out.write(indentString + "  <pre class=\"bibtex\">");
         out.newLine();
 
-        String bibtex = htmlEscape(getBibtex(item));
-        out.write(bibtex);
+        writeEscapedBibtex(item);
 
         out.write("</pre>"); // No indent, as this would end up as part of the BibTeX
         out.newLine();
@@ -803,15 +810,14 @@ public class HTMLBibItemWriter extends BibItemWriter {
         out.newLine();
     }
 
-    private String getBibtex(BibItem item) throws IOException {
-        StringWriter bibtex = new StringWriter();
-        BufferedWriter buffer = new BufferedWriter(bibtex);
-        BibItemWriter bibtexWriter = new BibtexBibItemWriter(buffer, settings);
+    private void writeEscapedBibtex(BibItem item) throws IOException {
+        if (bibtexWriter == null) {
+            escapedOut = new BufferedWriter(HTMLEscaper.escapingWriter(out));
+            bibtexWriter = new BibtexBibItemWriter(escapedOut, settings, getContext());
+        }
 
         bibtexWriter.write(item);
-        buffer.flush();
-
-        return bibtex.toString();
+        escapedOut.flush(); // Moves the BibTeX to out, without flushing out itself
     }
 
     private void writeArxivBibtexHTML(BibItem item) throws IOException {
@@ -821,7 +827,9 @@ public class HTMLBibItemWriter extends BibItemWriter {
         out.newLine();
 
         // Item type
-        out.write("@article{" + htmlEscape(item.getId()) + ",");
+        out.write("@article{");
+        HTMLEscaper.escape(item.getId(), out);
+        out.write(",");
         out.newLine();
 
         // The first field should omit the connecting ",".
@@ -832,7 +840,7 @@ public class HTMLBibItemWriter extends BibItemWriter {
             out.write("  author={");
 
             for (int i = 0; i < item.getAuthors().size(); i++) {
-                out.write(htmlEscape(item.getAuthors().get(i).getName()));
+                HTMLEscaper.escape(item.getAuthors().get(i).getName(), out);
 
                 if (i < item.getAuthors().size() - 1) {
                     out.write(" and ");
@@ -852,7 +860,9 @@ public class HTMLBibItemWriter extends BibItemWriter {
                 out.newLine();
             }
 
-            out.write(htmlEscape("  " + field + "={" + get(item, field) + "}"));
+            out.write("  " + field + "={");
+            HTMLEscaper.escape(String.valueOf(get(item, field)), out);
+            out.write("}");
         }
 
         out.write(",");
@@ -861,20 +871,24 @@ public class HTMLBibItemWriter extends BibItemWriter {
         out.newLine();
         out.write("  archivePrefix={arXiv},");
         out.newLine();
-        out.write("  eprint={" + htmlEscape(get(item, "arxiv")) + "},");
+        String arxiv = HTMLEscaper.escape(get(item, "arxiv"));
+
+        out.write("  eprint={" + arxiv + "},");
         out.newLine();
 
         if (isPresent(item, "primaryclass")) {
-            out.write("  primaryClass={" + htmlEscape(get(item, "primaryclass")) + "},");
+            String primaryClass = HTMLEscaper.escape(get(item, "primaryclass"));
+
+            out.write("  primaryClass={" + primaryClass + "},");
             out.newLine();
-            out.write(String.format("  note={\\href{http://arxiv.org/abs/%s}{arXiv:%s} [%s]},", htmlEscape(get(item, "arxiv")), htmlEscape(get(item, "arxiv")), htmlEscape(get(item, "primaryclass"))));
+            out.write(String.format("  note={\\href{http://arxiv.org/abs/%s}{arXiv:%s} [%s]},", arxiv, arxiv, primaryClass));
             out.newLine();
         } else {
-            out.write(String.format("  note={\\href{http://arxiv.org/abs/%s}{arXiv:%s}},", htmlEscape(get(item, "arxiv")), htmlEscape(get(item, "arxiv"))));
+            out.write(String.format("  note={\\href{http://arxiv.org/abs/%s}{arXiv:%s}},", arxiv, arxiv));
             out.newLine();
         }
 
-        out.write(String.format("  url={http://arxiv.org/abs/%s}", htmlEscape(get(item, "arxiv"))));
+        out.write(String.format("  url={http://arxiv.org/abs/%s}", arxiv));
 
         out.newLine(); // No comma after the last element
         out.write("}</pre>");
@@ -966,11 +980,4 @@ public class HTMLBibItemWriter extends BibItemWriter {
 
         out.newLine();
     }
-
-    private String htmlEscape(String text) {
-        return text.replaceAll("&", "&amp;")
-                .replaceAll("\u00A0", "&nbsp;")
-                .replaceAll("<", "&lt;")
-                .replaceAll(">", "&gt;");
-    }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.html;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escapes the characters that cannot appear as-is in HTML text: ampersands,
+ * angle brackets, and non-breaking spaces.
+ * <p>
+ * Each string is scanned once, and the characters that don't need escaping are
+ * written in runs, so escaping directly into a Writer does not create any
+ * intermediate strings.
+ */
+public class HTMLEscaper {
+
+    private static final String[] ESCAPES = new String[256]; // Indexed by character; null for characters that are written as-is
+
+    static {
+        ESCAPES['&'] = "&amp;";
+        ESCAPES['\u00A0'] = "&nbsp;";
+        ESCAPES['<'] = "&lt;";
+        ESCAPES['>'] = "&gt;";
+    }
+
+    /**
+     * Writes the given text to the given writer, with all special characters
+     * escaped.
+     *
+     * @param text the text to escape
+     * @param out the writer
+     * @throws IOException
+     */
+    public static void escape(String text, Writer out) throws IOException {
+        escape(text, 0, text.length(), out);
+    }
+
+    private static void escape(String text, int offset, int end, Writer out) throws IOException {
+        int start = offset; // Start of the run that still has to be written
+
+        for (int i = offset; i < end; i++) {
+            String escape = getEscape(text.charAt(i));
+
+            if (escape != null) {
+                out.write(text, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+        }
+
+        out.write(text, start, end - start);
+    }
+
+    /**
+     * Escapes all special characters in the given text.
+     *
+     * @param text the text to escape
+     * @return the escaped text; this is the given text if it contains no
+     * special characters
+     */
+    public static String escape(String text) {
+        int first = 0;
+
+        while (first < text.length() && getEscape(text.charAt(first)) == null) {
+            first++;
+        }
+
+        if (first == text.length()) {
+            return text;
+        }
+
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        sb.append(text, 0, first);
+
+        for (int i = first; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String escape = getEscape(c);
+
+            if (escape == null) {
+                sb.append(c);
+            } else {
+                sb.append(escape);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns a writer that escapes everything that is written to it, and
+     * passes it on to the given writer.
+     * <p>
+     * Flushing or closing the returned writer does not affect the given
+     * writer, so that a writer that buffers its input can be flushed into it
+     * as often as needed.
+     *
+     * @param out the writer that receives the escaped text
+     * @return the escaping writer
+     */
+    public static Writer escapingWriter(Writer out) {
+        return new Writer() {
+
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                int start = offset; // Start of the run that still has to be written
+                int end = offset + length;
+
+                for (int i = offset; i < end; i++) {
+                    String escape = getEscape(chars[i]);
+
+                    if (escape != null) {
+                        out.write(chars, start, i - start);
+                        out.write(escape);
+                        start = i + 1;
+                    }
+                }
+
+                out.write(chars, start, end - start);
+            }
+
+            @Override
+            public void write(String text, int offset, int length) throws IOException {
+                escape(text, offset, offset + length, out);
+            }
+
+            @Override
+            public void flush() {
+                // Everything has already been written to out
+            }
+
+            @Override
+            public void close() {
+                // The owner of out closes it
+            }
+        };
+    }
+
+    /**
+     * Replaces each run of hyphens in the given text by a single en-dash
+     * entity, as in page ranges.
+     *
+     * @param text the text
+     * @return the text with dashes replaced; this is the given text if it
+     * contains no hyphens
+     */
+    public static String replaceDashes(String text) {
+        int first = text.indexOf('-');
+
+        if (first < 0) {
+            return text;
+        }
+
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        sb.append(text, 0, first);
+
+        for (int i = first; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c != '-') {
+                sb.append(c);
+            } else if (i == 0 || text.charAt(i - 1) != '-') {
+                sb.append("&ndash;");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String getEscape(char c) {
+        return (c < ESCAPES.length ? ESCAPES[c] : null);
+    }
+
+    private HTMLEscaper() {
+    }
+}
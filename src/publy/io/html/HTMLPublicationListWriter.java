@@ -18,6 +18,8 @@ package publy.io.html;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -27,15 +29,19 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import publy.Console;
+import publy.algo.ParallelProcessing;
 import publy.data.Section;
+import publy.data.SectionIndex;
 import publy.data.bibitem.BibItem;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.HTMLSettings;
 import publy.data.settings.Settings;
 import publy.Constants;
+import publy.io.GenerationContext;
 import publy.io.PublicationListWriter;
 import publy.io.ResourceLocator;
 import publy.io.TempWriter;
@@ -53,29 +59,28 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
     private static final String DEFAULT_BASEJS_LOCATION = "data/base.js";
     private static final String DEFAULT_GAJS_LOCATION = "data/ga.js";
     private static final Pattern LINK_PATTERN = Pattern.compile("(href|src)\\s*=\\s*\"([^\"]*)\"");
+    private static final int CHUNK_SIZE = 1024; // Publications that are rendered in parallel are buffered this many at a time
     private HTMLBibItemWriter itemWriter;
+    private int itemIndentation; // The indentation and ignored fields of the items in the current section
+    private Set<String> itemIgnoredFields;
     private int count;
+    private int depth; // Nesting depth of the section that is being written
 
     public HTMLPublicationListWriter(Settings settings) {
         super(settings);
     }
 
+    public HTMLPublicationListWriter(Settings settings, GenerationContext context) {
+        super(settings, context);
+    }
+
     @Override
-    protected void writePublicationList(List<Section> sections, BufferedWriter out) throws IOException {
-        itemWriter = new HTMLBibItemWriter(out, settings);
+    protected void writePreamble(List<Section> sections, BufferedWriter out) throws IOException {
+        itemWriter = new HTMLBibItemWriter(out, settings, context);
         count = getInitialCount(sections);
 
         copyAuxiliaryFiles();
-        writePreamble(out, sections);
-
-        for (Section s : sections) {
-            writeSection(s, sections, new ArrayList<>(), out);
-        }
 
-        writePostamble(sections, out);
-    }
-
-    private void writePreamble(BufferedWriter out, List<Section> sections) throws IOException {
         // Header
         if (settings.getFileSettings().getHeader() == null) {
             publy.Console.error("No header found. The generated HTML file will not be valid.");
@@ -128,7 +133,8 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
         out.newLine();
     }
 
-    private void writePostamble(List<Section> sections, BufferedWriter out) throws IOException {
+    @Override
+    protected void writePostamble(List<Section> sections, BufferedWriter out) throws IOException {
         // Navigation?
         if (settings.getHtmlSettings().getNavPlacement() == HTMLSettings.NavigationPlacement.TOP_AND_BOTTOM
                 || settings.getHtmlSettings().getNavPlacement() == HTMLSettings.NavigationPlacement.BEFORE_SECTION_AND_BOTTOM) {
@@ -172,6 +178,8 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
             out.newLine();
             out.newLine();
 
+            List<String> referencedFiles = new ArrayList<>();
+
             for (line = reader.readLine(); line != null; line = reader.readLine()) {
                 // Detect the end of the HEAD element, so we can insert the Google Analytics Javascript
                 int headIndex = line.indexOf("</head>");
@@ -197,10 +205,12 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
                     String path = m.group(2);
 
                     if (!path.startsWith("http")) {
-                        ensureReferencedFileExists(path);
+                        referencedFiles.add(path);
                     }
                 }
             }
+
+            ensureReferencedFilesExist(referencedFiles);
         }
     }
 
@@ -213,31 +223,62 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
         }
     }
 
-    private void ensureReferencedFileExists(String file) {
-        try {
-            // First strip anything following a '#', as that's most likely a link inside the document
-            String strippedFile = file;
+    private void ensureReferencedFilesExist(List<String> files) {
+        // Resolve all files first, so that they can be checked at once
+        Path[] paths = new Path[files.size()];
+        Exception[] exceptions = new Exception[files.size()];
 
-            if (strippedFile.contains("#")) {
-                strippedFile = strippedFile.substring(0, strippedFile.indexOf('#'));
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                paths[i] = resolveReferencedFile(files.get(i));
+            } catch (Exception e) {
+                exceptions[i] = e;
+            }
+        }
 
-                if (strippedFile.isEmpty()) {
-                    return;
-                }
+        List<Path> checkedPaths = new ArrayList<>(files.size());
+
+        for (Path path : paths) {
+            if (path != null) {
+                checkedPaths.add(path);
             }
+        }
 
-            // Resolve this via URI, to properly handle escaped characters like %20
-            Path path = Paths.get(settings.getFileSettings().getTarget().getParent().toUri().resolve(strippedFile));
+        context.getReferences().checkAll(checkedPaths);
 
-            if (Files.notExists(path)) {
-                Console.warn(Console.WarningType.MISSING_REFERENCE, "Referenced file \"%s\" was not found at \"%s\".", file, path);
+        for (int i = 0; i < files.size(); i++) {
+            if (exceptions[i] != null) {
+                Console.warn(Console.WarningType.MISSING_REFERENCE, "Exception while checking if file \"%s\" exists: %s", files.get(i), exceptions[i].toString());
+            } else if (paths[i] != null && !context.getReferences().exists(paths[i])) {
+                Console.warn(Console.WarningType.MISSING_REFERENCE, "Referenced file \"%s\" was not found at \"%s\".", files.get(i), paths[i]);
             }
-        } catch (Exception e) {
-            Console.warn(Console.WarningType.MISSING_REFERENCE, "Exception while checking if file \"%s\" exists: %s", file, e.toString());
         }
     }
 
-    private void writeSection(Section section, List<Section> sections, List<Section> parents, BufferedWriter out) throws IOException {
+    /**
+     * Returns the location of the given file, as referenced from the HTML
+     * target, or null if it refers to a location inside the document.
+     */
+    private Path resolveReferencedFile(String file) {
+        // First strip anything following a '#', as that's most likely a link inside the document
+        String strippedFile = file;
+
+        if (strippedFile.contains("#")) {
+            strippedFile = strippedFile.substring(0, strippedFile.indexOf('#'));
+
+            if (strippedFile.isEmpty()) {
+                return null;
+            }
+        }
+
+        // Resolve this via URI, to properly handle escaped characters like %20
+        return Paths.get(settings.getFileSettings().getTarget().getParent().toUri().resolve(strippedFile));
+    }
+
+    @Override
+    protected void writeSectionStart(Section section, List<Section> sections, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException {
+        depth = parents.size();
+
         // Section start
         indent(out, 2 * parents.size());
         out.write("      <div id=\"" + getSectionId(section, parents) + "\" class=\"section\">");
@@ -275,7 +316,7 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
             out.newLine();
         }
 
-        if (!section.getItems().isEmpty()) {
+        if (hasItems) {
             // Section list start
             indent(out, 2 * parents.size());
             if (settings.getGeneralSettings().getNumbering() == GeneralSettings.Numbering.NO_NUMBERS) {
@@ -298,44 +339,111 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
             }
             out.newLine();
 
-            itemWriter.setIndentationLevel(12 + 2 * parents.size());
-            itemWriter.setIgnoredFields(new HashSet<>(section.getIgnoredFields()));
+            itemIndentation = 12 + 2 * parents.size();
+            itemIgnoredFields = new HashSet<>(section.getIgnoredFields());
+            itemWriter.setIndentationLevel(itemIndentation);
+            itemWriter.setIgnoredFields(itemIgnoredFields);
+        }
+    }
 
-            // The actual entries
-            for (BibItem item : section.getItems()) {
-                indent(out, 2 * parents.size());
+    @Override
+    protected void writeItem(BibItem item, BufferedWriter out) throws IOException {
+        writeItem(item, count, itemWriter, out);
+        count += (settings.getGeneralSettings().isReverseNumbering() ? -1 : 1);
+    }
 
-                if (settings.getGeneralSettings().isReverseNumbering()) {
-                    out.write("          <li id=\""
-                            + (Character.isDigit(item.getId().charAt(0)) ? 'p' : "")
-                            + item.getId()
-                            + "\" value=\""
-                            + count
-                            + "\" "
-                            + "class=\"bibentry "
-                            + item.getOriginalType()
-                            + "\">");
-                    count--;
-                } else {
-                    out.write("          <li id=\""
-                            + (Character.isDigit(item.getId().charAt(0)) ? 'p' : "")
-                            + item.getId()
-                            + "\" class=\"bibentry "
-                            + item.getOriginalType()
-                            + "\">");
-                    count++;
-                }
+    /**
+     * Writes the publications of the current section. If there are enough of
+     * them, they are rendered on several threads, each into a buffer of its
+     * own, and the buffers are written in order.
+     */
+    @Override
+    protected void writeItems(List<BibItem> items, BufferedWriter out) throws IOException {
+        if (!ParallelProcessing.isParallel(Math.min(items.size(), CHUNK_SIZE))) {
+            super.writeItems(items, out);
+            return;
+        }
 
-                out.newLine();
+        boolean reverse = settings.getGeneralSettings().isReverseNumbering();
 
-                itemWriter.write(item);
+        for (int start = 0; start < items.size(); start += CHUNK_SIZE) {
+            List<BibItem> chunk = items.subList(start, Math.min(start + CHUNK_SIZE, items.size()));
+            int firstNumber = count;
 
-                indent(out, 2 * parents.size());
-                out.write("          </li>");
-                out.newLine();
-                out.newLine();
+            List<Integer> indices = new ArrayList<>(chunk.size());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                indices.add(i);
+            }
+
+            List<String> rendered;
+
+            try {
+                rendered = ParallelProcessing.map(indices, i -> renderItem(chunk.get(i), (reverse ? firstNumber - i : firstNumber + i)));
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
             }
 
+            for (String item : rendered) {
+                out.write(item);
+            }
+
+            count += (reverse ? -chunk.size() : chunk.size());
+        }
+    }
+
+    /**
+     * Renders the given publication with a writer of its own, so that it can
+     * run at the same time as other publications.
+     */
+    private String renderItem(BibItem item, int number) {
+        StringWriter buffer = new StringWriter();
+
+        try (BufferedWriter out = new BufferedWriter(buffer)) {
+            HTMLBibItemWriter writer = new HTMLBibItemWriter(out, settings, context);
+            writer.setIndentationLevel(itemIndentation);
+            writer.setIgnoredFields(itemIgnoredFields);
+            writeItem(item, number, writer, out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return buffer.toString();
+    }
+
+    private void writeItem(BibItem item, int number, HTMLBibItemWriter itemWriter, BufferedWriter out) throws IOException {
+        indent(out, 2 * depth);
+
+        if (settings.getGeneralSettings().isReverseNumbering()) {
+            out.write("          <li id=\""
+                    + SectionIndex.getAnchor(item.getId())
+                    + "\" value=\""
+                    + number
+                    + "\" "
+                    + "class=\"bibentry "
+                    + item.getOriginalType()
+                    + "\">");
+        } else {
+            out.write("          <li id=\""
+                    + SectionIndex.getAnchor(item.getId())
+                    + "\" class=\"bibentry "
+                    + item.getOriginalType()
+                    + "\">");
+        }
+
+        out.newLine();
+
+        context.getFragments().write(itemWriter, item, copy -> new HTMLBibItemWriter(copy, settings, context));
+
+        indent(out, 2 * depth);
+        out.write("          </li>");
+        out.newLine();
+        out.newLine();
+    }
+
+    @Override
+    protected void writeSectionItemsEnd(Section section, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException {
+        if (hasItems) {
             // Section list end
             indent(out, 2 * parents.size());
             switch (settings.getGeneralSettings().getNumbering()) {
@@ -353,14 +461,10 @@ public class HTMLPublicationListWriter extends PublicationListWriter {
         } else {
             out.newLine();
         }
+    }
 
-        // Write the sub-sections
-        parents.add(section);
-        for (Section subsection : section.getSubsections()) {
-            writeSection(subsection, sections, parents, out);
-        }
-        parents.remove(section);
-
+    @Override
+    protected void writeSectionEnd(Section section, List<Section> parents, BufferedWriter out) throws IOException {
         // Section end
         indent(out, 2 * parents.size());
         out.write("      </div>");
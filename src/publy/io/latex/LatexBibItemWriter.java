@@ -26,6 +26,7 @@ import publy.data.bibitem.BibItem;
 import publy.data.bibitem.Type;
 import publy.data.settings.Settings;
 import publy.io.BibItemWriter;
+import publy.io.GenerationContext;
 
 public class LatexBibItemWriter extends BibItemWriter {
 
@@ -33,6 +34,10 @@ public class LatexBibItemWriter extends BibItemWriter {
         super(out, settings);
     }
 
+    public LatexBibItemWriter(BufferedWriter out, Settings settings, GenerationContext context) {
+        super(out, settings, context);
+    }
+
     @Override
     public void write(BibItem item) throws IOException {
         writeTitleAndAuthors(item);
@@ -161,7 +166,7 @@ public class LatexBibItemWriter extends BibItemWriter {
             List<Author> authorList = (useEditorInsteadOfAuthor ? item.getEditors() : item.getAuthors());
             if (!settings.getGeneralSettings().isListAllAuthors()
                     && authorList.size() == 1
-                    && authorList.get(0).isMe(settings.getGeneralSettings())) {
+                    && authorList.get(0).isMe(getContext().getMyNames())) {
                 return;
             }
 
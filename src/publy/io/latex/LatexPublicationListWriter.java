@@ -23,6 +23,7 @@ import publy.data.Section;
 import publy.data.bibitem.BibItem;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.Settings;
+import publy.io.GenerationContext;
 import publy.io.PublicationListWriter;
 
 public class LatexPublicationListWriter extends PublicationListWriter {
@@ -34,17 +35,20 @@ public class LatexPublicationListWriter extends PublicationListWriter {
         super(settings);
     }
 
+    public LatexPublicationListWriter(Settings settings, GenerationContext context) {
+        super(settings, context);
+    }
+
     @Override
-    protected void writePublicationList(List<Section> sections, BufferedWriter out) throws IOException {
-        itemWriter = new LatexBibItemWriter(out, settings);
+    protected void writePreamble(List<Section> sections, BufferedWriter out) throws IOException {
+        itemWriter = new LatexBibItemWriter(out, settings, context);
         count = getInitialCount(sections);
 
         writeCommands(out);
-        
-        // Write the body
-        for (Section s : sections) {
-            writeSection(s, out, 0);
-        }
+    }
+
+    @Override
+    protected void writePostamble(List<Section> sections, BufferedWriter out) throws IOException {
     }
 
     private void writeCommands(BufferedWriter out) throws IOException {
@@ -70,37 +74,37 @@ public class LatexPublicationListWriter extends PublicationListWriter {
         // publyNote
     }
     
-    private void writeSection(Section section, BufferedWriter out, int nestingLevel) throws IOException {
+    @Override
+    protected void writeSectionStart(Section section, List<Section> sections, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException {
         // Reset the count if necessary
         if (settings.getGeneralSettings().getNumbering() == GeneralSettings.Numbering.WITHIN_CATEGORIES) {
             count = (settings.getGeneralSettings().isReverseNumbering() ? section.getItems().size() : 1);
         }
 
         // Write the title
-        String command = (nestingLevel == 0 ? "publySection" : "publySubsection");
+        String command = (parents.isEmpty() ? "publySection" : "publySubsection");
         out.write(String.format("\\%s{%s}", command, section.getName()));
         out.newLine();
         out.newLine();
 
-        // Write the publications
+        // Prepare to write the publications
         itemWriter.setIgnoredFields(new HashSet<>(section.getIgnoredFields()));
+    }
 
-        for (BibItem item : section.getItems()) {
-            // Write the appropriate number
-            if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.NO_NUMBERS) {
-                out.write(String.format("\\%s{%s} ", "publyCount", count));
-                count += (settings.getGeneralSettings().isReverseNumbering() ? -1 : 1);
-            }
-
-            itemWriter.write(item);
-            out.newLine();
+    @Override
+    protected void writeItem(BibItem item, BufferedWriter out) throws IOException {
+        // Write the appropriate number
+        if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.NO_NUMBERS) {
+            out.write(String.format("\\%s{%s} ", "publyCount", count));
+            count += (settings.getGeneralSettings().isReverseNumbering() ? -1 : 1);
         }
 
-        // Write the sub-sections
-        for (Section subsection : section.getSubsections()) {
-            writeSection(subsection, out, nestingLevel + 1);
-        }
+        itemWriter.write(item);
+        out.newLine();
+    }
 
+    @Override
+    protected void writeSectionEnd(Section section, List<Section> parents, BufferedWriter out) throws IOException {
         out.newLine();
     }
 }
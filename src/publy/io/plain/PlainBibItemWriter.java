@@ -22,6 +22,7 @@ import publy.data.bibitem.BibItem;
 import publy.data.bibitem.Type;
 import publy.data.settings.Settings;
 import publy.io.BibItemWriter;
+import publy.io.GenerationContext;
 
 /**
  *
@@ -33,6 +34,10 @@ public class PlainBibItemWriter extends BibItemWriter {
         super(out, settings);
     }
 
+    public PlainBibItemWriter(BufferedWriter out, Settings settings, GenerationContext context) {
+        super(out, settings, context);
+    }
+
     @Override
     public void write(BibItem item) throws IOException {
         writeTitleAndAuthors(item);
@@ -339,7 +344,7 @@ public class PlainBibItemWriter extends BibItemWriter {
         // Don't add an authors line if it's just me and I just want to list co-authors
         if (settings.getGeneralSettings().isListAllAuthors()
                 || item.getAuthors().size() > 1
-                || (item.getAuthors().size() == 1 && !item.getAuthors().get(0).isMe(settings.getGeneralSettings()))) {
+                || (item.getAuthors().size() == 1 && !item.getAuthors().get(0).isMe(getContext().getMyNames()))) {
             String authors = formatAuthors(item, useEditor, false);
 
             if (authors.endsWith(".")) {
@@ -26,6 +26,7 @@ import publy.data.bibitem.BibItem;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.Settings;
 import publy.Constants;
+import publy.io.GenerationContext;
 import publy.io.PublicationListWriter;
 
 /**
@@ -36,27 +37,33 @@ public class PlainPublicationListWriter extends PublicationListWriter {
 
     private PlainBibItemWriter itemWriter;
     private int count;
+    private int nestingLevel; // Of the section that is being written
 
     public PlainPublicationListWriter(Settings settings) {
         super(settings);
     }
 
+    public PlainPublicationListWriter(Settings settings, GenerationContext context) {
+        super(settings, context);
+    }
+
     @Override
-    protected void writePublicationList(List<Section> sections, BufferedWriter out) throws IOException {
-        itemWriter = new PlainBibItemWriter(out, settings);
+    protected void writePreamble(List<Section> sections, BufferedWriter out) throws IOException {
+        itemWriter = new PlainBibItemWriter(out, settings, context);
         count = getInitialCount(sections);
+    }
 
-        // Write the body
-        for (Section s : sections) {
-            writeSection(s, out, 0);
-        }
-        
+    @Override
+    protected void writePostamble(List<Section> sections, BufferedWriter out) throws IOException {
         // Credit line and last modified
         out.write("Generated by Publy " + Constants.MAJOR_VERSION + "." + Constants.MINOR_VERSION + ".  Last modified on "  + (new SimpleDateFormat("d MMMM yyyy")).format(new Date()) + ".");
         out.newLine();
     }
 
-    private void writeSection(Section section, BufferedWriter out, int nestingLevel) throws IOException {
+    @Override
+    protected void writeSectionStart(Section section, List<Section> sections, List<Section> parents, boolean hasItems, BufferedWriter out) throws IOException {
+        nestingLevel = parents.size();
+
         // Reset the count if necessary
         if (settings.getGeneralSettings().getNumbering() == GeneralSettings.Numbering.WITHIN_CATEGORIES) {
             if (settings.getGeneralSettings().isReverseNumbering()) {
@@ -72,37 +79,36 @@ public class PlainPublicationListWriter extends PublicationListWriter {
         out.newLine();
         out.newLine();
 
-        // Write the publications
+        // Prepare to write the publications
         itemWriter.setIgnoredFields(new HashSet<>(section.getIgnoredFields()));
         itemWriter.setIndentationLevel(2 * nestingLevel + 3);
+    }
 
-        for (BibItem item : section.getItems()) {
-            indent(out, 2 * nestingLevel);
+    @Override
+    protected void writeItem(BibItem item, BufferedWriter out) throws IOException {
+        indent(out, 2 * nestingLevel);
 
-            // Write the appropriate number
-            if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.NO_NUMBERS) {
-                out.write(count + ". ");
-                itemWriter.setIndentationLevel(2 * nestingLevel + (count + ". ").length());
+        // Write the appropriate number
+        if (settings.getGeneralSettings().getNumbering() != GeneralSettings.Numbering.NO_NUMBERS) {
+            out.write(count + ". ");
+            itemWriter.setIndentationLevel(2 * nestingLevel + (count + ". ").length());
 
-                if (settings.getGeneralSettings().isReverseNumbering()) {
-                    count--;
-                } else {
-                    count++;
-                }
+            if (settings.getGeneralSettings().isReverseNumbering()) {
+                count--;
             } else {
-                // Indent the first line
-                out.write("   ");
+                count++;
             }
-
-            itemWriter.write(item);
-            out.newLine();
+        } else {
+            // Indent the first line
+            out.write("   ");
         }
 
-        // Write the sub-sections
-        for (Section subsection : section.getSubsections()) {
-            writeSection(subsection, out, nestingLevel + 1);
-        }
+        context.getFragments().write(itemWriter, item, copy -> new PlainBibItemWriter(copy, settings, context));
+        out.newLine();
+    }
 
+    @Override
+    protected void writeSectionEnd(Section section, List<Section> parents, BufferedWriter out) throws IOException {
         out.newLine();
     }
 
@@ -18,7 +18,9 @@ package publy.io.settings;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -28,11 +30,14 @@ import org.xml.sax.helpers.DefaultHandler;
 import publy.Console;
 import publy.data.PublicationStatus;
 import publy.data.category.OutputCategory;
+import publy.data.category.conditions.AndCondition;
+import publy.data.category.conditions.CompositeCondition;
 import publy.data.category.conditions.Condition;
 import publy.data.category.conditions.FieldCondition;
 import publy.data.category.conditions.FieldContainsCondition;
 import publy.data.category.conditions.FieldEqualsCondition;
 import publy.data.category.conditions.FieldExistsCondition;
+import publy.data.category.conditions.OrCondition;
 import publy.data.category.conditions.TypeCondition;
 import publy.data.settings.GeneralSettings;
 import publy.data.settings.HTMLSettings;
@@ -53,6 +58,8 @@ public class SettingsReaderCurrent extends DefaultHandler implements SettingsRea
     private State state = State.DEFAULT;
     private OutputCategory currentCategory = null;
     private Condition currentCondition;
+    private boolean inCombinedCondition = false; // Whether the current conditions are part of a category's combined condition
+    private final Deque<CompositeCondition> compositeConditions = new ArrayDeque<>(); // The unfinished composite conditions, innermost first
     private String activeCategories;
 
     public SettingsReaderCurrent() {
@@ -139,6 +146,17 @@ public class SettingsReaderCurrent extends DefaultHandler implements SettingsRea
             case "FieldContainsCondition":
                 newCondition = new FieldContainsCondition(false, null, (String) null);
                 break;
+
+            // Combined conditions
+            case "condition":
+                inCombinedCondition = true;
+                break;
+            case "AndCondition":
+                compositeConditions.push(new AndCondition(Boolean.parseBoolean(attrs.getValue("inverted"))));
+                break;
+            case "OrCondition":
+                compositeConditions.push(new OrCondition(Boolean.parseBoolean(attrs.getValue("inverted"))));
+                break;
         }
 
         if (newCondition != null) {
@@ -253,21 +271,35 @@ public class SettingsReaderCurrent extends DefaultHandler implements SettingsRea
             // Conditions
             case "TypeCondition":
                 ((TypeCondition) currentCondition).setTypes(text.split(";"));
-                currentCategory.setTypeCondition((TypeCondition) currentCondition);
+
+                if (inCombinedCondition) {
+                    addToCombinedCondition(currentCondition);
+                } else {
+                    currentCategory.setTypeCondition((TypeCondition) currentCondition);
+                }
                 break;
             case "fieldConditions":
                 // No action required
                 break;
             case "FieldExistsCondition":
-                currentCategory.getFieldConditions().add((FieldCondition) currentCondition);
+                addFieldCondition((FieldCondition) currentCondition);
                 break;
             case "FieldEqualsCondition":
                 ((FieldEqualsCondition) currentCondition).setValues(text.split(";"));
-                currentCategory.getFieldConditions().add((FieldCondition) currentCondition);
+                addFieldCondition((FieldCondition) currentCondition);
                 break;
             case "FieldContainsCondition":
                 ((FieldContainsCondition) currentCondition).setValues(text.split(";"));
-                currentCategory.getFieldConditions().add((FieldCondition) currentCondition);
+                addFieldCondition((FieldCondition) currentCondition);
+                break;
+
+            // Combined conditions
+            case "condition":
+                inCombinedCondition = false;
+                break;
+            case "AndCondition":
+            case "OrCondition":
+                addToCombinedCondition(compositeConditions.pop());
                 break;
 
             // Active categories
@@ -281,6 +313,22 @@ public class SettingsReaderCurrent extends DefaultHandler implements SettingsRea
         }
     }
 
+    private void addFieldCondition(FieldCondition condition) {
+        if (inCombinedCondition) {
+            addToCombinedCondition(condition);
+        } else {
+            currentCategory.getFieldConditions().add(condition);
+        }
+    }
+
+    private void addToCombinedCondition(Condition condition) {
+        if (compositeConditions.isEmpty()) {
+            currentCategory.setCondition(condition);
+        } else {
+            compositeConditions.peek().getConditions().add(condition);
+        }
+    }
+
     private void generalSettingsEndElement(String qName, String text) {
         switch (qName) {
             case "generalSettings":
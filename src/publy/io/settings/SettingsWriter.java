@@ -17,14 +17,19 @@ package publy.io.settings;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import publy.data.category.OutputCategory;
+import publy.data.category.conditions.AndCondition;
+import publy.data.category.conditions.CompositeCondition;
 import publy.data.category.conditions.Condition;
 import publy.data.category.conditions.FieldContainsCondition;
 import publy.data.category.conditions.FieldEqualsCondition;
 import publy.data.category.conditions.FieldExistsCondition;
+import publy.data.category.conditions.OrCondition;
 import publy.data.category.conditions.TypeCondition;
 import publy.data.settings.CategorySettings;
 import publy.data.settings.ConsoleSettings;
@@ -72,6 +77,28 @@ public class SettingsWriter {
         }
     }
 
+    /**
+     * Returns the XML of the settings that can affect how publications are
+     * written: the file, general, and HTML settings. Categories are left out.
+     * They decide which publications are written, not how.
+     *
+     * @param settings the settings
+     * @return the XML of the relevant settings
+     */
+    public static String getOutputSettings(Settings settings) {
+        StringWriter text = new StringWriter();
+
+        try (BufferedWriter out = new BufferedWriter(text)) {
+            writeFileSettings(settings.getFileSettings(), out);
+            writeGeneralSettings(settings.getGeneralSettings(), out);
+            writeHTMLSettings(settings.getHtmlSettings(), out);
+        } catch (IOException ex) {
+            throw new AssertionError(ex); // A StringWriter does not throw IOExceptions
+        }
+
+        return text.toString();
+    }
+
     private static void writeFileSettings(FileSettings settings, BufferedWriter out) throws IOException {
         out.write("  <!-- File settings -->");
         out.newLine();
@@ -123,6 +150,15 @@ public class SettingsWriter {
 
             out.write("        </fieldConditions>");
             out.newLine();
+
+            // combined condition
+            if (c.getCondition() != null) {
+                out.write("        <condition>");
+                out.newLine();
+                writeCondition(out, 10, c.getCondition());
+                out.write("        </condition>");
+                out.newLine();
+            }
             
             // ignored fields
             output(out, 8, "ignoredFields", makeCData(c.getIgnoredFields()));
@@ -236,6 +272,20 @@ public class SettingsWriter {
             output(out, indent, "FieldEqualsCondition", makeCData(((FieldEqualsCondition) condition).getValues()), "inverted", makeString(condition.isInverted()), "field", ((FieldCondition) condition).getField());
         } else if (condition instanceof FieldContainsCondition) {
             output(out, indent, "FieldContainsCondition", makeCData(((FieldContainsCondition) condition).getValues()), "inverted", makeString(condition.isInverted()), "field", ((FieldCondition) condition).getField());
+        } else if (condition instanceof AndCondition || condition instanceof OrCondition) {
+            String tag = (condition instanceof AndCondition ? "AndCondition" : "OrCondition");
+
+            out.write(indent(indent));
+            out.write("<" + tag + " inverted=\"" + makeString(condition.isInverted()) + "\">");
+            out.newLine();
+
+            for (Condition child : ((CompositeCondition) condition).getConditions()) {
+                writeCondition(out, indent + 2, child);
+            }
+
+            out.write(indent(indent));
+            out.write("</" + tag + ">");
+            out.newLine();
         } else {
             throw new AssertionError("Unknown condition type: " + condition);
         }
@@ -303,7 +353,9 @@ public class SettingsWriter {
             case 12:
                 return "            ";
             default:
-                throw new AssertionError("Unexpected indentation number: " + indent);
+                char[] spaces = new char[indent]; // Deeply nested conditions
+                Arrays.fill(spaces, ' ');
+                return new String(spaces);
         }
     }
 
@@ -15,8 +15,12 @@
  */
 package publy.algo;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -24,7 +28,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import publy.Console;
+import publy.data.Section;
 import publy.data.bibitem.BibItem;
+import publy.data.settings.GeneralSettings;
 import publy.data.settings.Settings;
 
 public class PostProcessorTest {
@@ -95,6 +101,86 @@ public class PostProcessorTest {
         assertEquals("2011", item3.get("year"));
     }
 
+    /**
+     * Test of applyCrossref method, of class PostProcessor, for chains and
+     * cycles of cross-references.
+     */
+    @Test
+    public void testApplyCrossrefChain() {
+        System.out.println("applyCrossrefChain");
+
+        Settings settings = new Settings();
+        settings.getConsoleSettings().setShowWarnings(false);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        // Paper -> volume -> series, listed before the publications they refer to
+        BibItem paper = new BibItem("inproceedings", "paper");
+        paper.put("author", "Thor, Au");
+        paper.put("title", "Title");
+        paper.put("crossref", "volume");
+
+        BibItem volume = new BibItem("proceedings", "volume");
+        volume.put("booktitle", "Proceedings of the Conference");
+        volume.put("title", "Proceedings of the Conference");
+        volume.put("crossref", "series");
+
+        BibItem series = new BibItem("proceedings", "series");
+        series.put("title", "Series");
+        series.put("year", "2016");
+        series.put("publisher", "");
+        series.put("series", "LNCS");
+
+        // Cycle
+        BibItem first = new BibItem("inproceedings", "first");
+        first.put("author", "Thor, Au");
+        first.put("title", "First");
+        first.put("crossref", "second");
+
+        BibItem second = new BibItem("proceedings", "second");
+        second.put("title", "Second");
+        second.put("booktitle", "Book");
+        second.put("year", "2015");
+        second.put("crossref", "first");
+
+        // Longer cycle
+        BibItem a = new BibItem("misc", "a");
+        a.put("title", "A");
+        a.put("crossref", "b");
+
+        BibItem b = new BibItem("misc", "b");
+        b.put("note", "B");
+        b.put("crossref", "c");
+
+        BibItem c = new BibItem("misc", "c");
+        c.put("year", "2014");
+        c.put("crossref", "a");
+
+        PublicationPostProcessor.postProcess(settings, new ArrayList<>(Arrays.asList(paper, volume, series, first, second, b, a, c)));
+
+        assertEquals("Title", paper.get("title"));
+        assertEquals("Proceedings of the Conference", paper.get("booktitle"));
+        assertEquals("volume", paper.get("crossref"));
+        assertEquals("2016", paper.get("year"));
+        assertEquals("LNCS", paper.get("series"));
+        assertNull(paper.get("publisher"));
+        assertEquals("2016", volume.get("year"));
+
+        assertEquals("Book", first.get("booktitle"));
+        assertEquals("2015", first.get("year"));
+        assertEquals("First", first.get("title"));
+        assertEquals("Second", second.get("title"));
+        assertEquals("Thor, Au", second.get("author"));
+
+        // Each copies the fields of the publication it refers to, but no further
+        assertEquals("B", a.get("note"));
+        assertNull(a.get("year"));
+        assertEquals("2014", b.get("year"));
+        assertNull(b.get("title"));
+        assertEquals("A", c.get("title"));
+        assertNull(c.get("note"));
+    }
+
     /**
      * Test of detectArxiv method, of class PostProcessor.
      */
@@ -305,4 +391,90 @@ public class PostProcessorTest {
         }
     }
 
+    /**
+     * Tests that post-processing on several threads gives the same result and
+     * messages as post-processing on one.
+     */
+    @Test
+    public void testParallelPostProcess() throws Exception {
+        System.out.println("parallel postProcess");
+
+        Settings settings = Settings.defaultSettings();
+        settings.getFileSettings().setTarget(Files.createTempDirectory("PublyParallelTest").resolve("list.html"));
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        for (GeneralSettings.Grouping grouping : GeneralSettings.Grouping.values()) {
+            settings.getGeneralSettings().setGrouping(grouping);
+
+            String sequential = postProcessWithThreads(settings, 1);
+            String parallel = postProcessWithThreads(settings, 4);
+
+            assertTrue(sequential.contains("cannot be found"));
+            assertTrue(sequential.contains("is missing the mandatory field"));
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    private static String postProcessWithThreads(Settings settings, int threads) {
+        List<BibItem> items = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            BibItem item = new BibItem(i % 3 == 0 ? "article" : (i % 3 == 1 ? "inproceedings" : "misc"), "item" + (i % 250 == 7 ? 7 : i));
+            item.put("title", "Title " + i);
+            item.put("author", "Author " + i);
+            item.put("year", Integer.toString(2000 + i % 7));
+
+            if (i % 5 != 0) {
+                item.put("journal", "Journal " + i);
+                item.put("booktitle", "Proceedings " + i);
+            }
+
+            if (i % 11 == 0) {
+                item.put("file", "missing" + i + ".pdf");
+            }
+
+            if (i % 13 == 0) {
+                item.put("link", "Other|#item" + (i + 600));
+            }
+
+            if (i % 17 == 0) {
+                item.put("eprint", "cs/" + i);
+            }
+
+            items.add(item);
+        }
+
+        ParallelProcessing.setThreads(threads);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        StringBuilder result = new StringBuilder();
+
+        try {
+            System.setOut(new PrintStream(bytes, true));
+
+            for (Section section : PublicationPostProcessor.postProcess(settings, items)) {
+                appendSection(result, section);
+            }
+        } finally {
+            System.setOut(out);
+            ParallelProcessing.setThreads(1);
+        }
+
+        return bytes.toString() + result;
+    }
+
+    private static void appendSection(StringBuilder result, Section section) {
+        result.append(section.getShortName()).append(':');
+
+        for (BibItem item : section.getItems()) {
+            result.append(' ').append(item.getId()).append('/').append(item.get("arxiv"));
+        }
+
+        result.append('\n');
+
+        for (Section subsection : section.getSubsections()) {
+            appendSection(result, subsection);
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.algo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.Console;
+import publy.data.settings.Settings;
+
+public class PublicationListWatcherTest {
+
+    public PublicationListWatcherTest() {
+    }
+
+    /**
+     * Test of watch method, of class PublicationListWatcher.
+     */
+    @Test
+    public void testWatch() throws IOException, InterruptedException {
+        System.out.println("watch");
+
+        Path dir = Files.createTempDirectory("publy-watch");
+        Path pubList = dir.resolve("publications.bib");
+        Path header = dir.resolve("header.html");
+        Path target = dir.resolve("output/publications.html");
+
+        Settings settings = Settings.defaultSettings();
+        settings.getConsoleSettings().setShowWarnings(false);
+        settings.getFileSettings().setPublications(pubList);
+        settings.getFileSettings().setHeader(header);
+        settings.getFileSettings().setTarget(target);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        Files.write(pubList, Arrays.asList(publication("First title")), StandardCharsets.UTF_8);
+        Files.write(header, Arrays.asList("<html><body>"), StandardCharsets.UTF_8);
+
+        Thread watching = null;
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PublicationListWatcher watcher = new PublicationListWatcher(settings)) {
+            assertTrue(watcher.getFiles().contains(pubList.toAbsolutePath()));
+            assertTrue(watcher.getFiles().contains(header.toAbsolutePath()));
+            assertTrue(watcher.getFiles().contains(settings.getFileSettings().getFooter().toAbsolutePath().normalize()));
+            assertTrue(watcher.getFiles().contains(settings.getHtmlSettings().getTheme().toAbsolutePath().normalize()));
+
+            assertTrue(PublicationListGenerator.generatePublicationList(settings));
+            assertTrue(read(target).contains("First title"));
+
+            // Count the regenerations through the messages of the watcher
+            System.setOut(new PrintStream(new TeeOutputStream(originalOut, output), true, "UTF-8"));
+            watching = new Thread(watcher::watch);
+            watching.start();
+
+            // Several quick edits lead to a single new version
+            Files.write(pubList, Arrays.asList(publication("Second title")), StandardCharsets.UTF_8);
+            Files.write(pubList, Arrays.asList(publication("Third title")), StandardCharsets.UTF_8);
+            assertTrue(waitFor(target, "Third title"));
+            Thread.sleep(2 * PublicationListWatcher.QUIET_MILLIS);
+            assertEquals(1, countRegenerations(output));
+
+            // Changes to other files in the same directory are ignored
+            Files.write(dir.resolve("notes.txt"), Arrays.asList("Unrelated"), StandardCharsets.UTF_8);
+            Thread.sleep(2 * PublicationListWatcher.QUIET_MILLIS);
+
+            assertEquals(1, countRegenerations(output));
+
+            Files.write(header, Arrays.asList("<html><body>New header"), StandardCharsets.UTF_8);
+            assertTrue(waitFor(target, "New header"));
+        } finally {
+            if (watching != null) {
+                watching.interrupt();
+                watching.join(10000);
+                assertFalse(watching.isAlive());
+            }
+
+            System.setOut(originalOut);
+
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static int countRegenerations(ByteArrayOutputStream output) throws IOException {
+        String text;
+
+        synchronized (output) {
+            text = output.toString("UTF-8");
+        }
+
+        return text.split("Regenerated the publication list", -1).length - 1;
+    }
+
+    private static String publication(String title) {
+        return "@InProceedings{item,\n  author = {Doe, Jane},\n  title = {" + title + "},\n  booktitle = {Proceedings},\n  year = 2016\n}";
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static boolean waitFor(Path file, String text) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(file) && read(file).contains(text)) {
+                return true;
+            }
+
+            Thread.sleep(50);
+        }
+
+        return false;
+    }
+    /**
+     * Writes everything to two streams.
+     */
+    private static class TeeOutputStream extends OutputStream {
+
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+
+            synchronized (second) {
+                second.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+        }
+    }
+}
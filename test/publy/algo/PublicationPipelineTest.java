@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.algo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.Console;
+import publy.data.category.OutputCategory;
+import publy.data.settings.Settings;
+import publy.io.GenerationContext;
+import publy.io.bibtexparser.PublicationListParser;
+import publy.io.bibtexparser.PublicationStream;
+
+public class PublicationPipelineTest {
+
+    public PublicationPipelineTest() {
+    }
+
+    /**
+     * Test of generatePublicationList method, of class PublicationPipeline.
+     */
+    @Test
+    public void testGeneratePublicationList() throws IOException {
+        System.out.println("generatePublicationList");
+
+        Path dir = Files.createTempDirectory("publy-pipeline");
+        Path pubList = dir.resolve("publications.bib");
+
+        try (BufferedWriter out = Files.newBufferedWriter(pubList, StandardCharsets.UTF_8)) {
+            out.write("<author short=\"me\" name=\"Doe, Jane\">\n\n");
+
+            for (int i = 0; i < 1000; i++) {
+                out.write("@InProceedings{item" + i + ",\n");
+                out.write("  author = {<<me>> and Author " + (i % 7) + ", First},\n");
+                out.write("  title = \"On the typesetting of item " + i + "\",\n");
+                out.write("  booktitle = conf,\n");
+                out.write("  year = " + (1980 + i % 40) + ",\n");
+                out.write("  link = {Previous|#item" + (i == 0 ? "none" : i - 1) + "}\n");
+                out.write("}\n\n");
+
+                if (i % 10 == 0) {
+                    out.write("@Article{article" + i + ",\n");
+                    out.write("  author = {Author, Other},\n");
+                    out.write("  title = \"Not a conference paper\",\n");
+                    out.write("  journal = {Journal},\n");
+                    out.write("  year = 2000\n");
+                    out.write("}\n\n");
+                }
+
+                if (i % 100 == 0) {
+                    out.write("@InProceedings{item" + i + ",\n");
+                    out.write("  title = \"A duplicate\",\n");
+                    out.write("}\n\n");
+                }
+            }
+
+            // Abbreviations may be defined after their first use
+            out.write("@String{conf = \"Proceedings of the Symposium on Pipelines\"}\n");
+        }
+
+        OutputCategory conference = null;
+        Settings settings = Settings.defaultSettings();
+
+        for (OutputCategory category : settings.getCategorySettings().getAllCategories()) {
+            if (category.getShortName().equals("Conference")) {
+                conference = category;
+            }
+        }
+
+        settings.getCategorySettings().setActiveCategories(Arrays.asList(conference));
+        settings.getConsoleSettings().setShowWarnings(false);
+        settings.getHtmlSettings().setGenerateTextVersion(true);
+        settings.getHtmlSettings().setGenerateBibtexVersion(true);
+        settings.getFileSettings().setPublications(pubList);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        assertTrue(PublicationPipeline.canStream(settings));
+
+        try {
+            settings.getFileSettings().setTarget(dir.resolve("buffered/publications.html"));
+            assertTrue(PublicationListGenerator.generatePublicationList(settings));
+
+            PublicationStream publications = PublicationListParser.streamFile(pubList);
+            assertTrue(PublicationPipeline.canStream(publications));
+            assertNull(publications.getPublications());
+
+            settings.getFileSettings().setTarget(dir.resolve("streamed/publications.html"));
+            assertTrue(PublicationPipeline.generatePublicationList(settings, new GenerationContext(settings), publications));
+
+            // All versions written at the same time
+            ParallelProcessing.setThreads(4);
+            settings.getFileSettings().setTarget(dir.resolve("parallel/publications.html"));
+            assertTrue(PublicationListGenerator.generatePublicationList(settings));
+
+            for (String name : Arrays.asList("publications.html", "publications.utf8.txt", "publications-generated.bib")) {
+                String buffered = new String(Files.readAllBytes(dir.resolve("buffered").resolve(name)), StandardCharsets.UTF_8);
+                String streamed = new String(Files.readAllBytes(dir.resolve("streamed").resolve(name)), StandardCharsets.UTF_8);
+
+                assertTrue(streamed.contains("On the typesetting of item 999"));
+                assertTrue(streamed.contains("Proceedings of the Symposium on Pipelines"));
+                assertFalse(streamed.contains("Not a conference paper"));
+                assertEquals(name, buffered, streamed);
+
+                String parallel = new String(Files.readAllBytes(dir.resolve("parallel").resolve(name)), StandardCharsets.UTF_8);
+                assertEquals(name, buffered, parallel);
+            }
+        } finally {
+            ParallelProcessing.setThreads(1);
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -2,6 +2,7 @@
  */
 package publy.data;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.junit.Test;
@@ -405,4 +406,55 @@ public class AuthorTest {
             assertEquals(name + " - ", expected.get(name), a.getFormattedName(GeneralSettings.FirstNameDisplay.INITIAL, true));
         }
     }
+
+    @Test
+    public void testLinkedHTMLName() {
+        System.out.println("Linked HTML name");
+
+        Author a = new Author("von Last, Jr, First");
+
+        // Memoized names must not depend on the order of the requests
+        assertEquals("<span class=\"author\">F. von Last, Jr</span>", a.getLinkedHTMLName(GeneralSettings.FirstNameDisplay.INITIAL, false));
+        assertEquals("<span class=\"author\">von Last, Jr, First</span>", a.getLinkedHTMLName(GeneralSettings.FirstNameDisplay.FULL, true));
+        assertEquals("F. von Last, Jr", a.getFormattedName(GeneralSettings.FirstNameDisplay.INITIAL, false));
+
+        a.setUrl("http://example.com");
+        a.setGroup("me");
+
+        assertEquals("<a href=\"http://example.com\" class=\"author me\">F. von Last, Jr</a>", a.getLinkedHTMLName(GeneralSettings.FirstNameDisplay.INITIAL, false));
+    }
+
+    @Test
+    public void testIsMe() {
+        System.out.println("isMe");
+
+        Author byName = new Author("Doe, John");
+        Author byAbbreviation = new Author("jd", "Doe, J.");
+        Author other = new Author("Roe, Jane");
+
+        GeneralSettings gs = new GeneralSettings();
+        gs.setMyNames(Arrays.asList("J. Doe", "jd"));
+        gs.setNameDisplay(GeneralSettings.FirstNameDisplay.INITIAL);
+        gs.setReverseNames(false);
+
+        MyNameMatcher matcher = new MyNameMatcher(gs);
+        assertTrue(byName.isMe(matcher));
+        assertTrue(byAbbreviation.isMe(matcher));
+        assertFalse(other.isMe(matcher));
+
+        // Changing the settings does not affect an existing matcher
+        gs.setNameDisplay(GeneralSettings.FirstNameDisplay.FULL);
+        assertTrue(byName.isMe(matcher));
+
+        // A new matcher must not reuse remembered results
+        matcher = new MyNameMatcher(gs);
+        assertFalse(byName.isMe(matcher));
+        assertTrue(byAbbreviation.isMe(matcher));
+
+        gs.setMyNames(Arrays.asList("Doe, John"));
+        matcher = new MyNameMatcher(gs);
+        assertTrue(byName.isMe(matcher));
+        assertFalse(byAbbreviation.isMe(matcher));
+        assertFalse(other.isMe(matcher));
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.data.bibitem.BibItem;
+
+public class SectionIndexTest {
+
+    public SectionIndexTest() {
+    }
+
+    /**
+     * Test of contains and getSection methods, of class SectionIndex.
+     */
+    @Test
+    public void testLookup() {
+        System.out.println("lookup");
+
+        Section journals = new Section("journal", "Journal papers");
+        Section conferences = new Section("conference", "Conference papers");
+        Section workshops = new Section("workshop", "Workshop papers");
+        conferences.setSubsections(Arrays.asList(workshops));
+
+        journals.addItem(new BibItem("article", "a"));
+        conferences.addItem(new BibItem("inproceedings", "b"));
+        workshops.addItem(new BibItem("inproceedings", "2016c"));
+
+        SectionIndex index = new SectionIndex(Arrays.asList(journals, conferences));
+
+        assertTrue(index.contains("a"));
+        assertTrue(index.contains("b"));
+        assertTrue(index.contains("2016c"));
+        assertFalse(index.contains("d"));
+        assertFalse(index.contains("A"));
+
+        assertSame(journals, index.getSection("a"));
+        assertSame(conferences, index.getSection("b"));
+        assertSame(workshops, index.getSection("2016c"));
+        assertNull(index.getSection("d"));
+    }
+
+    /**
+     * Test of getAnchor method, of class SectionIndex.
+     */
+    @Test
+    public void testGetAnchor() {
+        System.out.println("getAnchor");
+
+        assertEquals("buchin2011optimizing", SectionIndex.getAnchor("buchin2011optimizing"));
+        assertEquals("p2016c", SectionIndex.getAnchor("2016c"));
+    }
+}
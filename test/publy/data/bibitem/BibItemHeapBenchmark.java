@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.bibitem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import publy.data.Author;
+
+/**
+ * Measures the heap used by publications, compared to the previous
+ * representation with a LinkedHashMap of values and two author lists per
+ * publication. This is not part of the unit tests; run it by hand, preferably
+ * with a fixed heap size (for example -Xms1g -Xmx1g).
+ * <p>
+ * Usage: BibItemHeapBenchmark [publications]
+ *
+ * @author Sander Verdonschot <sander.verdonschot at gmail.com>
+ */
+public class BibItemHeapBenchmark {
+
+    private static final String[] FIELDS = {"author", "title", "booktitle", "pages", "year", "publisher", "doi", "url", "month", "note"};
+    // Static, so that the measured objects cannot be collected early
+    private static List<Object> old;
+    private static List<BibItem> items;
+
+    public static void main(String[] args) {
+        int count = (args.length > 0 ? Integer.parseInt(args[0]) : 50000);
+
+        // The field values are shared, so that only the representation is measured
+        String[][] values = new String[count][FIELDS.length];
+        String[] ids = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            ids[i] = "item" + i;
+
+            for (int f = 0; f < FIELDS.length; f++) {
+                values[i][f] = FIELDS[f] + " " + i;
+            }
+        }
+
+        long before = usedHeap();
+        old = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Map<String, String> map = new LinkedHashMap<>();
+
+            for (int f = 0; f < FIELDS.length; f++) {
+                map.put(FIELDS[f], values[i][f]);
+            }
+
+            old.add(new Object[]{ids[i], map, new ArrayList<Author>(), new ArrayList<Author>()});
+        }
+
+        long oldSize = usedHeap() - before;
+        old = null;
+
+        before = usedHeap();
+        items = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            BibItem item = new BibItem("inproceedings", ids[i]);
+
+            for (int f = 0; f < FIELDS.length; f++) {
+                item.put(FIELDS[f], values[i][f]);
+            }
+
+            items.add(item);
+        }
+
+        long newSize = usedHeap() - before;
+
+        System.out.printf("%d publications with %d fields%n", count, FIELDS.length);
+        System.out.printf("LinkedHashMap: %6.1f MB (%d bytes per publication)%n", oldSize / 1048576.0, oldSize / count);
+        System.out.printf("Field arrays:  %6.1f MB (%d bytes per publication)%n", newSize / 1048576.0, newSize / count);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import publy.data.bibitem.BibItem;
+import publy.data.category.conditions.FieldContainsCondition;
+import publy.data.category.conditions.FieldEqualsCondition;
+import publy.data.category.conditions.FieldExistsCondition;
+import publy.data.category.conditions.TypeCondition;
+
+/**
+ * Measures the time per publication to find its category among 30
+ * categories, by testing each category in turn and with a
+ * {@link CategoryClassifier}. This is not part of the unit tests; run it by
+ * hand.
+ * <p>
+ * Usage: CategoryClassifierBenchmark [publications] [rounds]
+ *
+ * @author Sander Verdonschot <sander.verdonschot at gmail.com>
+ */
+public class CategoryClassifierBenchmark {
+
+    private static final String[] TYPES = {"article", "inproceedings", "incollection", "book", "techreport", "phdthesis", "mastersthesis", "misc"};
+    private static final String[] VENUES = {"SODA", "STOC", "FOCS", "SoCG", "ICALP", "ESA", "WADS", "SWAT", "CCCG", "ISAAC"};
+    private static int found = 0; // Keeps the results alive
+
+    public static void main(String[] args) {
+        int count = (args.length > 0 ? Integer.parseInt(args[0]) : 20000);
+        int rounds = (args.length > 1 ? Integer.parseInt(args[1]) : 10);
+
+        List<OutputCategory> categories = createCategories();
+        List<BibItem> items = createItems(count);
+        CategoryClassifier classifier = new CategoryClassifier(categories);
+
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+
+            for (BibItem item : items) {
+                for (OutputCategory category : categories) {
+                    if (category.fitsCategory(item)) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+
+            long linear = System.nanoTime() - start;
+
+            start = System.nanoTime();
+
+            for (BibItem item : items) {
+                if (classifier.classify(item) != null) {
+                    found++;
+                }
+            }
+
+            long compiled = System.nanoTime() - start;
+
+            System.out.printf("Round %d: linear scan %.1f ns/item, classifier %.1f ns/item%n", round + 1, linear / (double) count, compiled / (double) count);
+        }
+
+        System.out.println("(" + found + " matches)");
+    }
+
+    /**
+     * A category per venue, one per venue for submitted papers, and a few
+     * general ones, with the most specific categories first.
+     */
+    private static List<OutputCategory> createCategories() {
+        List<OutputCategory> categories = new ArrayList<>();
+
+        for (String venue : VENUES) {
+            OutputCategory category = new OutputCategory("sub" + venue, "Submitted to " + venue, new TypeCondition(false, "inproceedings"));
+            category.getFieldConditions().add(new FieldEqualsCondition(false, "status", "submitted"));
+            category.getFieldConditions().add(new FieldContainsCondition(false, "booktitle", venue));
+            categories.add(category);
+        }
+
+        for (String venue : VENUES) {
+            OutputCategory category = new OutputCategory(venue, venue, new TypeCondition(false, "inproceedings"));
+            category.getFieldConditions().add(new FieldContainsCondition(false, "booktitle", venue, "Proc. " + venue, venue + " Workshop"));
+            category.getFieldConditions().add(new FieldExistsCondition(true, "status"));
+            categories.add(category);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            String type = TYPES[i % TYPES.length];
+            OutputCategory category = new OutputCategory(type + i, type + " " + i, new TypeCondition(false, type));
+
+            if (i < TYPES.length) {
+                category.getFieldConditions().add(new FieldEqualsCondition(false, "year", "2010", "2011", "2012", "2013", "2014"));
+            }
+
+            categories.add(category);
+        }
+
+        return categories;
+    }
+
+    private static List<BibItem> createItems(int count) {
+        Random rand = new Random(42);
+        List<BibItem> items = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            BibItem item = new BibItem(TYPES[rand.nextInt(TYPES.length)], "item" + i);
+            item.put("title", "Title " + i);
+            item.put("year", Integer.toString(2000 + rand.nextInt(17)));
+
+            if (item.getOriginalType().equals("inproceedings")) {
+                String venue = VENUES[rand.nextInt(VENUES.length)];
+                item.put("booktitle", "Proceedings of the " + (i % 30) + "th Annual Symposium on Something (" + venue + ")");
+            }
+
+            if (rand.nextInt(10) == 0) {
+                item.put("status", "submitted");
+            }
+
+            items.add(item);
+        }
+
+        return items;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.data.bibitem.BibItem;
+import publy.data.category.conditions.AndCondition;
+import publy.data.category.conditions.Condition;
+import publy.data.category.conditions.FieldCondition;
+import publy.data.category.conditions.FieldContainsCondition;
+import publy.data.category.conditions.FieldEqualsCondition;
+import publy.data.category.conditions.FieldExistsCondition;
+import publy.data.category.conditions.OrCondition;
+import publy.data.category.conditions.TypeCondition;
+
+/**
+ *
+ *
+ */
+public class CategoryClassifierTest {
+
+    private static final String[] TYPES = {"article", "inproceedings", "book", "misc", "phdthesis", "*"};
+    private static final String[] FIELDS = {"journal", "booktitle", "status", "note"};
+    private static final String[] WORDS = {"", "a", "ab", "ba", "aba", "abab", "b", "bab", "c"};
+
+    public CategoryClassifierTest() {
+    }
+
+    @Test
+    public void testFirstMatch() {
+        System.out.println("First match");
+
+        OutputCategory journals = new OutputCategory("journal", "Journal papers", new TypeCondition(false, "article"));
+        OutputCategory submitted = new OutputCategory("submitted", "Submitted", new TypeCondition(false, "*"));
+        submitted.getFieldConditions().add(new FieldEqualsCondition(false, "status", "submitted"));
+        OutputCategory ieee = new OutputCategory("ieee", "IEEE", new TypeCondition(true, "article"));
+        ieee.getFieldConditions().add(new FieldContainsCondition(false, "booktitle", "IEEE", "IEE Proc"));
+        OutputCategory other = new OutputCategory("other", "Other", new TypeCondition(false, "*"));
+
+        CategoryClassifier classifier = new CategoryClassifier(Arrays.asList(journals, submitted, ieee, other));
+
+        BibItem article = new BibItem("article", "a");
+        article.put("status", "submitted");
+        assertSame(journals, classifier.classify(article));
+
+        BibItem paper = new BibItem("inproceedings", "p");
+        paper.put("booktitle", "Proc. 1st IEEE Symposium");
+        assertSame(ieee, classifier.classify(paper));
+
+        paper.put("status", "submitted");
+        assertSame(submitted, classifier.classify(paper));
+
+        BibItem thesis = new BibItem("phdthesis", "t");
+        assertSame(other, classifier.classify(thesis));
+
+        assertNull(new CategoryClassifier(Arrays.asList(journals, ieee)).classify(thesis));
+    }
+
+    @Test
+    public void testMatchesFitsCategory() {
+        System.out.println("Matches fitsCategory");
+
+        Random rand = new Random(20160315);
+
+        for (int run = 0; run < 500; run++) {
+            List<OutputCategory> categories = new ArrayList<>();
+
+            for (int i = 0; i < 1 + rand.nextInt(8); i++) {
+                OutputCategory category = new OutputCategory("c" + i, "C" + i, new TypeCondition(rand.nextBoolean(), randomSubset(rand, TYPES)));
+
+                for (int j = rand.nextInt(3); j > 0; j--) {
+                    category.getFieldConditions().add(randomCondition(rand));
+                }
+
+                if (rand.nextBoolean()) {
+                    category.setCondition(randomTree(rand, 3));
+                }
+
+                categories.add(category);
+            }
+
+            // The second classifier orders the conditions by the match rates measured by the first
+            for (int repeat = 0; repeat < 2; repeat++) {
+                CategoryClassifier classifier = new CategoryClassifier(categories);
+
+                for (int k = 0; k < 100; k++) {
+                    BibItem item = new BibItem(TYPES[rand.nextInt(TYPES.length - 1)], "item");
+
+                    for (String field : FIELDS) {
+                        if (rand.nextBoolean()) {
+                            item.put(field, randomText(rand));
+                        }
+                    }
+
+                    assertSame(firstFit(categories, item), classifier.classify(item));
+                }
+            }
+        }
+    }
+
+    private static Condition randomTree(Random rand, int depth) {
+        switch (depth == 0 ? 2 + rand.nextInt(2) : rand.nextInt(4)) {
+            case 0:
+            case 1:
+                List<Condition> children = new ArrayList<>();
+
+                for (int i = rand.nextInt(4); i > 0; i--) {
+                    children.add(randomTree(rand, depth - 1));
+                }
+
+                return (rand.nextBoolean() ? new AndCondition(rand.nextBoolean(), children) : new OrCondition(rand.nextBoolean(), children));
+            case 2:
+                return new TypeCondition(rand.nextBoolean(), randomSubset(rand, TYPES));
+            default:
+                return randomCondition(rand);
+        }
+    }
+
+    private static OutputCategory firstFit(List<OutputCategory> categories, BibItem item) {
+        for (OutputCategory category : categories) {
+            if (category.fitsCategory(item)) {
+                return category;
+            }
+        }
+
+        return null;
+    }
+
+    private static FieldCondition randomCondition(Random rand) {
+        String field = FIELDS[rand.nextInt(FIELDS.length)];
+
+        switch (rand.nextInt(3)) {
+            case 0:
+                return new FieldExistsCondition(rand.nextBoolean(), field);
+            case 1:
+                return new FieldEqualsCondition(rand.nextBoolean(), field, randomSubset(rand, WORDS));
+            default:
+                return new FieldContainsCondition(rand.nextBoolean(), field, randomSubset(rand, WORDS));
+        }
+    }
+
+    private static List<String> randomSubset(Random rand, String[] values) {
+        List<String> subset = new ArrayList<>();
+
+        for (String value : values) {
+            if (rand.nextInt(3) == 0) {
+                subset.add(value);
+            }
+        }
+
+        return subset;
+    }
+
+    private static String randomText(Random rand) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = rand.nextInt(8); i > 0; i--) {
+            sb.append("abc".charAt(rand.nextInt(3)));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CategoryStatisticsTest {
+
+    public CategoryStatisticsTest() {
+    }
+
+    /**
+     * Test of save method, of class CategoryStatistics.
+     */
+    @Test
+    public void testSave() throws Exception {
+        System.out.println("save");
+
+        Path dir = Files.createTempDirectory("publy-categories");
+        Path file = CategoryStatistics.getFile(dir.resolve("publications.html"));
+
+        try {
+            CategoryStatistics statistics = new CategoryStatistics(file);
+            assertEquals(0.5, statistics.get("exists:journal").getMatchRate(), 0);
+            record(statistics.get("exists:journal"), 1000, 250);
+            record(statistics.get("exists:note"), 10, 10);
+            statistics.save();
+
+            // The next run starts with the match rates of this one
+            statistics = new CategoryStatistics(file);
+            assertEquals(0.25, statistics.get("exists:journal").getMatchRate(), 1e-9);
+            record(statistics.get("exists:journal"), 1000, 750);
+            assertEquals(0.5, statistics.get("exists:journal").getMatchRate(), 1e-9);
+            statistics.save();
+
+            // Conditions that were not used are dropped
+            statistics = new CategoryStatistics(file);
+            assertEquals(0.5, statistics.get("exists:note").getMatchRate(), 0);
+            assertEquals(0.5, statistics.get("exists:journal").getMatchRate(), 1e-9);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Test of concurrent recording, of class CategoryStatistics.
+     */
+    @Test
+    public void testConcurrentRecord() throws Exception {
+        System.out.println("concurrent record");
+
+        CategoryStatistics.Statistics stats = new CategoryStatistics().get("exists:journal");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> record(stats, 100000, 25000)));
+            }
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // No updates are lost
+        assertArrayEquals(new long[]{400000, 100000}, stats.getCounts());
+    }
+
+    private static void record(CategoryStatistics.Statistics stats, int tests, int matches) {
+        for (int i = 0; i < tests; i++) {
+            stats.record(i < matches);
+        }
+    }
+}
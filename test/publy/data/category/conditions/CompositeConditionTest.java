@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.data.category.conditions;
+
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.data.ExampleBibItems;
+import publy.data.bibitem.BibItem;
+
+/**
+ *
+ *
+ */
+public class CompositeConditionTest {
+
+    public CompositeConditionTest() {
+    }
+
+    /**
+     * Test of matches method, of classes AndCondition and OrCondition.
+     */
+    @Test
+    public void testMatches() {
+        FieldExistsCondition pages = new FieldExistsCondition(false, "pages");
+        FieldExistsCondition pubstate = new FieldExistsCondition(false, "pubstate");
+        TypeCondition article = new TypeCondition(false, "article");
+
+        AndCondition and = new AndCondition(false, pages, pubstate);
+        OrCondition or = new OrCondition(false, pages, pubstate);
+        // Journal papers, and other publications without page numbers
+        OrCondition nested = new OrCondition(false, article, new AndCondition(true, new TypeCondition(true, "article"), pages));
+
+        List<BibItem> items = new ExampleBibItems();
+
+        for (BibItem item : items) {
+            boolean p = pages.matches(item);
+            boolean s = pubstate.matches(item);
+            boolean a = article.matches(item);
+
+            assertEquals("And with " + item, p && s, and.matches(item));
+            assertEquals("Or with " + item, p || s, or.matches(item));
+            assertEquals("Nested with " + item, a || !p, nested.matches(item));
+
+            and.setInverted(true);
+            or.setInverted(true);
+
+            assertEquals("Inverted and with " + item, !(p && s), and.matches(item));
+            assertEquals("Inverted or with " + item, !(p || s), or.matches(item));
+
+            and.setInverted(false);
+            or.setInverted(false);
+        }
+
+        // Empty combinations
+        assertTrue(new AndCondition(false).matches(items.get(0)));
+        assertFalse(new OrCondition(false).matches(items.get(0)));
+    }
+}
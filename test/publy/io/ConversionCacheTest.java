@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConversionCacheTest {
+
+    public ConversionCacheTest() {
+    }
+
+    /**
+     * Test of get method, of class ConversionCache.
+     */
+    @Test
+    public void testGet() {
+        System.out.println("get");
+
+        ConversionCache cache = new ConversionCache(1024, 10);
+        AtomicInteger conversions = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ABC", cache.get("abc", s -> {
+                conversions.incrementAndGet();
+                return s.toUpperCase();
+            }));
+        }
+
+        assertEquals(1, conversions.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // Long strings are not cached
+        String longString = "abcdefghijklmnop";
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(longString.toUpperCase(), cache.get(longString, s -> {
+                conversions.incrementAndGet();
+                return s.toUpperCase();
+            }));
+        }
+
+        assertEquals(3, conversions.get());
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void testCapacity() {
+        System.out.println("capacity");
+
+        ConversionCache cache = new ConversionCache(256, 100);
+
+        IntStream.range(0, 100000).parallel().forEach(i -> {
+            String s = Integer.toString(i % 5000);
+            assertEquals(s + "!", cache.get(s, t -> t + "!"));
+        });
+
+        assertTrue(cache.size() <= 256);
+        assertEquals(100000, cache.getHits() + cache.getMisses());
+    }
+}
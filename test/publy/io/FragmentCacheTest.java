@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.Console;
+import publy.algo.PublicationListGenerator;
+import publy.data.Author;
+import publy.data.Section;
+import publy.data.bibitem.BibItem;
+import publy.data.category.CategoryStatistics;
+import publy.data.settings.Settings;
+import publy.io.html.HTMLPublicationListWriter;
+
+public class FragmentCacheTest {
+
+    public FragmentCacheTest() {
+    }
+
+    /**
+     * Test of write method, of class FragmentCache.
+     */
+    @Test
+    public void testWrite() throws IOException {
+        System.out.println("write");
+
+        Section section = new Section("conference", "Conference papers");
+
+        for (int i = 0; i < 10; i++) {
+            BibItem item = new BibItem("inproceedings", "item" + i);
+            item.put("author", "Doe, Jane");
+            item.setAuthors(new Author("Doe, Jane"));
+            item.put("title", "Title " + i);
+            item.put("booktitle", "Proceedings");
+            item.put("year", "2016");
+            section.addItem(item);
+        }
+
+        Settings settings = Settings.defaultSettings();
+        settings.getConsoleSettings().setShowWarnings(false);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        Path dir = Files.createTempDirectory("publy-fragments");
+        GenerationOptions options = new GenerationOptions();
+        options.setFragmentCache(true);
+        options.setFragmentMemory(new FragmentCache.Memory());
+
+        try {
+            settings.getFileSettings().setTarget(dir.resolve("publications.html"));
+            String expected = write(settings, new GenerationContext(settings), section);
+
+            // First run: everything is written
+            GenerationContext context = new GenerationContext(settings, options);
+            assertEquals(expected, write(settings, context, section));
+            assertEquals(0, context.getFragments().getHits());
+            assertEquals(10, context.getFragments().getMisses());
+            assertTrue(Files.exists(FragmentCache.getCacheFile(settings.getFileSettings().getTarget())));
+
+            // Next run, as a new process: everything is read from the cache file
+            GenerationOptions newProcess = new GenerationOptions();
+            newProcess.setFragmentCache(true);
+            context = new GenerationContext(settings, newProcess);
+            assertEquals(expected, write(settings, context, section));
+            assertEquals(10, context.getFragments().getHits());
+            assertEquals(0, context.getFragments().getMisses());
+
+            // Next run in the same program: everything is taken from the memory
+            Files.delete(FragmentCache.getCacheFile(settings.getFileSettings().getTarget()));
+            context = new GenerationContext(settings, options);
+            assertEquals(expected, write(settings, context, section));
+            assertEquals(10, context.getFragments().getHits());
+            assertEquals(0, context.getFragments().getMisses());
+
+            // A changed publication is written again
+            section.getItems().get(3).put("title", "A new title");
+            String changed = write(settings, new GenerationContext(settings), section);
+            assertNotEquals(expected, changed);
+            context = new GenerationContext(settings, options);
+            assertEquals(changed, write(settings, context, section));
+            assertEquals(9, context.getFragments().getHits());
+            assertEquals(1, context.getFragments().getMisses());
+
+            // Different settings invalidate everything
+            settings.getGeneralSettings().setTitleFirst(!settings.getGeneralSettings().isTitleFirst());
+            changed = write(settings, new GenerationContext(settings), section);
+            context = new GenerationContext(settings, options);
+            assertEquals(changed, write(settings, context, section));
+            assertEquals(0, context.getFragments().getHits());
+            assertEquals(10, context.getFragments().getMisses());
+        } finally {
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Test of save method, of class FragmentCache, after a failed run.
+     */
+    @Test
+    public void testSaveAfterFailure() throws IOException {
+        System.out.println("save after failure");
+
+        Settings settings = Settings.defaultSettings();
+        settings.getConsoleSettings().setShowWarnings(false);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        Path dir = Files.createTempDirectory("publy-fragments");
+        GenerationOptions options = new GenerationOptions();
+        options.setFragmentCache(true);
+
+        try {
+            Path pubList = dir.resolve("publications.bib");
+            Files.write(pubList, "@Article{a, author = {Doe, Jane}, title = {Title}, journal = {Journal}, year = 2016}\n".getBytes(StandardCharsets.UTF_8));
+            settings.getFileSettings().setPublications(pubList);
+            settings.getFileSettings().setTarget(dir.resolve("publications.html"));
+            assertTrue(PublicationListGenerator.generatePublicationList(settings, options));
+
+            Path cacheFile = FragmentCache.getCacheFile(settings.getFileSettings().getTarget());
+            byte[] cached = Files.readAllBytes(cacheFile);
+            Path statisticsFile = CategoryStatistics.getFile(settings.getFileSettings().getTarget());
+            byte[] statistics = Files.readAllBytes(statisticsFile);
+            assertTrue(statistics.length > 0);
+
+            // A run that cannot read the publications keeps the cache
+            Path unreadable = dir.resolve("unreadable.bib");
+            Files.createDirectory(unreadable);
+            settings.getFileSettings().setPublications(unreadable);
+            assertFalse(PublicationListGenerator.generatePublicationList(settings, options));
+            assertArrayEquals(cached, Files.readAllBytes(cacheFile));
+            assertArrayEquals(statistics, Files.readAllBytes(statisticsFile));
+        } finally {
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static String write(Settings settings, GenerationContext context, Section section) throws IOException {
+        Path target = settings.getFileSettings().getTarget();
+        List<Section> sections = Arrays.asList(section);
+        new HTMLPublicationListWriter(settings, context).writePublicationList(sections, target);
+        context.getFragments().save();
+        return new String(Files.readAllBytes(target), StandardCharsets.UTF_8);
+    }
+}
@@ -4,8 +4,13 @@
  */
 package publy.io;
 
+import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -124,4 +129,182 @@ public class LatexToUnicodeTest {
             assertEquals(input, expectedResult, result);
         }
     }
+
+    /**
+     * Compares convertToUnicode to the regular expressions it replaces, on
+     * random text built from pieces of LaTeX commands.
+     */
+    @Test
+    public void testConvertToUnicodeMatchesPatterns() {
+        System.out.println("convertToUnicodeMatchesPatterns");
+
+        String[] pieces = {"\\", "\\", "\\", "'", "`", "^", "\"", "~", "=", ".", "{", "}", "{}", " ", "i", "j", "o",
+            "e", "$", "(", ")", "\n", "AA", "ss", "alpha", "c", "H", "ElsevierGlyph", "2129", "\uD83D\uDE00", "\u2028"};
+        Random random = new Random(20161018);
+
+        for (int test = 0; test < 200000; test++) {
+            StringBuilder input = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+
+            for (int i = 0; i < length; i++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+
+            assertEquals(input.toString(), PatternConverter.convertToUnicode(input.toString()), LatexToUnicode.convertToUnicode(input.toString()));
+        }
+    }
+
+    /**
+     * The conversion as it was implemented with regular expressions.
+     */
+    private static class PatternConverter {
+
+        private static final Pattern LATEX_COMMAND_1 = Pattern.compile("(\\\\[^ \\\\{}]+)($| |\\}|\\\\|\\{[^}]*\\})");
+        private static final Pattern LATEX_COMMAND_2 = Pattern.compile("\\\\(['`\\^\"~=.])(\\\\i ?|\\\\j ?|.)");
+        private static final Map<String, Character> LATEX_TO_UNICODE = getSpecialCharacters();
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Character> getSpecialCharacters() {
+            try {
+                Field field = LatexToUnicode.class.getDeclaredField("LATEX_TO_UNICODE");
+                field.setAccessible(true);
+                return (Map<String, Character>) field.get(null);
+            } catch (ReflectiveOperationException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+
+        static String convertToUnicode(String s) {
+            StringBuilder result = new StringBuilder();
+            StringBuilder part = new StringBuilder();
+
+            boolean math = false;
+            boolean escape = false;
+
+            for (char c : s.toCharArray()) {
+                if (!math) {
+                    if (!escape) {
+                        switch (c) {
+                            case '$':
+                                math = true;
+                                break;
+                            case '\\':
+                                escape = true;
+                                break;
+                            default:
+                                part.append(c);
+                                break;
+                        }
+                    } else {
+                        switch (c) {
+                            case '(':
+                                math = true;
+                                break;
+                            default:
+                                part.append('\\');
+                                part.append(c);
+                                break;
+                        }
+
+                        escape = false;
+                    }
+
+                    if (math) {
+                        if (part.length() > 0) {
+                            result.append(convertNonMathToUnicode(part.toString()));
+                            part.setLength(0);
+                        }
+
+                        if (c == '(') {
+                            result.append('\\');
+                        }
+
+                        result.append(c);
+                    }
+                } else {
+                    if (!escape) {
+                        if (c == '$') {
+                            math = false;
+                        } else if (c == '\\') {
+                            escape = true;
+                        }
+                    } else {
+                        if (c == ')') {
+                            math = false;
+                        }
+
+                        escape = false;
+                    }
+
+                    result.append(c);
+                }
+            }
+
+            if (part.length() > 0) {
+                result.append(convertNonMathToUnicode(part.toString()));
+            }
+
+            return result.toString();
+        }
+
+        private static String convertNonMathToUnicode(String s) {
+            String result = replaceCommands(s, LATEX_COMMAND_2);
+            return replaceCommands(result, LATEX_COMMAND_1);
+        }
+
+        private static String replaceCommands(String input, Pattern commandPattern) {
+            StringBuilder result = new StringBuilder();
+            Matcher m = commandPattern.matcher(input);
+
+            int currentSearchPosition = 0;
+
+            while (m.find(currentSearchPosition)) {
+                int nextSearchPosition = m.end();
+
+                String command;
+                String tail = "";
+
+                if (commandPattern == LATEX_COMMAND_1) {
+                    if (m.group().endsWith("}") && m.group().contains("{")) {
+                        command = m.group();
+                    } else {
+                        command = m.group(1);
+
+                        if (m.group(2).equals("\\")) {
+                            nextSearchPosition--;
+                        } else {
+                            tail = m.group(2);
+                        }
+                    }
+                } else {
+                    if (m.group(2).length() > 1) {
+                        command = '\\' + m.group(1) + '{' + m.group(2).trim() + '}';
+                    } else {
+                        command = '\\' + m.group(1) + '{' + m.group(2) + '}';
+                    }
+                }
+
+                if (LATEX_TO_UNICODE.containsKey(command)) {
+                    result.append(input.substring(currentSearchPosition, m.start()))
+                            .append(Character.toString(LATEX_TO_UNICODE.get(command)))
+                            .append(tail);
+                } else if (commandPattern == LATEX_COMMAND_1 && LATEX_TO_UNICODE.containsKey(m.group(1))) {
+                    result.append(input.substring(currentSearchPosition, m.start()))
+                            .append(Character.toString(LATEX_TO_UNICODE.get(m.group(1))));
+
+                    if (!m.group(2).equals("{}")) {
+                        result.append(m.group(2));
+                    }
+                } else {
+                    result.append(input.substring(currentSearchPosition, nextSearchPosition));
+                }
+
+                currentSearchPosition = nextSearchPosition;
+            }
+
+            result.append(input.substring(currentSearchPosition));
+
+            return result.toString();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ReferenceCheckerTest {
+
+    public ReferenceCheckerTest() {
+    }
+
+    /**
+     * Test of checkAll and exists methods, of class ReferenceChecker.
+     */
+    @Test
+    public void testExists() throws IOException {
+        System.out.println("exists");
+
+        Path dir = Files.createTempDirectory("publy");
+
+        try {
+            List<Path> files = new ArrayList<>();
+
+            for (int i = 0; i < 20; i++) {
+                Path file = dir.resolve("paper" + i + ".pdf");
+                files.add(file);
+                files.add(file); // Duplicates are checked once
+
+                if (i % 2 == 0) {
+                    Files.createFile(file);
+                }
+            }
+
+            ReferenceChecker checker = new ReferenceChecker();
+            checker.checkAll(files);
+            assertEquals(20, checker.getChecks());
+
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i % 2 == 0, checker.exists(dir.resolve("paper" + i + ".pdf")));
+                assertEquals(i % 2 == 0, checker.exists(dir.resolve("sub/../paper" + i + ".pdf")));
+            }
+
+            assertEquals(20, checker.getChecks());
+            assertEquals(40, checker.getHits());
+
+            assertFalse(checker.exists(dir.resolve("other.pdf")));
+            assertEquals(21, checker.getChecks());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    /**
+     * Test of the cache file of class ReferenceChecker.
+     */
+    @Test
+    public void testCacheFile() throws IOException {
+        System.out.println("cacheFile");
+
+        Path dir = Files.createTempDirectory("publy");
+
+        try {
+            Path files = Files.createDirectory(dir.resolve("files"));
+            Path present = Files.createFile(files.resolve("present.pdf"));
+            Path missing = files.resolve("missing.pdf");
+            Path cacheFile = dir.resolve("references.txt");
+            FileTime time = FileTime.fromMillis(1400000000000L);
+            Files.setLastModifiedTime(files, time);
+
+            ReferenceChecker first = new ReferenceChecker(cacheFile);
+            assertTrue(first.exists(present));
+            assertFalse(first.exists(missing));
+            first.save();
+            assertEquals(2, first.getChecks());
+
+            // Unchanged directory: answered from the cache file
+            ReferenceChecker second = new ReferenceChecker(cacheFile);
+            assertTrue(second.exists(present));
+            assertFalse(second.exists(missing));
+            assertEquals(0, second.getChecks());
+
+            // Adding a file changes the directory, so its files are checked again
+            Files.createFile(missing);
+            Files.setLastModifiedTime(files, FileTime.fromMillis(time.toMillis() + 1000));
+
+            ReferenceChecker third = new ReferenceChecker(cacheFile);
+            assertTrue(third.exists(present));
+            assertTrue(third.exists(missing));
+            assertEquals(2, third.getChecks());
+            third.save();
+
+            // Answers that were not needed are dropped
+            ReferenceChecker fourth = new ReferenceChecker(cacheFile);
+            assertTrue(fourth.exists(present));
+            assertEquals(0, fourth.getChecks());
+            fourth.save();
+            assertEquals(1, Files.readAllLines(cacheFile).size());
+
+            // A directory that changed shortly before the check is checked again
+            Files.setLastModifiedTime(files, FileTime.fromMillis(System.currentTimeMillis()));
+            ReferenceChecker fifth = new ReferenceChecker(cacheFile);
+            assertTrue(fifth.exists(present));
+            assertEquals(1, fifth.getChecks());
+            fifth.save();
+
+            Files.delete(present);
+            ReferenceChecker sixth = new ReferenceChecker(cacheFile);
+            assertFalse(sixth.exists(present));
+            assertEquals(1, sixth.getChecks());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        List<Path> paths = new ArrayList<>();
+
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.forEach(paths::add);
+        }
+
+        for (int i = paths.size() - 1; i >= 0; i--) {
+            Files.delete(paths.get(i));
+        }
+    }
+}
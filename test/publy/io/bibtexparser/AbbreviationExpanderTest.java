@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.Console;
+import publy.data.Author;
+import publy.data.bibitem.BibItem;
+import publy.data.settings.ConsoleSettings;
+
+public class AbbreviationExpanderTest {
+
+    private static final Pattern abbrPattern = Pattern.compile("<<([^>]*)>>");
+    private static final Pattern mistakePattern = Pattern.compile("(?:^|[^<])<([^<>]*)>(?:$|[^>])|<<([^<>]*)>(?:$|[^>])|(?:^|[^<])<([^<>]*)>>");
+
+    public AbbreviationExpanderTest() {
+    }
+
+    @Test
+    public void testExpand() {
+        System.out.println("expand");
+
+        Map<String, String> abbreviations = new LinkedHashMap<>();
+        abbreviations.put("conf", "Proceedings of <<short>>");
+        abbreviations.put("short", "<<s>> conference");
+        abbreviations.put("s", "SoCG");
+        Map<String, Author> authors = new HashMap<>();
+        authors.put("me", new Author("Doe, Jane"));
+
+        AbbreviationExpander expander = new AbbreviationExpander(abbreviations, authors);
+        expander.expandDefinitions();
+
+        // Definitions may use abbreviations that are defined later
+        assertEquals("Proceedings of SoCG conference", abbreviations.get("conf"));
+        assertEquals("SoCG conference", abbreviations.get("short"));
+
+        BibItem item = new BibItem("inproceedings", "test");
+        item.put("author", "<<me>> and Other, An");
+        item.put("booktitle", "<<conf>>, <<short>> 2015");
+        item.put("title", "No abbreviations here");
+        expander.expand(item);
+
+        assertEquals("<<me>> and Other, An", item.get("author"));
+        assertEquals("Proceedings of SoCG conference, SoCG conference 2015", item.get("booktitle"));
+        assertEquals("No abbreviations here", item.get("title"));
+    }
+
+    @Test
+    public void testExpandDefinitionsWithCycle() {
+        System.out.println("expandDefinitionsWithCycle");
+
+        Map<String, String> abbreviations = new LinkedHashMap<>();
+        abbreviations.put("a", "A uses <<b>>");
+        abbreviations.put("b", "B uses <<c>> and <<d>>");
+        abbreviations.put("c", "C uses <<a>>");
+        abbreviations.put("d", "D");
+
+        List<String> output = capture(() -> new AbbreviationExpander(abbreviations, new HashMap<String, Author>()).expandDefinitions());
+
+        assertEquals(1, output.size());
+        assertTrue(output.get(0), output.get(0).contains("(a -> b -> c -> a)"));
+        assertEquals("A uses B uses C uses <<a>> and D", abbreviations.get("a"));
+        assertEquals("B uses C uses <<a>> and D", abbreviations.get("b"));
+        assertEquals("C uses <<a>>", abbreviations.get("c"));
+    }
+
+    @Test
+    public void testExpandDefinitionsLongChain() {
+        System.out.println("expandDefinitionsLongChain");
+
+        // Defined in reverse order, so that every definition is a forward reference
+        Map<String, String> abbreviations = new LinkedHashMap<>();
+        int length = 100000;
+
+        for (int i = 0; i < length; i++) {
+            abbreviations.put("m" + i, (i == length - 1 ? "end" : "<<m" + (i + 1) + ">>"));
+        }
+
+        new AbbreviationExpander(abbreviations, new HashMap<String, Author>()).expandDefinitions();
+
+        assertEquals("end", abbreviations.get("m0"));
+        assertEquals("end", abbreviations.get("m" + (length / 2)));
+    }
+
+    /**
+     * Compares the expander to the regular expressions it replaces, on random
+     * text that consists mostly of angle brackets.
+     */
+    @Test
+    public void testExpandMatchesPatterns() {
+        System.out.println("expandMatchesPatterns");
+
+        ConsoleSettings settings = new ConsoleSettings();
+        settings.setShowWarnings(true);
+        settings.setWarnPossibleMistakenAbbreviation(true);
+        Console.setSettings(settings);
+        Console.setHeadless(true);
+
+        Map<String, String> abbreviations = new LinkedHashMap<>();
+        abbreviations.put("a", "[A]");
+        abbreviations.put("ab", "[AB]");
+        Map<String, Author> authors = new HashMap<>();
+        authors.put("b", new Author("Doe, Jane"));
+
+        AbbreviationExpander expander = new AbbreviationExpander(abbreviations, authors);
+        Random random = new Random(20151018);
+        String alphabet = "<<<>>>ab c\n";
+
+        for (int test = 0; test < 20000; test++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(16);
+
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            BibItem expected = new BibItem("misc", "test");
+            expected.put("note", text.toString());
+            List<String> expectedOutput = capture(() -> expandWithPatterns(expected, abbreviations, authors));
+
+            BibItem actual = new BibItem("misc", "test");
+            actual.put("note", text.toString());
+            List<String> actualOutput = capture(() -> expander.expand(actual));
+
+            assertEquals(text.toString(), expected.get("note"), actual.get("note"));
+            assertEquals(text.toString(), expectedOutput, actualOutput);
+        }
+    }
+
+    /**
+     * Runs the given code, and returns its console output. Mistake warnings
+     * come before other messages, as they used to.
+     */
+    private static List<String> capture(Runnable code) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try {
+            System.setOut(new PrintStream(bytes, true));
+            code.run();
+        } finally {
+            System.setOut(out);
+        }
+
+        List<String> mistakes = new ArrayList<>();
+        List<String> others = new ArrayList<>();
+
+        for (String line : bytes.toString().split("\\r?\\n")) {
+            (line.contains("Did you mean") ? mistakes : others).add(line);
+        }
+
+        mistakes.addAll(others);
+        return mistakes;
+    }
+
+    private static void expandWithPatterns(BibItem item, Map<String, String> abbreviations, Map<String, Author> authors) {
+        String value = item.get("note");
+        Matcher matcher = mistakePattern.matcher(value);
+
+        while (matcher.find()) {
+            String abbreviation = (matcher.group(1) != null ? matcher.group(1) : (matcher.group(2) != null ? matcher.group(2) : matcher.group(3)));
+
+            if (abbreviations.containsKey(abbreviation) || authors.containsKey(abbreviation)) {
+                Console.warn(Console.WarningType.POSSIBLE_MISTAKEN_ABBREVIATION, "I found the text \"%s\" in field \"%s\" of publication \"%s\". Did you mean to use an abbreviation (\"%s\") here?", matcher.group().trim(), "note", item.getId(), "<<" + abbreviation + ">>");
+            }
+        }
+
+        StringBuilder finalValue = new StringBuilder();
+        matcher = abbrPattern.matcher(value);
+        int prevEnd = 0;
+
+        while (matcher.find()) {
+            finalValue.append(value.substring(prevEnd, matcher.start()));
+            String abbreviation = matcher.group(1);
+
+            if (abbreviations.containsKey(abbreviation)) {
+                finalValue.append(abbreviations.get(abbreviation));
+            } else if (authors.containsKey(abbreviation)) {
+                finalValue.append("<<").append(abbreviation).append(">>");
+            } else {
+                Console.error("Abbreviation \"%s\" is used, but never defined.", abbreviation);
+            }
+
+            prevEnd = matcher.end();
+        }
+
+        finalValue.append(value.substring(prevEnd));
+        item.put("note", finalValue.toString());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.bibtexparser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import publy.data.bibitem.BibItem;
+
+/**
+ * Compares the Reader and read-at-once paths of
+ * {@link PublicationListParser#parseFile(Path, ParseOptions)} on a generated
+ * publication list. This is not part of the unit tests; run it by hand.
+ * <p>
+ * Usage: ParseFileBenchmark [size in MB] [runs]
+ *
+ * @author Sander Verdonschot <sander.verdonschot at gmail.com>
+ */
+public class ParseFileBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0 ? Long.parseLong(args[0]) : 100) << 20;
+        int runs = (args.length > 1 ? Integer.parseInt(args[1]) : 5);
+
+        Path file = Files.createTempFile("publy-benchmark", ".bib");
+
+        try {
+            generate(file, size);
+            System.out.printf("Generated %d MB%n", Files.size(file) >> 20);
+
+            ParseOptions reader = new ParseOptions();
+            reader.setReadAtOnce(false);
+            ParseOptions atOnce = new ParseOptions();
+            ParseOptions parallel = new ParseOptions();
+            parallel.setParallelism(Runtime.getRuntime().availableProcessors());
+
+            for (int run = 0; run < runs; run++) {
+                time("Reader", file, reader);
+                time("Read at once", file, atOnce);
+                time("Read at once, parallel", file, parallel);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void time(String name, Path file, ParseOptions options) throws IOException, ParseException {
+        long start = System.nanoTime();
+        List<BibItem> items = PublicationListParser.parseFile(file, options);
+        long time = System.nanoTime() - start;
+
+        System.out.printf("%-25s %6d ms (%d items)%n", name, time / 1000000, items.size());
+    }
+
+    private static void generate(Path file, long size) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("@String{conf = \"Proceedings of the Symposium on Benchmarks\"}\n");
+            out.write("<author short=\"me\" name=\"Benchmark, Béatrice\">\n\n");
+
+            long written = 0;
+
+            for (int i = 0; written < size; i++) {
+                StringBuilder sb = new StringBuilder();
+                sb.append("@InProceedings{item").append(i).append(",\n");
+                sb.append("  author = {<<me>> and Author ").append(i % 97).append(", First and Other, Second},\n");
+                sb.append("  title = \"On the {{\\LaTeX}} typesetting of item ").append(i).append("\",\n");
+                sb.append("  booktitle = conf,\n");
+                sb.append("  pages = {").append(i % 300).append("--").append(i % 300 + 12).append("},\n");
+                sb.append("  year = ").append(1980 + i % 40).append(",\n");
+                sb.append("  abstract = {A fairly long abstract that the parser has to scan, with {nested {braces}}, ")
+                        .append("accents like \\'{e} and ü, and enough text to resemble a real entry.}\n");
+                sb.append("}\n\n");
+
+                out.write(sb.toString());
+                written += sb.length();
+            }
+        }
+    }
+}
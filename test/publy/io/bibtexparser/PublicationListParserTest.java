@@ -18,9 +18,17 @@ package publy.io.bibtexparser;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -270,6 +278,40 @@ public class PublicationListParserTest {
                 }).init()
                 )
             },
+            new Object[]{
+                "@Book{broken,\n"
+                + "  author =	 {Testing},\n"
+                + "  title =	 {Missing closing brace},\n"
+                + "\n"
+                + "@Book{steward03,\n"
+                + "  author =	 {Testing},\n"
+                + "}",
+                Arrays.asList(
+                (new BibItem("book", "steward03") {
+                    BibItem init() {
+                        put("author", "Testing");
+                        return this;
+                    }
+                }).init()
+                )
+            },
+            new Object[]{
+                "@Book{broken,\n"
+                + "  author =	 {<<me>> and @somebody} title = {Missing comma},\n"
+                + "}\n"
+                + "<author short=\"me\" name=\"Test Author\" broken>\n"
+                + "@Book{steward03,\n"
+                + "  author =	 {Testing},\n"
+                + "}",
+                Arrays.asList(
+                (new BibItem("book", "steward03") {
+                    BibItem init() {
+                        put("author", "Testing");
+                        return this;
+                    }
+                }).init()
+                )
+            },
             new Object[]{
                 "@comment{ this entire line is a comment @Book{steward03,}\n"
                 + "  author =	 {Testing},\n"
@@ -301,6 +343,220 @@ public class PublicationListParserTest {
         }
     }
 
+    /**
+     * Test of parseBibTeX method, of class PublicationListParser, when many
+     * files are parsed concurrently.
+     */
+    @Test
+    public void testParseBibTeXConcurrently() throws Exception {
+        System.out.println("parseBibTeX concurrently");
+
+        int nFiles = 32;
+        List<String> inputs = new ArrayList<>(nFiles);
+        List<List<BibItem>> sequentialResults = new ArrayList<>(nFiles);
+
+        for (int i = 0; i < nFiles; i++) {
+            int nItems = 50 + 10 * i;
+            inputs.add(generateBibTeX(i, nItems));
+            sequentialResults.add(PublicationListParser.parseBibTeX(new StringReader(inputs.get(i))));
+            assertEquals("File " + i, nItems, sequentialResults.get(i).size());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<List<BibItem>>> concurrentResults = new ArrayList<>(nFiles);
+
+            for (final String input : inputs) {
+                concurrentResults.add(pool.submit(() -> PublicationListParser.parseBibTeX(new StringReader(input))));
+            }
+
+            for (int i = 0; i < nFiles; i++) {
+                assertEqualLists("File " + i, sequentialResults.get(i), concurrentResults.get(i).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test of parseFile method, of class PublicationListParser, when the file
+     * is split into chunks that are parsed in parallel.
+     */
+    @Test
+    public void testParseFileInParallel() throws Exception {
+        System.out.println("parseFile in parallel");
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Some {{comments} with unbalanced braces\n");
+        int part = 0;
+
+        while (sb.length() < 3 << 20) {
+            sb.append(generateBibTeX(part, 100));
+
+            // Entries delimited by parentheses can contain lines that look like the start of an entry
+            for (int i = 0; i < 20; i++) {
+                sb.append("@Book(paren").append(part).append('-').append(i).append(",\n");
+                sb.append("  author = <<team>>,\n");
+                sb.append("  title = \"Line one\n");
+
+                for (int j = 0; j < 500; j++) {
+                    sb.append("@Fake entry, ü\n");
+                }
+
+                sb.append("\",\n");
+                sb.append(")\n");
+            }
+
+            sb.append("@Book{broken").append(part).append(",\n  title = {Missing brace},\n\n");
+            part++;
+        }
+
+        String input = sb.toString();
+        Path file = Files.createTempFile("publy-parallel", ".bib");
+
+        try {
+            Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+
+            ParseOptions options = new ParseOptions();
+            options.setParallelism(4);
+
+            List<BibItem> expected = PublicationListParser.parseBibTeX(new StringReader(input));
+            List<BibItem> result = PublicationListParser.parseFile(file, options);
+
+            assertEqualLists("Parallel parse", expected, result);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test of parseFile method, of class PublicationListParser, when the file
+     * is read at once.
+     */
+    @Test
+    public void testParseFileReadAtOnce() throws Exception {
+        System.out.println("parseFile read at once");
+
+        StringBuilder sb = new StringBuilder(generateBibTeX(0, 500));
+        sb.append("@Misc{unicode,\r\n  title = {Caf\u00e9 \ud835\udc9c},\r\n  note = \"Line\rbreaks\"\r\n}\r\n");
+        sb.append("@Book{broken,\n  title = {Missing brace},\n\n@Misc{last, year = 2015}");
+
+        String input = sb.toString();
+        Path file = Files.createTempFile("publy-at-once", ".bib");
+
+        try {
+            Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+
+            ParseOptions atOnce = new ParseOptions();
+            ParseOptions reader = new ParseOptions();
+            reader.setReadAtOnce(false);
+
+            List<BibItem> expected = PublicationListParser.parseFile(file, reader);
+            List<BibItem> result = PublicationListParser.parseFile(file, atOnce);
+
+            assertEquals(502, expected.size());
+            assertEquals("Caf\u00e9 \ud835\udc9c", expected.get(500).get("title"));
+            assertEqualLists("Read at once", expected, result);
+
+            // Invalid UTF-8 is reported in the same way by both paths
+            Files.write(file, new byte[]{'@', 'M', 'i', 's', 'c', '{', (byte) 0xC3, '}'});
+
+            for (ParseOptions options : Arrays.asList(reader, atOnce)) {
+                try {
+                    PublicationListParser.parseFile(file, options);
+                    fail("Malformed input was not reported.");
+                } catch (MalformedInputException ex) {
+                    // Expected
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test of parseFile method, of class PublicationListParser. Equal values
+     * should be the same instance.
+     */
+    @Test
+    public void testParseFileSharesValues() throws Exception {
+        System.out.println("parseFile shared values");
+
+        Path file = Files.createTempFile("publy-values", ".bib");
+
+        try {
+            Files.write(file, (generateBibTeX(0, 10) + "@Misc{a, author = {Shared, Name}, title = {<<proc>>}}\n@Misc{b, author = {Shared, Name}, title = \"<<proc>>\"}\n").getBytes(StandardCharsets.UTF_8));
+
+            List<BibItem> items = PublicationListParser.parseFile(file, new ParseOptions());
+
+            assertEquals(12, items.size());
+            assertEquals("Proceedings of the Symposium on Test 0", items.get(0).get("booktitle"));
+            assertSame(items.get(0).get("booktitle"), items.get(9).get("booktitle"));
+            assertSame(items.get(0).get("booktitle"), items.get(10).get("title"));
+            assertSame(items.get(0).get("booktitle"), items.get(11).get("title"));
+            assertSame(items.get(10).getAuthors().get(0), items.get(11).getAuthors().get(0));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test of streamFile method, of class PublicationListParser, for lists
+     * with cross-references.
+     */
+    @Test
+    public void testStreamFileCrossref() throws Exception {
+        System.out.println("streamFile crossref");
+
+        Path file = Files.createTempFile("publy-crossref", ".bib");
+        String crossref = "@InProceedings{child, author = {Child, Name}, title = {Child}, crossref = {parent}}\n@Proceedings{parent, title = {<<proc>>}, year = 2016}\n";
+
+        try {
+            // Without cross-references, the publications are parsed later
+            Files.write(file, generateBibTeX(0, 10).getBytes(StandardCharsets.UTF_8));
+            PublicationStream stream = PublicationListParser.streamFile(file);
+            assertNull(stream.getPublications());
+            assertFalse(stream.getFieldNames().contains("crossref"));
+
+            // An early cross-reference: the first pass keeps the complete list
+            Files.write(file, (crossref + generateBibTeX(0, 10)).getBytes(StandardCharsets.UTF_8));
+            stream = PublicationListParser.streamFile(file);
+            assertNotNull(stream.getPublications());
+            assertEqualLists("crossref", PublicationListParser.parseFile(file, new ParseOptions()), stream.getPublications());
+            assertEquals("Proceedings of the Symposium on Test 0", stream.getPublications().get(1).get("title"));
+
+            // A late cross-reference: the first publications were not kept
+            Files.write(file, (generateBibTeX(0, 5000) + crossref).getBytes(StandardCharsets.UTF_8));
+            stream = PublicationListParser.streamFile(file);
+            assertNull(stream.getPublications());
+            assertTrue(stream.getFieldNames().contains("crossref"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private String generateBibTeX(int file, int nItems) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("@String{venue").append(file).append(" = \"Symposium on Test ").append(file).append("\"}\n");
+        sb.append("@String{proc = \"Proceedings of the \" # venue").append(file).append("}\n");
+        sb.append("<author short=\"me\" name=\"Author ").append(file).append(", Test\">\n");
+        sb.append("<abbr short=\"team\" full=\"<<me>> and Other, Person\">\n\n");
+
+        for (int i = 0; i < nItems; i++) {
+            sb.append("@InProceedings{item").append(file).append('-').append(i).append(",\n");
+            sb.append("  author = {<<team>> and Person ").append(i).append("},\n");
+            sb.append("  title = \"The {{\\LaTeX}} title\n   number ").append(i).append("\",\n");
+            sb.append("  booktitle = proc,\n");
+            sb.append("  year = ").append(1990 + i % 30).append(",\n");
+            sb.append("  note = {Braces {\"inside\"} and # signs}\n");
+            sb.append("}\n\n");
+        }
+
+        return sb.toString();
+    }
+
     private void assertEqualLists(String message, List<BibItem> expected, List<BibItem> actual) {
         assertEquals(message, expected.size(), actual.size());
 
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Sander Verdonschot <sander.verdonschot at gmail.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package publy.io.html;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import publy.Console;
+import publy.data.bibitem.BibItem;
+import publy.data.settings.Settings;
+import publy.io.bibtex.BibtexBibItemWriter;
+import publy.io.bibtexparser.PublicationListParser;
+
+/**
+ * Compares {@link HTMLEscaper} with the chain of regular expressions that it
+ * replaced, on the BibTeX of the publications in a publication list. This is
+ * not part of the unit tests; run it by hand.
+ * <p>
+ * Usage: HTMLEscaperBenchmark [publication list] [runs]
+ *
+ * @author Sander Verdonschot <sander.verdonschot at gmail.com>
+ */
+public class HTMLEscaperBenchmark {
+
+    private static final int ITERATIONS = 20000;
+
+    public static void main(String[] args) throws Exception {
+        String file = (args.length > 0 ? args[0] : "publications.bib");
+        int runs = (args.length > 1 ? Integer.parseInt(args[1]) : 5);
+
+        Settings settings = Settings.defaultSettings();
+        settings.getConsoleSettings().setShowWarnings(false);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        List<String> bibtex = new ArrayList<>();
+
+        for (BibItem item : PublicationListParser.parseFile(Paths.get(file))) {
+            StringWriter text = new StringWriter();
+
+            try (BufferedWriter out = new BufferedWriter(text)) {
+                new BibtexBibItemWriter(out, settings).write(item);
+            }
+
+            bibtex.add(text.toString());
+        }
+
+        System.out.printf("%d publications%n", bibtex.size());
+
+        for (int run = 0; run < runs; run++) {
+            time("Regular expressions", bibtex, HTMLEscaperBenchmark::escapeWithRegex);
+            time("HTMLEscaper", bibtex, HTMLEscaper::escape);
+        }
+    }
+
+    private interface Escape {
+
+        void escape(String text, Writer out) throws IOException;
+    }
+
+    private static void time(String name, List<String> bibtex, Escape escape) throws IOException {
+        CountingWriter out = new CountingWriter();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String text : bibtex) {
+                escape.escape(text, out);
+            }
+        }
+
+        long time = System.nanoTime() - start;
+
+        System.out.printf("%-20s %6d ns per publication (%d chars)%n", name, time / ((long) ITERATIONS * bibtex.size()), out.count);
+    }
+
+    private static void escapeWithRegex(String text, Writer out) throws IOException {
+        out.write(text.replaceAll("&", "&amp;")
+                .replaceAll("\u00A0", "&nbsp;")
+                .replaceAll("<", "&lt;")
+                .replaceAll(">", "&gt;"));
+    }
+
+    /**
+     * Discards its output, but counts it so that it can't be optimized away.
+     */
+    private static class CountingWriter extends Writer {
+
+        long count = 0;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
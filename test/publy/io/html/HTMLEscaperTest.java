@@ -0,0 +1,94 @@
+package publy.io.html;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HTMLEscaperTest {
+
+    private static final String CHARACTERS = "ab &<>-\u00A0\u00E9\n";
+
+    public HTMLEscaperTest() {
+    }
+
+    /**
+     * Test of escape methods, of class HTMLEscaper.
+     */
+    @Test
+    public void testEscape() throws IOException {
+        System.out.println("escape");
+
+        assertEquals("Tom &amp; Jerry &lt;3&gt;&nbsp;", HTMLEscaper.escape("Tom & Jerry <3>\u00A0"));
+
+        String plain = "Nothing to escape";
+        assertSame(plain, HTMLEscaper.escape(plain));
+
+        Random random = new Random(23);
+
+        for (int i = 0; i < 1000; i++) {
+            String text = randomString(random);
+            String expected = text.replaceAll("&", "&amp;").replaceAll("\u00A0", "&nbsp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;");
+
+            assertEquals(expected, HTMLEscaper.escape(text));
+
+            StringWriter out = new StringWriter();
+            HTMLEscaper.escape(text, out);
+            assertEquals(expected, out.toString());
+
+            out = new StringWriter();
+            Writer escaping = HTMLEscaper.escapingWriter(out);
+            escaping.write(text.toCharArray(), 0, text.length() / 2);
+            escaping.write(text, text.length() / 2, text.length() - text.length() / 2);
+            escaping.flush();
+            assertEquals(expected, out.toString());
+        }
+
+        // Flushing and closing stop at the escaping writer
+        StringWriter target = new StringWriter();
+        BufferedWriter buffered = new BufferedWriter(target);
+        Writer escaping = HTMLEscaper.escapingWriter(buffered);
+        escaping.write("a<b");
+        escaping.flush();
+        escaping.close();
+        assertEquals("", target.toString());
+
+        buffered.flush();
+        assertEquals("a&lt;b", target.toString());
+    }
+
+    /**
+     * Test of replaceDashes method, of class HTMLEscaper.
+     */
+    @Test
+    public void testReplaceDashes() {
+        System.out.println("replaceDashes");
+
+        assertEquals("12&ndash;34", HTMLEscaper.replaceDashes("12--34"));
+        assertEquals("&ndash;1&ndash;", HTMLEscaper.replaceDashes("-1---"));
+
+        String plain = "12";
+        assertSame(plain, HTMLEscaper.replaceDashes(plain));
+
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1000; i++) {
+            String text = randomString(random);
+            assertEquals(text.replaceAll("-+", "&ndash;"), HTMLEscaper.replaceDashes(text));
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(20);
+
+        for (int i = 0; i < length; i++) {
+            sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package publy.io.html;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.Console;
+import publy.algo.ParallelProcessing;
+import publy.data.Author;
+import publy.data.Section;
+import publy.data.bibitem.BibItem;
+import publy.data.settings.GeneralSettings;
+import publy.data.settings.Settings;
+
+public class HTMLPublicationListWriterTest {
+
+    public HTMLPublicationListWriterTest() {
+    }
+
+    /**
+     * Test of writeItems method, of class HTMLPublicationListWriter.
+     */
+    @Test
+    public void testWriteItemsInParallel() throws IOException {
+        System.out.println("writeItemsInParallel");
+
+        Section conferences = new Section("conference", "Conference papers");
+        Section workshops = new Section("workshop", "Workshop papers");
+        Section journals = new Section("journal", "Journal papers");
+        conferences.setSubsections(Arrays.asList(workshops));
+
+        for (int i = 0; i < 3000; i++) {
+            BibItem item = new BibItem(i % 3 == 0 ? "article" : "inproceedings", (i % 2 == 0 ? "" : "p") + i);
+            item.put("author", "Doe, Jane and Author " + (i % 7) + ", First");
+            item.setAuthors(new Author("Doe, Jane"), new Author("Author " + (i % 7) + ", First"));
+            item.put("title", "Title " + i);
+            item.put("year", Integer.toString(1980 + i % 40));
+            item.put("link", "Next|#" + (i + 1));
+
+            if (i % 3 == 0) {
+                item.put("journal", "Journal");
+                journals.addItem(item);
+            } else {
+                item.put("booktitle", "Proceedings");
+                (i % 3 == 1 ? conferences : workshops).addItem(item);
+            }
+        }
+
+        Settings settings = Settings.defaultSettings();
+        settings.getConsoleSettings().setShowWarnings(false);
+        Console.setSettings(settings.getConsoleSettings());
+        Console.setHeadless(true);
+
+        Path dir = Files.createTempDirectory("publy-html");
+
+        try {
+            for (GeneralSettings.Numbering numbering : GeneralSettings.Numbering.values()) {
+                for (boolean reverse : new boolean[]{false, true}) {
+                    settings.getGeneralSettings().setNumbering(numbering);
+                    settings.getGeneralSettings().setReverseNumbering(reverse);
+
+                    String sequential = write(settings, Arrays.asList(conferences, journals), dir, 1);
+                    String parallel = write(settings, Arrays.asList(conferences, journals), dir, 4);
+
+                    assertTrue(sequential.contains("Title 2999"));
+                    assertEquals(numbering + (reverse ? " reversed" : ""), sequential, parallel);
+                }
+            }
+        } finally {
+            ParallelProcessing.setThreads(1);
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static String write(Settings settings, List<Section> sections, Path dir, int threads) throws IOException {
+        ParallelProcessing.setThreads(threads);
+        Path target = dir.resolve(threads + "/publications.html");
+        settings.getFileSettings().setTarget(target);
+        new HTMLPublicationListWriter(settings).writePublicationList(sections, target);
+        return new String(Files.readAllBytes(target), StandardCharsets.UTF_8);
+    }
+}
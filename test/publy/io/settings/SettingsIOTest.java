@@ -15,7 +15,19 @@
  */
 package publy.io.settings;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import org.junit.Test;
+import static org.junit.Assert.*;
+import publy.data.category.OutputCategory;
+import publy.data.category.conditions.AndCondition;
+import publy.data.category.conditions.Condition;
+import publy.data.category.conditions.FieldContainsCondition;
+import publy.data.category.conditions.FieldEqualsCondition;
+import publy.data.category.conditions.FieldExistsCondition;
+import publy.data.category.conditions.OrCondition;
+import publy.data.category.conditions.TypeCondition;
 import publy.data.settings.BeanTestUtils;
 import publy.data.settings.Settings;
 
@@ -62,4 +74,62 @@ public class SettingsIOTest {
         Settings settings = new Settings();
         BeanTestUtils.testSettingsIO(settings, settings.getConsoleSettings());
     }
+
+    @Test
+    public void testCombinedConditionIO() throws Exception {
+        System.out.println("test combined condition IO");
+        Path tempSettingsFile = Files.createTempFile("PublyIOTestSettings", ".xml");
+        tempSettingsFile.toFile().deleteOnExit();
+        Settings.setSettingsPath(tempSettingsFile);
+
+        Settings settings = Settings.defaultSettings();
+        OutputCategory category = settings.getCategorySettings().getAllCategories().get(0);
+        Condition condition = new OrCondition(false,
+                new TypeCondition(false, "article"),
+                new AndCondition(true,
+                        new FieldExistsCondition(false, "pages"),
+                        new OrCondition(false,
+                                new FieldEqualsCondition(true, "pubstate", "submitted", "accepted"),
+                                new FieldContainsCondition(false, "booktitle", "SODA", "STOC"))));
+        category.setCondition(condition);
+
+        SettingsWriter.writeSettings(settings);
+        Settings readSettings = (new SettingsReaderCurrent()).parseSettings();
+
+        OutputCategory readCategory = readSettings.getCategorySettings().getAllCategories().get(0);
+        assertEquals(describe(condition), describe(readCategory.getCondition()));
+        assertEquals(category.getFieldConditions().size(), readCategory.getFieldConditions().size());
+        assertEquals(category.getTypeCondition().getTypes(), readCategory.getTypeCondition().getTypes());
+
+        // Categories without a combined condition don't get one
+        assertNull(readSettings.getCategorySettings().getAllCategories().get(1).getCondition());
+    }
+
+    private static String describe(Condition condition) {
+        String description = condition.getClass().getSimpleName() + (condition.isInverted() ? "!" : "");
+
+        if (condition instanceof TypeCondition) {
+            return description + ((TypeCondition) condition).getTypes();
+        } else if (condition instanceof FieldExistsCondition) {
+            return description + ((FieldExistsCondition) condition).getField();
+        } else if (condition instanceof FieldEqualsCondition) {
+            return description + ((FieldEqualsCondition) condition).getField() + ((FieldEqualsCondition) condition).getValues();
+        } else if (condition instanceof FieldContainsCondition) {
+            return description + ((FieldContainsCondition) condition).getField() + ((FieldContainsCondition) condition).getValues();
+        } else if (condition instanceof AndCondition) {
+            return description + describe(((AndCondition) condition).getConditions().toArray(new Condition[0]));
+        } else {
+            return description + describe(((OrCondition) condition).getConditions().toArray(new Condition[0]));
+        }
+    }
+
+    private static String describe(Condition[] conditions) {
+        String[] descriptions = new String[conditions.length];
+
+        for (int i = 0; i < conditions.length; i++) {
+            descriptions[i] = describe(conditions[i]);
+        }
+
+        return Arrays.toString(descriptions);
+    }
 }
\ No newline at end of file